@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.jfr;
+
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.validators.AbstractConditionalValidator;
+import uk.gov.ida.validation.validators.AbstractValidator;
+import uk.gov.ida.validation.validators.CompositeValidator;
+import uk.gov.ida.validation.validators.ValidationListener;
+import uk.gov.ida.validation.validators.ValidationListeners;
+import uk.gov.ida.validation.validators.ValidationOutcome;
+
+/**
+ * A validation listener emitting a {@link ValidationEvent} for every validator invocation while JDK Flight Recorder
+ * is recording with the event enabled.  When it is not, each invocation costs only the check that the event is
+ * enabled.
+ */
+public class JfrValidationListener implements ValidationListener {
+    private static final JfrValidationListener INSTANCE = new JfrValidationListener();
+
+    /**
+     * Registers the listener with {@link ValidationListeners}, so that all validators emit events.
+     */
+    public static void install() {
+        ValidationListeners.unregister(INSTANCE);
+        ValidationListeners.register(INSTANCE);
+    }
+
+    /**
+     * Unregisters the listener installed by {@link #install()}.
+     */
+    public static void uninstall() {
+        ValidationListeners.unregister(INSTANCE);
+    }
+
+    @Override
+    public Object started(AbstractConditionalValidator<?> validator, Messages messages) {
+        ValidationEvent event = new ValidationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void finished(Object handle, AbstractConditionalValidator<?> validator, Messages messages, ValidationOutcome outcome) {
+        if (handle == null) {
+            return;
+        }
+
+        ValidationEvent event = (ValidationEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.validatorName = validator.getName();
+            event.validatorClass = validator.getClass();
+            event.composite = validator instanceof CompositeValidator;
+            if (validator instanceof AbstractValidator) {
+                Message message = ((AbstractValidator<?>) validator).getMessage();
+                if (message != null) {
+                    event.field = message.getField();
+                    event.code = message.getCode();
+                }
+            }
+            event.outcome = outcome.name();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event spanning a single validator invocation, from before its condition is evaluated until it
+ * finishes.  Disabled unless enabled in the recording settings, for example with
+ * {@code -XX:StartFlightRecording:settings=profile} and {@code uk.gov.ida.validation.Validation#enabled=true}.
+ */
+@Name("uk.gov.ida.validation.Validation")
+@Label("Validation")
+@Category({"GOV.UK Verify", "Validation"})
+@Description("Invocation of a validator")
+@Enabled(false)
+@StackTrace(false)
+public class ValidationEvent extends Event {
+    @Label("Validator")
+    @Description("The stable name of the validator")
+    String validatorName;
+
+    @Label("Validator Class")
+    Class<?> validatorClass;
+
+    @Label("Composite")
+    @Description("Whether the validator is composed of other validators")
+    boolean composite;
+
+    @Label("Field")
+    @Description("The field of the validator's message template, if any")
+    String field;
+
+    @Label("Code")
+    @Description("The code of the validator's message template, if any")
+    String code;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,288 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrent, memory-bounded store of the ids seen within a sliding window of time, for detecting replays.
+ *
+ * <p>Ids are recorded in time buckets, each a concurrent set covering a fixed span of time.  A ring of buckets covers
+ * the window, and expiry is by rotation: once a bucket falls out of the window it is dropped, wholesale, by the next
+ * recording, and its slot later taken by the bucket for a new span, so no entries are ever scanned and the ids held
+ * never exceed the capacity, however bursty the recordings.  An id is remembered for at least the window and at
+ * most the window plus one bucket span.</p>
+ *
+ * <p>Recording is lock-free apart from the internal striping of each bucket's set.  After inserting an id into its
+ * bucket, a recording checks every other live bucket, including any for a later time span recorded into by a thread
+ * that has already seen the clock move on.  So of several concurrent recordings of the same id at most one is first,
+ * even across a bucket boundary; a race may instead find all of them replayed, which fails safe.</p>
+ */
+public class ReplayCache {
+    /**
+     * The outcome of recording an id.
+     */
+    public enum Outcome {
+        /**
+         * The id has not been seen within the window, and has now been recorded.
+         */
+        FIRST_SEEN,
+
+        /**
+         * The id has been seen within the window.
+         */
+        REPLAYED,
+
+        /**
+         * The store is full, so the id could be neither checked against all ids seen nor recorded.
+         */
+        FULL
+    }
+
+    private static final int DEFAULT_BUCKETS = 16;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private final long bucketMillis;
+
+    private final long capacity;
+
+    private final LongSupplier clock;
+
+    private final LongAdder replays = new LongAdder();
+
+    private final LongAdder rejectedWhenFull = new LongAdder();
+
+    /**
+     * Constructs a store remembering ids for the given window.
+     *
+     * @param window   the time for which an id is remembered.
+     * @param unit     the unit of the window.
+     * @param capacity the maximum number of ids held.
+     */
+    public ReplayCache(long window, TimeUnit unit, long capacity) {
+        this(window, unit, capacity, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Constructs a store remembering ids for the given window, in the given number of time buckets.  More buckets
+     * release memory sooner after ids expire, at the cost of checking more sets on each recording.
+     *
+     * @param window      the time for which an id is remembered.
+     * @param unit        the unit of the window.
+     * @param capacity    the maximum number of ids held.
+     * @param bucketCount the number of time buckets, at least 2.
+     */
+    public ReplayCache(long window, TimeUnit unit, long capacity, int bucketCount) {
+        this(window, unit, capacity, bucketCount, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * Constructs a store reading the time, in milliseconds, from the given clock.
+     */
+    ReplayCache(long window, TimeUnit unit, long capacity, int bucketCount, LongSupplier clock) {
+        if (bucketCount < 2) {
+            throw new IllegalArgumentException("There must be at least 2 buckets: " + bucketCount);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        long windowMillis = unit.toMillis(window);
+        this.bucketMillis = Math.max(1L, (windowMillis + bucketCount - 2) / (bucketCount - 1));
+        this.capacity = capacity;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.clock = clock;
+    }
+
+    /**
+     * Records an id, unless it has already been seen within the window.
+     *
+     * @param id the id, which must not be null.
+     * @return whether the id was first seen, or had been seen, or could not be checked because the store is full.
+     */
+    public Outcome record(Object id) {
+        long epoch = clock.getAsLong() / bucketMillis;
+        dropExpiredBuckets(epoch);
+        Bucket current = bucketFor(epoch);
+
+        if (current.ids.contains(id) || containsInEarlierBucket(id, epoch)) {
+            replays.increment();
+            return Outcome.REPLAYED;
+        }
+        if (size(epoch) >= capacity) {
+            rejectedWhenFull.increment();
+            return Outcome.FULL;
+        }
+        if (!current.ids.add(id) || containsInOtherBucket(id, current, epoch)) {
+            replays.increment();
+            return Outcome.REPLAYED;
+        }
+        current.size.increment();
+        return Outcome.FIRST_SEEN;
+    }
+
+    /**
+     * Whether an id has been seen within the window, without recording it.
+     *
+     * @param id the id.
+     * @return true if the id has been seen, false otherwise.
+     */
+    public boolean contains(Object id) {
+        long epoch = clock.getAsLong() / bucketMillis;
+        Bucket current = buckets.get(index(epoch));
+        return current != null && current.epoch == epoch && current.ids.contains(id) || containsInEarlierBucket(id, epoch);
+    }
+
+    /**
+     * Gets the number of ids held within the window.
+     *
+     * @return the number of ids held.
+     */
+    public long size() {
+        return size(clock.getAsLong() / bucketMillis);
+    }
+
+    /**
+     * Gets the number of recordings of ids already seen.
+     *
+     * @return the number of replays detected.
+     */
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    /**
+     * Gets the number of recordings refused because the store was full.
+     *
+     * @return the number of recordings refused.
+     */
+    public long getFullCount() {
+        return rejectedWhenFull.sum();
+    }
+
+    private long size(long epoch) {
+        long size = 0;
+        for (int age = 0; age < buckets.length(); age++) {
+            Bucket bucket = buckets.get(index(epoch - age));
+            if (bucket != null && bucket.epoch == epoch - age) {
+                size += bucket.size.sum();
+            }
+        }
+        return size;
+    }
+
+    private boolean containsInEarlierBucket(Object id, long epoch) {
+        int count = buckets.length();
+        for (int age = 1; age < count; age++) {
+            Bucket bucket = buckets.get(index(epoch - age));
+            if (bucket != null && bucket.epoch == epoch - age && bucket.ids.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an id is held in any live bucket other than the given one, including a bucket for an epoch later than
+     * the given epoch, into which a recording that read the clock after this one may already have inserted it.
+     */
+    private boolean containsInOtherBucket(Object id, Bucket current, long epoch) {
+        long oldestLiveEpoch = epoch - buckets.length() + 1;
+        for (int index = 0; index < buckets.length(); index++) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket != current && bucket.epoch >= oldestLiveEpoch && bucket.ids.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of ids held in every bucket, including those of expired epochs not yet dropped.
+     */
+    long getRetainedCount() {
+        long retained = 0;
+        for (int index = 0; index < buckets.length(); index++) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null) {
+                retained += bucket.size.sum();
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * Drops every bucket whose epoch has left the window, so that the ids it holds are released even if no recording
+     * lands in its slot.
+     */
+    private void dropExpiredBuckets(long epoch) {
+        long oldestLiveEpoch = epoch - buckets.length() + 1;
+        for (int index = 0; index < buckets.length(); index++) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epoch < oldestLiveEpoch) {
+                buckets.compareAndSet(index, bucket, null);
+            }
+        }
+    }
+
+    /**
+     * Gets the bucket for the given epoch, replacing the bucket of an expired epoch occupying its slot.
+     */
+    private Bucket bucketFor(long epoch) {
+        int index = index(epoch);
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            Bucket replacement = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, replacement)) {
+                return replacement;
+            }
+        }
+    }
+
+    private int index(long epoch) {
+        return (int) Math.floorMod(epoch, (long) buckets.length());
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+
+        private final Set<Object> ids = ConcurrentHashMap.newKeySet();
+
+        private final LongAdder size = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
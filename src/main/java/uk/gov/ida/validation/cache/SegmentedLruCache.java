@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, concurrent cache evicting entries by segmented LRU, with optional expiry of entries a fixed time after
+ * they are added.
+ *
+ * <p>The cache is striped into independently locked stripes by key hash, so that threads working on different keys
+ * rarely contend.  Within each stripe new entries enter a probationary segment and are promoted to a protected
+ * segment when hit again; only entries hit at least twice are protected, so a burst of one-off keys evicts other
+ * one-off keys rather than the frequently used keys of a skewed workload.</p>
+ *
+ * @param <K> the type of the keys, which may be null.
+ * @param <V> the type of the values, which must not be null.
+ */
+public class SegmentedLruCache<K, V> {
+    private static final Object NULL_KEY = new Object();
+
+    private static final int MAX_STRIPES = 64;
+
+    private static final int MIN_STRIPE_CAPACITY = 16;
+
+    private final Stripe<V>[] stripes;
+
+    private final int stripeMask;
+
+    private final long timeToLiveMillis;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a cache holding at most the given number of entries, which never expire.
+     *
+     * @param capacity the maximum number of entries held.
+     */
+    public SegmentedLruCache(int capacity) {
+        this(capacity, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a cache holding at most the given number of entries, each of which expires the given time after it
+     * is added.
+     *
+     * @param capacity   the maximum number of entries held.
+     * @param timeToLive the time for which an entry may be used, or 0 for entries never to expire.
+     * @param unit       the unit of the time to live.
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedLruCache(int capacity, long timeToLive, TimeUnit unit) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, capacity / MIN_STRIPE_CAPACITY)));
+        this.stripes = (Stripe<V>[]) new Stripe<?>[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0), evictions);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.timeToLiveMillis = unit.toMillis(timeToLive);
+    }
+
+    /**
+     * Gets the value cached for a key, counting a hit or a miss.
+     *
+     * @param key the key.
+     * @return the value cached, or null if none is cached or it has expired.
+     */
+    public V get(K key) {
+        Object internalKey = key == null ? NULL_KEY : key;
+        V value = stripeFor(internalKey).get(internalKey);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * Caches a value for a key, replacing any value already cached.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    public void put(K key, V value) {
+        Object internalKey = key == null ? NULL_KEY : key;
+        long expiresAt = timeToLiveMillis > 0 ? currentMillis() + timeToLiveMillis : Long.MAX_VALUE;
+        stripeFor(internalKey).put(internalKey, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        for (Stripe<V> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * Gets the number of entries held, including any expired but not yet removed.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found no value.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries evicted to make room for others.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Stripe<V> stripeFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return stripes[hash & stripeMask];
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * A stripe of the cache: a probationary and a protected segment, each in least- to most-recently used order.
+     */
+    private static final class Stripe<V> {
+        private final int capacity;
+
+        private final int protectedCapacity;
+
+        private final LinkedHashMap<Object, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Object, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LongAdder evictions;
+
+        private Stripe(int capacity, LongAdder evictions) {
+            this.capacity = capacity;
+            this.evictions = evictions;
+            this.protectedCapacity = capacity * 4 / 5;
+        }
+
+        synchronized V get(Object key) {
+            Entry<V> entry = protectedSegment.get(key);
+            if (entry == null) {
+                entry = probation.remove(key);
+                if (entry == null) {
+                    return null;
+                }
+                if (isExpired(entry)) {
+                    return null;
+                }
+                promote(key, entry);
+            } else if (isExpired(entry)) {
+                protectedSegment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(Object key, Entry<V> entry) {
+            if (protectedSegment.containsKey(key)) {
+                protectedSegment.put(key, entry);
+                return;
+            }
+            probation.put(key, entry);
+            while (probation.size() + protectedSegment.size() > capacity) {
+                Map<Object, Entry<V>> victims = probation.isEmpty() ? protectedSegment : probation;
+                Iterator<Object> eldest = victims.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void clear() {
+            probation.clear();
+            protectedSegment.clear();
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedSegment.size();
+        }
+
+        private void promote(Object key, Entry<V> entry) {
+            protectedSegment.put(key, entry);
+            if (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<Object, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<Object, Entry<V>> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+
+        private static boolean isExpired(Entry<?> entry) {
+            return entry.expiresAt != Long.MAX_VALUE && currentMillis() >= entry.expiresAt;
+        }
+    }
+
+    private static long currentMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
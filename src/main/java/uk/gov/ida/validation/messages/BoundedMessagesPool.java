@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A messages pool shared by all threads, retaining up to a fixed number of idle containers.  Containers released to a
+ * full pool are left for the garbage collector.
+ */
+public class BoundedMessagesPool implements MessagesPool {
+    private final ArrayBlockingQueue<MessagesImpl> idle;
+
+    public BoundedMessagesPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Pool capacity must be at least 1 but was " + capacity);
+        }
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public MessagesImpl acquire() {
+        MessagesImpl messages = idle.poll();
+        return messages == null ? new MessagesImpl() : messages;
+    }
+
+    @Override
+    public void release(MessagesImpl messages) {
+        idle.offer(messages.reset());
+    }
+
+    /**
+     * Gets the number of idle containers currently held by this pool.
+     *
+     * @return the number of idle containers.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+/**
+ * A messages container that halts validation once an error budget is spent: either once it holds a given number of
+ * errors, or as soon as a message of a given severity or higher is added.  Because every validator in a tree adds to
+ * the same container, a failure deep in one branch stops its siblings and every branch above it.
+ *
+ * <pre>
+ *     Messages messages = validator.validate(response, BudgetedMessages.stopAfterErrors(messages(), 1));
+ * </pre>
+ */
+public class BudgetedMessages extends ForwardingMessages {
+    private final int maxErrors;
+
+    private final Severity haltSeverity;
+
+    private volatile boolean halted;
+
+    private BudgetedMessages(Messages delegate, int maxErrors, Severity haltSeverity) {
+        super(delegate);
+        this.maxErrors = maxErrors;
+        this.haltSeverity = haltSeverity;
+        this.halted = delegate.isHalted() || maxErrors > 0 && delegate.getErrorCount() >= maxErrors;
+    }
+
+    /**
+     * Creates a container halting validation once the given container holds the given number of errors.
+     *
+     * @param delegate  the container to which messages are added.
+     * @param maxErrors the number of errors after which validation halts, which must be at least 1.
+     * @return the budgeted container.
+     */
+    public static BudgetedMessages stopAfterErrors(Messages delegate, int maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("Error budget must be at least 1: " + maxErrors);
+        }
+        return new BudgetedMessages(delegate, maxErrors, null);
+    }
+
+    /**
+     * Creates a container halting validation as soon as a message of the given severity, or a higher severity, is
+     * added.
+     *
+     * @param delegate the container to which messages are added.
+     * @param severity the lowest severity of message that halts validation.
+     * @return the budgeted container.
+     */
+    public static BudgetedMessages stopAtSeverity(Messages delegate, Severity severity) {
+        return new BudgetedMessages(delegate, 0, severity);
+    }
+
+    @Override
+    protected void added(Severity severity) {
+        if (halted) {
+            return;
+        }
+        if (haltSeverity != null ? severity.compareTo(haltSeverity) >= 0
+                                 : severity == Severity.ERROR && getDelegate().getErrorCount() >= maxErrors) {
+            halted = true;
+        }
+    }
+
+    /**
+     * Creates a fork of the delegate with what remains of this container's budget, so that the fork halts once the
+     * errors it holds would spend this container's budget, or once this container halts.
+     *
+     * @return a new, empty messages container.
+     */
+    @Override
+    public Messages fork() {
+        BudgetedMessages parent = this;
+        int remainingErrors = haltSeverity != null ? 0 : Math.max(1, maxErrors - getDelegate().getErrorCount());
+        return new BudgetedMessages(getDelegate().fork(), remainingErrors, haltSeverity) {
+            @Override
+            public boolean isHalted() {
+                return super.isHalted() || parent.isHalted();
+            }
+        };
+    }
+
+    @Override
+    public boolean isHalted() {
+        return halted || getDelegate().isHalted();
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * A messages container holding messages of all severities in a single array, alongside a parallel array of severity
+ * tags and a count per severity.
+ *
+ * <p>Compared with {@link MessagesImpl}, which lazily allocates a list per severity, a failing validation costs at
+ * most two small array allocations and all messages are held contiguously, in the order they were added.  The lists
+ * answered by {@link #getErrors()}, {@link #getWarnings()} and {@link #getInfos()} are lightweight, read-only views
+ * over the shared storage.</p>
+ */
+public class CompactMessages implements Messages {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private static final Message[] NO_MESSAGES = new Message[0];
+
+    private static final byte[] NO_SEVERITIES = new byte[0];
+
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    private static final long NO_CURSOR = -1L;
+
+    private Message[] messages = NO_MESSAGES;
+
+    private byte[] severities = NO_SEVERITIES;
+
+    private int size;
+
+    private final int[] counts = new int[SEVERITIES.length];
+
+    private final SeverityView infos = new SeverityView(Severity.INFO);
+
+    private final SeverityView warnings = new SeverityView(Severity.WARNING);
+
+    private final SeverityView errors = new SeverityView(Severity.ERROR);
+
+    /**
+     * Static factory method for creating an initially empty compact messages container.
+     */
+    public static final CompactMessages compactMessages() {
+        return new CompactMessages();
+    }
+
+    @Override
+    public List<Message> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public List<Message> getWarnings() {
+        return warnings;
+    }
+
+    @Override
+    public List<Message> getInfos() {
+        return infos;
+    }
+
+    /**
+     * Get all messages held in the container, of any severity, in the order they were added.
+     *
+     * @return a read-only view of all messages held in the container.
+     */
+    public List<Message> getMessages() {
+        return new AbstractList<Message>() {
+            @Override
+            public Message get(int index) {
+                checkIndex(index, size);
+                return messages[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Get the severity of the message at the given position of {@link #getMessages()}.
+     *
+     * @param index the position of the message, in the order messages were added.
+     * @return the severity of the message.
+     */
+    public Severity getSeverity(int index) {
+        checkIndex(index, size);
+        return SEVERITIES[severities[index]];
+    }
+
+    @Override
+    public CompactMessages addError(String code, String parameterisedMessage) {
+        return addError(code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public CompactMessages addError(String code, String parameterisedMessage, Object... messageParameters) {
+        return addError(globalMessage(code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public CompactMessages addError(Message message) {
+        return add(Severity.ERROR, message);
+    }
+
+    @Override
+    public CompactMessages addWarning(String code, String parameterisedMessage) {
+        return addWarning(code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public CompactMessages addWarning(String code, String parameterisedMessage, Object... messageParameters) {
+        return addWarning(globalMessage(code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public CompactMessages addWarning(Message message) {
+        return add(Severity.WARNING, message);
+    }
+
+    @Override
+    public CompactMessages addInfo(String code, String parameterisedMessage) {
+        return addInfo(code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public CompactMessages addInfo(String code, String parameterisedMessage, Object... messageParameters) {
+        return addInfo(globalMessage(code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public CompactMessages addInfo(Message message) {
+        return add(Severity.INFO, message);
+    }
+
+    @Override
+    public CompactMessages addFieldError(String field, String code, String parameterisedMessage) {
+        return addFieldError(field, code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public CompactMessages addFieldError(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return addError(fieldMessage(field, code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public CompactMessages addFieldWarning(String field, String code, String parameterisedMessage) {
+        return addFieldWarning(field, code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public CompactMessages addFieldWarning(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return addWarning(fieldMessage(field, code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public CompactMessages addFieldInfo(String field, String code, String parameterisedMessage) {
+        return addFieldInfo(field, code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public CompactMessages addFieldInfo(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return addInfo(fieldMessage(field, code, parameterisedMessage, messageParameters));
+    }
+
+    /**
+     * Create a new, empty compact container for use by an independent validation whose results are later to be
+     * combined with this container's via {@link #mergeFrom(Messages)}.
+     *
+     * @return a new, empty compact messages container.
+     */
+    @Override
+    public CompactMessages fork() {
+        return new CompactMessages();
+    }
+
+    /**
+     * Add all of the messages held in another container to this container, preserving their severities and order.
+     * Where the other container is also compact, its storage is copied in bulk.
+     *
+     * @param other the container whose messages are to be added.
+     * @return this container, to allow method chaining.
+     */
+    @Override
+    public CompactMessages mergeFrom(Messages other) {
+        if (!(other instanceof CompactMessages)) {
+            Messages.super.mergeFrom(other);
+            return this;
+        }
+
+        CompactMessages compact = (CompactMessages) other;
+        int otherSize = compact.size;
+        ensureCapacity(size + otherSize);
+        System.arraycopy(compact.messages, 0, messages, size, otherSize);
+        System.arraycopy(compact.severities, 0, severities, size, otherSize);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += compact.counts[i];
+        }
+        size += otherSize;
+        return this;
+    }
+
+    /**
+     * Remove all messages from this container so that it may be reused, retaining any storage already allocated.
+     *
+     * @return this container, to allow method chaining.
+     */
+    public CompactMessages reset() {
+        Arrays.fill(messages, 0, size, null);
+        Arrays.fill(counts, 0);
+        size = 0;
+        infos.invalidate();
+        warnings.invalidate();
+        errors.invalidate();
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getErrorCount() {
+        return counts[Severity.ERROR.ordinal()];
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return counts[Severity.ERROR.ordinal()] > 0;
+    }
+
+    @Override
+    public boolean hasWarnings() {
+        return counts[Severity.WARNING.ordinal()] > 0;
+    }
+
+    @Override
+    public boolean hasInfos() {
+        return counts[Severity.INFO.ordinal()] > 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompactMessages other = (CompactMessages) o;
+        return getMessages().equals(other.getMessages()) &&
+               Arrays.equals(Arrays.copyOf(severities, size), Arrays.copyOf(other.severities, other.size));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getMessages(), Arrays.hashCode(Arrays.copyOf(severities, size)));
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("infos", infos)
+                .append("warnings", warnings)
+                .append("errors", errors)
+                .toString();
+    }
+
+    private CompactMessages add(Severity severity, Message message) {
+        ensureCapacity(size + 1);
+        messages[size] = message;
+        severities[size] = (byte) severity.ordinal();
+        counts[severity.ordinal()]++;
+        size++;
+        return this;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= messages.length) return;
+
+        int capacity = Math.max(required, Math.max(INITIAL_CAPACITY, messages.length << 1));
+        messages = Arrays.copyOf(messages, capacity);
+        severities = Arrays.copyOf(severities, capacity);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * A read-only view of the messages of a single severity.  Positional access remembers where the last lookup
+     * finished, so that walking the view in order costs no more than a single pass over the storage.
+     */
+    private final class SeverityView extends AbstractList<Message> {
+        private final byte severity;
+
+        /**
+         * The index within this view, and position within the storage, of the last message looked up, packed into a
+         * single value so that concurrent readers always see a consistent pair.
+         */
+        private volatile long cursor = NO_CURSOR;
+
+        private SeverityView(Severity severity) {
+            this.severity = (byte) severity.ordinal();
+        }
+
+        @Override
+        public Message get(int index) {
+            checkIndex(index, size());
+
+            long last = cursor;
+            int found = -1;
+            int position = -1;
+            if (last != NO_CURSOR && (int) (last >>> 32) <= index) {
+                found = (int) (last >>> 32);
+                position = (int) last;
+            }
+            while (found < index) {
+                if (severities[++position] == severity) {
+                    found++;
+                }
+            }
+
+            cursor = ((long) index << 32) | position;
+            return messages[position];
+        }
+
+        @Override
+        public int size() {
+            return counts[severity];
+        }
+
+        private void invalidate() {
+            cursor = NO_CURSOR;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * A messages container which may be safely shared by many threads adding messages concurrently, such as parallel or
+ * asynchronous validations contributing to a single result.
+ *
+ * <p>Writers append to one of a number of striped buffers, chosen by thread, so that threads seldom contend on the same
+ * lock.  Each message is tagged with a sequence number on arrival and the buffers are merged in that order when
+ * messages are read, so reads always present messages in a stable, arrival order.  The counts behind {@link #size()},
+ * {@link #hasErrors()} and friends are held in {@link LongAdder}s and never take a lock.</p>
+ *
+ * <p>Reads reflect every message whose add completed before the read began.</p>
+ */
+public class ConcurrentMessages implements Messages {
+    private static final int DEFAULT_STRIPES = stripesFor(Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Comparator<Entry> ARRIVAL_ORDER = (e1, e2) -> Long.compare(e1.sequence, e2.sequence);
+
+    private final Stripe[] stripes;
+
+    private final int stripeMask;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder infoCount = new LongAdder();
+
+    private final LongAdder warningCount = new LongAdder();
+
+    private final LongAdder errorCount = new LongAdder();
+
+    /**
+     * The most recently merged view of all stripes, reused by reads until another message is added.
+     */
+    private volatile Snapshot snapshot = new Snapshot(0, new Entry[0]);
+
+    /**
+     * Static factory method for creating an initially empty concurrent messages container.
+     */
+    public static final ConcurrentMessages concurrentMessages() {
+        return new ConcurrentMessages();
+    }
+
+    /**
+     * Construct an empty concurrent message container, striped according to the number of available processors.
+     */
+    public ConcurrentMessages() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Construct an empty concurrent message container with (at least) the given number of append buffers.
+     *
+     * @param stripes the number of append buffers, which will be rounded up to a power of two.
+     */
+    public ConcurrentMessages(int stripes) {
+        this.stripes = new Stripe[stripesFor(stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = this.stripes.length - 1;
+    }
+
+    @Override
+    public List<Message> getErrors() {
+        return messagesOf(Severity.ERROR);
+    }
+
+    @Override
+    public List<Message> getWarnings() {
+        return messagesOf(Severity.WARNING);
+    }
+
+    @Override
+    public List<Message> getInfos() {
+        return messagesOf(Severity.INFO);
+    }
+
+    @Override
+    public ConcurrentMessages addError(String code, String parameterisedMessage) {
+        return addError(code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public ConcurrentMessages addError(String code, String parameterisedMessage, Object... messageParameters) {
+        return addError(globalMessage(code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public ConcurrentMessages addError(Message message) {
+        append(Severity.ERROR, message);
+        errorCount.increment();
+        return this;
+    }
+
+    @Override
+    public ConcurrentMessages addWarning(String code, String parameterisedMessage) {
+        return addWarning(code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public ConcurrentMessages addWarning(String code, String parameterisedMessage, Object... messageParameters) {
+        return addWarning(globalMessage(code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public ConcurrentMessages addWarning(Message message) {
+        append(Severity.WARNING, message);
+        warningCount.increment();
+        return this;
+    }
+
+    @Override
+    public ConcurrentMessages addInfo(String code, String parameterisedMessage) {
+        return addInfo(code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public ConcurrentMessages addInfo(String code, String parameterisedMessage, Object... messageParameters) {
+        return addInfo(globalMessage(code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public ConcurrentMessages addInfo(Message message) {
+        append(Severity.INFO, message);
+        infoCount.increment();
+        return this;
+    }
+
+    @Override
+    public ConcurrentMessages addFieldError(String field, String code, String parameterisedMessage) {
+        return addFieldError(field, code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public ConcurrentMessages addFieldError(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return addError(fieldMessage(field, code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public ConcurrentMessages addFieldWarning(String field, String code, String parameterisedMessage) {
+        return addFieldWarning(field, code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public ConcurrentMessages addFieldWarning(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return addWarning(fieldMessage(field, code, parameterisedMessage, messageParameters));
+    }
+
+    @Override
+    public ConcurrentMessages addFieldInfo(String field, String code, String parameterisedMessage) {
+        return addFieldInfo(field, code, parameterisedMessage, (Object[])null);
+    }
+
+    @Override
+    public ConcurrentMessages addFieldInfo(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return addInfo(fieldMessage(field, code, parameterisedMessage, messageParameters));
+    }
+
+    /**
+     * Create a new, empty concurrent container for use by an independent validation whose results are later to be
+     * combined with this container's via {@link #mergeFrom(Messages)}.
+     *
+     * @return a new, empty concurrent messages container.
+     */
+    @Override
+    public ConcurrentMessages fork() {
+        return new ConcurrentMessages(stripes.length);
+    }
+
+    @Override
+    public int size() {
+        return (int)(infoCount.sum() + warningCount.sum() + errorCount.sum());
+    }
+
+    @Override
+    public int getErrorCount() {
+        return (int)errorCount.sum();
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return errorCount.sum() > 0;
+    }
+
+    @Override
+    public boolean hasWarnings() {
+        return warningCount.sum() > 0;
+    }
+
+    @Override
+    public boolean hasInfos() {
+        return infoCount.sum() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("infos", getInfos())
+                .append("warnings", getWarnings())
+                .append("errors", getErrors())
+                .toString();
+    }
+
+    private void append(Severity severity, Message message) {
+        Entry entry = new Entry(sequence.getAndIncrement(), severity, message);
+        stripes[(int)Thread.currentThread().getId() & stripeMask].add(entry);
+    }
+
+    private List<Message> messagesOf(Severity severity) {
+        List<Message> selected = new ArrayList<>();
+        for (Entry entry : merged()) {
+            if (entry.severity == severity) {
+                selected.add(entry.message);
+            }
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    private Entry[] merged() {
+        Snapshot current = snapshot;
+        long added = sequence.get();
+        if (current.sequence == added) {
+            return current.entries;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(entries);
+        }
+        Entry[] sorted = entries.toArray(new Entry[entries.size()]);
+        Arrays.sort(sorted, ARRIVAL_ORDER);
+
+        // Only reuse the merge if no add was still in flight while the stripes were being read.
+        if (sorted.length == added && (added == 0 || sorted[sorted.length - 1].sequence == added - 1)) {
+            snapshot = new Snapshot(added, sorted);
+        }
+        return sorted;
+    }
+
+    private static int stripesFor(int requested) {
+        int stripes = 1;
+        while (stripes < requested) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final Severity severity;
+        private final Message message;
+
+        private Entry(long sequence, Severity severity, Message message) {
+            this.sequence = sequence;
+            this.severity = severity;
+            this.message = message;
+        }
+    }
+
+    private static final class Stripe {
+        private Entry[] entries = new Entry[4];
+        private int size;
+
+        private synchronized void add(Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size << 1);
+            }
+            entries[size++] = entry;
+        }
+
+        private synchronized void copyTo(List<Entry> target) {
+            for (int i = 0; i < size; i++) {
+                target.add(entries[i]);
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        private final long sequence;
+        private final Entry[] entries;
+
+        private Snapshot(long sequence, Entry[] entries) {
+            this.sequence = sequence;
+            this.entries = entries;
+        }
+    }
+}
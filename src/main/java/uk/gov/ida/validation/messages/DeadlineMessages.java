@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * A messages container that halts validation once a deadline passes, adding a single timeout error when it does.
+ * Composite validators check for halting between their children, so a validation run against this container stops
+ * at the first check after the deadline.  An optional earlier, soft deadline drops any warnings and infos added after
+ * it, so that only errors are reported by a validation running late.
+ *
+ * <p>The soft deadline only filters the messages added: validators that add only warnings or infos still run after
+ * it, and it does not halt validation.  Work that should be skipped once the soft deadline passes must check
+ * {@link #isPastSoftDeadline()} itself.</p>
+ */
+public class DeadlineMessages extends ForwardingMessages {
+    public static final String TIMEOUT_MESSAGE_CODE = "validation.timeout";
+    public static final String TIMEOUT_PARAM_MESSAGE = "Validation did not complete within {0}ms";
+
+    private final long timeoutMillis;
+
+    private final long startNanos;
+
+    private final long timeoutNanos;
+
+    private final long softTimeoutNanos;
+
+    private final AtomicBoolean timedOut = new AtomicBoolean();
+
+    private DeadlineMessages(Messages delegate, long softTimeoutNanos, long timeout, TimeUnit unit) {
+        super(delegate);
+        this.startNanos = System.nanoTime();
+        this.timeoutMillis = unit.toMillis(timeout);
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.softTimeoutNanos = softTimeoutNanos;
+    }
+
+    /**
+     * Creates a container halting validation once the given time has elapsed.
+     *
+     * @param delegate the container to which messages are added.
+     * @param timeout  the time allowed for validation.
+     * @param unit     the unit of the time allowed.
+     * @return the container with the deadline.
+     */
+    public static DeadlineMessages withDeadline(Messages delegate, long timeout, TimeUnit unit) {
+        return new DeadlineMessages(delegate, Long.MAX_VALUE, timeout, unit);
+    }
+
+    /**
+     * Creates a container dropping warnings and infos once a soft timeout has elapsed, and halting validation once a
+     * hard timeout has elapsed.
+     *
+     * @param delegate    the container to which messages are added.
+     * @param softTimeout the time after which warnings and infos are dropped.
+     * @param timeout     the time allowed for validation.
+     * @param unit        the unit of the times given.
+     * @return the container with the deadlines.
+     */
+    public static DeadlineMessages withDeadlines(Messages delegate, long softTimeout, long timeout, TimeUnit unit) {
+        if (softTimeout > timeout) {
+            throw new IllegalArgumentException("Soft timeout must not exceed timeout: " + softTimeout + " > " + timeout);
+        }
+        return new DeadlineMessages(delegate, unit.toNanos(softTimeout), timeout, unit);
+    }
+
+    @Override
+    protected boolean accepts(Severity severity) {
+        return severity == Severity.ERROR || !isPastSoftDeadline();
+    }
+
+    /**
+     * Whether the soft deadline has passed, after which warnings and infos are dropped.  Validators whose only output
+     * is warnings or infos may check this to skip work whose messages would be dropped.
+     *
+     * @return true if the soft deadline has passed, false otherwise or if there is no soft deadline.
+     */
+    public boolean isPastSoftDeadline() {
+        return System.nanoTime() - startNanos >= softTimeoutNanos;
+    }
+
+    /**
+     * Whether validation should stop, because the deadline has passed or the delegate has halted.  The first call to
+     * find the deadline passed adds the timeout error.
+     *
+     * @return true if validation should stop, false otherwise.
+     */
+    @Override
+    public boolean isHalted() {
+        if (timedOut.get()) {
+            return true;
+        }
+        if (System.nanoTime() - startNanos < timeoutNanos) {
+            return getDelegate().isHalted();
+        }
+        if (timedOut.compareAndSet(false, true)) {
+            addError(globalMessage(TIMEOUT_MESSAGE_CODE, TIMEOUT_PARAM_MESSAGE, timeoutMillis));
+        }
+        return true;
+    }
+
+    /**
+     * Whether validation has been halted by the deadline passing.
+     *
+     * @return true if the timeout error has been added, false otherwise.
+     */
+    public boolean isTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * Gets the time remaining before the deadline.
+     *
+     * @return the time remaining, in milliseconds, which is 0 once the deadline has passed.
+     */
+    public long getRemainingMillis() {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(timeoutNanos - (System.nanoTime() - startNanos)));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+/**
+ * A hierarchical field path, such as {@code assertion.subject.nameId} or {@code addresses[3].postcode}, held as an
+ * immutable chain of segments linked to their parent and rendered as a string only when first asked for.  The hash
+ * code of a path is that of its rendered string, maintained as each segment is appended, so paths and messages
+ * carrying them can be hashed without rendering.
+ *
+ * <p>The path of the object currently being validated is kept per thread, and {@link MessageImpl messages} created
+ * while a path is current are reported against their field beneath that path.  Nested validators, such as a
+ * {@code CompositeValidator} with a path segment, extend the current path while their children run, so that a chain
+ * of segments is built as validation descends, and strings are built only for the messages whose field is asked
+ * for.</p>
+ */
+public final class FieldPath {
+    private static final ThreadLocal<FieldPath> CURRENT = new ThreadLocal<>();
+
+    private final FieldPath parent;
+
+    private final String segment;
+
+    private final int length;
+
+    private final int hashCode;
+
+    /**
+     * The rendered path, built on first use.  Strings are safe to publish without synchronisation, so a race at worst
+     * renders the path twice.
+     */
+    private String rendered;
+
+    private FieldPath(FieldPath parent, String segment) {
+        this.parent = parent;
+        this.segment = segment;
+        this.length = (parent != null ? parent.length : 0) + segment.length();
+        this.hashCode = extend(parent != null ? parent.hashCode : 0, segment);
+    }
+
+    /**
+     * Creates a path of a single named field.
+     *
+     * @param name the field name.
+     * @return the path.
+     */
+    public static FieldPath of(String name) {
+        return new FieldPath(null, name);
+    }
+
+    /**
+     * Creates a path of a single element index, rendered as {@code [index]}.
+     *
+     * @param index the index.
+     * @return the path.
+     */
+    public static FieldPath ofIndex(int index) {
+        return new FieldPath(null, "[" + index + "]");
+    }
+
+    /**
+     * Creates the path of a named field beneath this path, rendered as {@code path.name}.
+     *
+     * @param name the field name.
+     * @return the extended path.
+     */
+    public FieldPath child(String name) {
+        return new FieldPath(this, "." + name);
+    }
+
+    /**
+     * Creates the path of an element of the collection at this path, rendered as {@code path[index]}.
+     *
+     * @param index the index.
+     * @return the extended path.
+     */
+    public FieldPath index(int index) {
+        return new FieldPath(this, "[" + index + "]");
+    }
+
+    /**
+     * Gets the path this path extends.
+     *
+     * @return the parent path, or null for a path of a single segment.
+     */
+    public FieldPath getParent() {
+        return parent;
+    }
+
+    /**
+     * Re-roots this path, replacing an ancestor path, or this path itself, with another path.  Ancestors are matched
+     * by identity.
+     *
+     * @param from the ancestor path to be replaced.
+     * @param to   the path replacing it, or null for the segments beneath it to form a path of their own.
+     * @return the re-rooted path, which is null where this path is replaced by null, or this path where the ancestor
+     * path is not an ancestor of this path.
+     */
+    public FieldPath rebase(FieldPath from, FieldPath to) {
+        if (this == from) {
+            return to;
+        }
+        if (parent == null) {
+            return this;
+        }
+        FieldPath rebasedParent = parent.rebase(from, to);
+        if (rebasedParent == parent) {
+            return this;
+        }
+        if (rebasedParent != null) {
+            return new FieldPath(rebasedParent, segment);
+        }
+        return new FieldPath(null, segment.charAt(0) == '.' ? segment.substring(1) : segment);
+    }
+
+    /**
+     * Renders the path of a field beneath this path.
+     *
+     * @param field the field, which may be null.
+     * @return this path followed by the field, or this path alone where the field is null.
+     */
+    public String resolve(String field) {
+        return field == null ? toString() : toString() + "." + field;
+    }
+
+    /**
+     * Computes the hash code of the string {@link #resolve(String) rendered} for a field beneath this path, without
+     * rendering it.
+     *
+     * @param field the field, which may be null.
+     * @return the hash code of the rendered path.
+     */
+    int resolvedHashCode(String field) {
+        return field == null ? hashCode : extend(31 * hashCode + '.', field);
+    }
+
+    /**
+     * Gets the path current on this thread.
+     *
+     * @return the current path, or null where no path is current.
+     */
+    public static FieldPath current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the path current on this thread.  Callers extending the path should restore the previous path once done.
+     *
+     * @param path the path, or null to clear the current path.
+     */
+    public static void setCurrent(FieldPath path) {
+        CURRENT.set(path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FieldPath other = (FieldPath) o;
+        return hashCode == other.hashCode && length == other.length && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        String path = rendered;
+        if (path == null) {
+            char[] chars = new char[length];
+            for (FieldPath node = this; node != null; node = node.parent) {
+                int start = node.parent != null ? node.parent.length : 0;
+                node.segment.getChars(0, node.segment.length(), chars, start);
+            }
+            path = new String(chars);
+            rendered = path;
+        }
+        return path;
+    }
+
+    private static int extend(int hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+}
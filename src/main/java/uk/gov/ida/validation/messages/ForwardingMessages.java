@@ -0,0 +1,321 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import java.util.List;
+
+/**
+ * A messages container forwarding every call to another container, as a base for decorators that observe or
+ * restrict the messages added.  Adding methods answer this container rather than the delegate, so that chained calls
+ * remain decorated.
+ */
+public abstract class ForwardingMessages implements Messages {
+    private final Messages delegate;
+
+    /**
+     * Constructs a container forwarding to the given container.
+     *
+     * @param delegate the container to which calls are forwarded.
+     */
+    protected ForwardingMessages(Messages delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the container to which calls are forwarded.
+     *
+     * @return the decorated container.
+     */
+    public Messages getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Whether messages of the given severity are to be added to the delegate, or dropped.  Accepts all messages by
+     * default.
+     *
+     * @param severity the severity of a message to be added.
+     * @return true if the message is to be added, false if it is to be dropped.
+     */
+    protected boolean accepts(Severity severity) {
+        return true;
+    }
+
+    /**
+     * Notifies that one or more messages of the given severity have been added to the delegate.  Does nothing by
+     * default.
+     *
+     * @param severity the severity of the messages added.
+     */
+    protected void added(Severity severity) {
+    }
+
+    @Override
+    public List<Message> getErrors() {
+        return delegate.getErrors();
+    }
+
+    @Override
+    public List<Message> getWarnings() {
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public List<Message> getInfos() {
+        return delegate.getInfos();
+    }
+
+    @Override
+    public Messages addError(String code, String parameterisedMessage) {
+        if (accepts(Severity.ERROR)) {
+            delegate.addError(code, parameterisedMessage);
+            added(Severity.ERROR);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addError(String code, String parameterisedMessage, Object... messageParameters) {
+        if (accepts(Severity.ERROR)) {
+            delegate.addError(code, parameterisedMessage, messageParameters);
+            added(Severity.ERROR);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addError(Message message) {
+        if (accepts(Severity.ERROR)) {
+            delegate.addError(message);
+            added(Severity.ERROR);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addFieldError(String field, String code, String parameterisedMessage) {
+        if (accepts(Severity.ERROR)) {
+            delegate.addFieldError(field, code, parameterisedMessage);
+            added(Severity.ERROR);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addFieldError(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        if (accepts(Severity.ERROR)) {
+            delegate.addFieldError(field, code, parameterisedMessage, messageParameters);
+            added(Severity.ERROR);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addWarning(String code, String parameterisedMessage) {
+        if (accepts(Severity.WARNING)) {
+            delegate.addWarning(code, parameterisedMessage);
+            added(Severity.WARNING);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addWarning(String code, String parameterisedMessage, Object... messageParameters) {
+        if (accepts(Severity.WARNING)) {
+            delegate.addWarning(code, parameterisedMessage, messageParameters);
+            added(Severity.WARNING);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addWarning(Message message) {
+        if (accepts(Severity.WARNING)) {
+            delegate.addWarning(message);
+            added(Severity.WARNING);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addFieldWarning(String field, String code, String parameterisedMessage) {
+        if (accepts(Severity.WARNING)) {
+            delegate.addFieldWarning(field, code, parameterisedMessage);
+            added(Severity.WARNING);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addFieldWarning(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        if (accepts(Severity.WARNING)) {
+            delegate.addFieldWarning(field, code, parameterisedMessage, messageParameters);
+            added(Severity.WARNING);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addInfo(String code, String parameterisedMessage) {
+        if (accepts(Severity.INFO)) {
+            delegate.addInfo(code, parameterisedMessage);
+            added(Severity.INFO);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addInfo(String code, String parameterisedMessage, Object... messageParameters) {
+        if (accepts(Severity.INFO)) {
+            delegate.addInfo(code, parameterisedMessage, messageParameters);
+            added(Severity.INFO);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addInfo(Message message) {
+        if (accepts(Severity.INFO)) {
+            delegate.addInfo(message);
+            added(Severity.INFO);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addFieldInfo(String field, String code, String parameterisedMessage) {
+        if (accepts(Severity.INFO)) {
+            delegate.addFieldInfo(field, code, parameterisedMessage);
+            added(Severity.INFO);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages addFieldInfo(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        if (accepts(Severity.INFO)) {
+            delegate.addFieldInfo(field, code, parameterisedMessage, messageParameters);
+            added(Severity.INFO);
+        }
+        return this;
+    }
+
+    @Override
+    public Messages mergeFrom(Messages other) {
+        boolean acceptsInfos = accepts(Severity.INFO), acceptsWarnings = accepts(Severity.WARNING), acceptsErrors = accepts(Severity.ERROR);
+        if (acceptsInfos && acceptsWarnings && acceptsErrors) {
+            delegate.mergeFrom(other);
+        } else {
+            if (acceptsInfos) {
+                other.getInfos().forEach(delegate::addInfo);
+            }
+            if (acceptsWarnings) {
+                other.getWarnings().forEach(delegate::addWarning);
+            }
+            if (acceptsErrors) {
+                other.getErrors().forEach(delegate::addError);
+            }
+        }
+
+        if (acceptsInfos && other.hasInfos()) {
+            added(Severity.INFO);
+        }
+        if (acceptsWarnings && other.hasWarnings()) {
+            added(Severity.WARNING);
+        }
+        if (acceptsErrors && other.hasErrors()) {
+            added(Severity.ERROR);
+        }
+        return this;
+    }
+
+    /**
+     * Creates a fork of the delegate that accepts the messages this container accepts and halts when this container
+     * halts.
+     *
+     * @return a new, empty messages container.
+     */
+    @Override
+    public Messages fork() {
+        ForwardingMessages parent = this;
+        return new ForwardingMessages(delegate.fork()) {
+            @Override
+            protected boolean accepts(Severity severity) {
+                return parent.accepts(severity);
+            }
+
+            @Override
+            public boolean isHalted() {
+                return parent.isHalted();
+            }
+        };
+    }
+
+    @Override
+    public boolean hasErrorLike(Message prototype) {
+        return delegate.hasErrorLike(prototype);
+    }
+
+    @Override
+    public boolean hasErrorCode(String code) {
+        return delegate.hasErrorCode(code);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int getErrorCount() {
+        return delegate.getErrorCount();
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return delegate.hasErrors();
+    }
+
+    @Override
+    public boolean hasWarnings() {
+        return delegate.hasWarnings();
+    }
+
+    @Override
+    public boolean hasInfos() {
+        return delegate.hasInfos();
+    }
+
+    @Override
+    public boolean isHalted() {
+        return delegate.isHalted();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + delegate + "]";
+    }
+}
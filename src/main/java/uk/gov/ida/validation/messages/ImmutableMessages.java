@@ -0,0 +1,268 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of a messages container.  Once taken, a snapshot never changes and so may be freely shared
+ * between threads, and replayed into other containers, without defensive copying.
+ *
+ * <p>Snapshots are combined with {@link #merge(ImmutableMessages)}, which answers a new snapshot and leaves both
+ * operands untouched.  Where either operand holds no messages of a given severity the other's storage is shared
+ * rather than copied.</p>
+ *
+ * <p>Any attempt to add a message to a snapshot results in an {@link UnsupportedOperationException}.</p>
+ */
+public final class ImmutableMessages implements Messages {
+    private static final Message[] NO_MESSAGES = new Message[0];
+
+    /**
+     * A snapshot holding no messages.
+     */
+    public static final ImmutableMessages EMPTY = new ImmutableMessages(NO_MESSAGES, NO_MESSAGES, NO_MESSAGES);
+
+    private final Message[] infos;
+
+    private final Message[] warnings;
+
+    private final Message[] errors;
+
+    private final List<Message> infoList;
+
+    private final List<Message> warningList;
+
+    private final List<Message> errorList;
+
+    private ImmutableMessages(Message[] infos, Message[] warnings, Message[] errors) {
+        this.infos = infos;
+        this.warnings = warnings;
+        this.errors = errors;
+        this.infoList = Collections.unmodifiableList(Arrays.asList(infos));
+        this.warningList = Collections.unmodifiableList(Arrays.asList(warnings));
+        this.errorList = Collections.unmodifiableList(Arrays.asList(errors));
+    }
+
+    /**
+     * Takes an immutable snapshot of the given messages container.
+     *
+     * @param messages the messages to be captured.
+     * @return a snapshot of the messages container, or the supplied container itself if already immutable.
+     */
+    public static ImmutableMessages snapshotOf(Messages messages) {
+        if (messages instanceof ImmutableMessages) {
+            return (ImmutableMessages) messages;
+        }
+        if (messages.size() == 0) {
+            return EMPTY;
+        }
+        return new ImmutableMessages(toArray(messages.getInfos()),
+                                     toArray(messages.getWarnings()),
+                                     toArray(messages.getErrors()));
+    }
+
+    /**
+     * Combines this snapshot with another, answering a new snapshot containing the messages of this snapshot followed
+     * by those of the other.
+     *
+     * @param other the snapshot whose messages are to follow those of this snapshot.
+     * @return the combined snapshot.
+     */
+    public ImmutableMessages merge(ImmutableMessages other) {
+        if (other.size() == 0) return this;
+        if (size() == 0) return other;
+
+        return new ImmutableMessages(concat(infos, other.infos),
+                                     concat(warnings, other.warnings),
+                                     concat(errors, other.errors));
+    }
+
+    @Override
+    public List<Message> getErrors() {
+        return errorList;
+    }
+
+    @Override
+    public List<Message> getWarnings() {
+        return warningList;
+    }
+
+    @Override
+    public List<Message> getInfos() {
+        return infoList;
+    }
+
+    @Override
+    public Messages addError(String code, String parameterisedMessage) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addError(String code, String parameterisedMessage, Object... messageParameters) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addError(Message message) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addWarning(String code, String parameterisedMessage) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addWarning(String code, String parameterisedMessage, Object... messageParameters) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addWarning(Message message) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addInfo(String code, String parameterisedMessage) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addInfo(String code, String parameterisedMessage, Object... messageParameters) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addInfo(Message message) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addFieldError(String field, String code, String parameterisedMessage) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addFieldError(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addFieldWarning(String field, String code, String parameterisedMessage) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addFieldWarning(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addFieldInfo(String field, String code, String parameterisedMessage) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages addFieldInfo(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        throw immutable();
+    }
+
+    @Override
+    public Messages mergeFrom(Messages other) {
+        throw immutable();
+    }
+
+    @Override
+    public int size() {
+        return infos.length + warnings.length + errors.length;
+    }
+
+    @Override
+    public int getErrorCount() {
+        return errors.length;
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return errors.length > 0;
+    }
+
+    @Override
+    public boolean hasWarnings() {
+        return warnings.length > 0;
+    }
+
+    @Override
+    public boolean hasInfos() {
+        return infos.length > 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImmutableMessages messages = (ImmutableMessages) o;
+        return Arrays.equals(errors, messages.errors) &&
+               Arrays.equals(warnings, messages.warnings) &&
+               Arrays.equals(infos, messages.infos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(errorList, warningList, infoList);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("infos", infoList)
+                .append("warnings", warningList)
+                .append("errors", errorList)
+                .toString();
+    }
+
+    private static Message[] toArray(List<Message> messages) {
+        return messages.isEmpty() ? NO_MESSAGES : messages.toArray(new Message[messages.size()]);
+    }
+
+    private static Message[] concat(Message[] first, Message[] second) {
+        if (second.length == 0) return first;
+        if (first.length == 0) return second;
+
+        Message[] combined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, combined, first.length, second.length);
+        return combined;
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Immutable messages cannot be added to");
+    }
+}
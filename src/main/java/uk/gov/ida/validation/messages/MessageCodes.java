@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry interning message codes into dense integer ids, so that the codes present in a messages container can
+ * be held as a {@link BitSet} and tested or aggregated without comparing strings.
+ *
+ * <p>Ids are allocated in the order codes are first registered and are never reused, so the registry is intended for
+ * the bounded set of canonical codes of a domain rather than free text.  Codes are registered only by explicit calls
+ * to {@link #register(String)}, typically once at start up; messages containers only look codes up, and treat codes
+ * not registered as absent from their bit sets.</p>
+ */
+public final class MessageCodes {
+    /**
+     * The id answered for codes which have not been registered.
+     */
+    public static final int UNREGISTERED = -1;
+
+    private static final ConcurrentMap<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    private static volatile String[] codes = new String[64];
+
+    private static int nextId;
+
+    private MessageCodes() {}
+
+    /**
+     * Get the id of the given code, registering the code if it has not been seen before.
+     *
+     * @param code the message code.
+     * @return the id of the code, or {@link #UNREGISTERED} if the code is null.
+     */
+    public static int register(String code) {
+        if (code == null) return UNREGISTERED;
+
+        Integer id = IDS.get(code);
+        return id != null ? id : registerNew(code);
+    }
+
+    /**
+     * Get the id of the given code, without registering it.
+     *
+     * @param code the message code.
+     * @return the id of the code, or {@link #UNREGISTERED} if the code has never been registered.
+     */
+    public static int idOf(String code) {
+        if (code == null) return UNREGISTERED;
+
+        Integer id = IDS.get(code);
+        return id == null ? UNREGISTERED : id;
+    }
+
+    /**
+     * Get the code registered with the given id.
+     *
+     * @param id the id of the code.
+     * @return the code, or null if no code is registered with the id.
+     */
+    public static String codeOf(int id) {
+        String[] current = codes;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Get the codes registered with the ids set in the given bit set.
+     *
+     * @param ids the ids of the codes.
+     * @return the codes, in id order.
+     */
+    public static String[] codesOf(BitSet ids) {
+        return ids.stream().mapToObj(MessageCodes::codeOf).toArray(String[]::new);
+    }
+
+    private static synchronized int registerNew(String code) {
+        Integer existing = IDS.get(code);
+        if (existing != null) return existing;
+
+        int id = nextId++;
+        String[] current = codes;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length << 1);
+        }
+        current[id] = code;
+        codes = current;
+        IDS.put(code, id);
+        return id;
+    }
+}
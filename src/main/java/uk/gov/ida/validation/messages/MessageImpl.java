@@ -39,23 +39,40 @@ public class MessageImpl implements Message {
     /**
      * The field to which this message applies.  May be left unset for a general message.
      */
-    private String field;
+    private final String field;
+
+    /**
+     * The path beneath which the field lies, current when this message was created.  May be null.
+     */
+    private final FieldPath path;
+
+    /**
+     * The field rendered beneath the path, built on first use.
+     */
+    private transient String resolvedField;
 
     /**
      * The canonical code for this message.
      */
-    private String code;
+    private final String code;
 
     /**
      * The text of this message, which may be parameterised in accordance with {@link MessageFormat} usage.
      */
-    private String parameterisedMessage;
+    private final String parameterisedMessage;
 
     /**
      * Optional message parameters which, if supplied, will be interpolated in the message text
      * in accordance with {@link MessageFormat} usage.
      */
-    private Object[] messageParameters;
+    private final Object[] messageParameters;
+
+    /**
+     * The hash code of the field, code and text of this message, which are immutable, computed on first use since
+     * shared messages are frequently used as hash keys.  Zero until computed; a race at worst computes it twice.  The
+     * message parameters, which may be mutable, are hashed afresh on each call.
+     */
+    private transient int fixedHashCode;
 
     /**
      * Static factory method to conveniently create a global message.
@@ -111,6 +128,11 @@ public class MessageImpl implements Message {
      * @param messageParameters    arguments to be injected into any placeholders in the message text.
      */
     public MessageImpl(String field, String code, String parameterisedMessage, Object... messageParameters) {
+        this(FieldPath.current(), field, code, parameterisedMessage, messageParameters);
+    }
+
+    private MessageImpl(FieldPath path, String field, String code, String parameterisedMessage, Object[] messageParameters) {
+        this.path = path;
         this.field = field;
         this.code = code;
         this.parameterisedMessage = parameterisedMessage;
@@ -118,12 +140,54 @@ public class MessageImpl implements Message {
     }
 
     /**
-     * Get the field to which the message applies, if a field has been set.
+     * Static factory method to create a message for a field beneath an explicit path, rather than the path current
+     * when the message is created.
+     *
+     * @param path                 the path beneath which the field lies, which may be null.
+     * @param field                the field to which the message applies, which may be null.
+     * @param code                 the canonical code of this message.
+     * @param parameterisedMessage the text of this message, with placeholders for supplied parameters.
+     * @param messageParameters    arguments to be injected into any placeholders in the message text.
+     */
+    public static final MessageImpl pathMessage(FieldPath path, String field, String code, String parameterisedMessage, Object... messageParameters) {
+        return new MessageImpl(path, field, code, parameterisedMessage, messageParameters);
+    }
+
+    /**
+     * Get the field to which the message applies, if a field has been set, including the path beneath which the
+     * field lies.  The full path is rendered on first use.
      *
      * @return the fieldname.
      */
     public String getField() {
-        return field;
+        if (path == null) {
+            return field;
+        }
+        String resolved = resolvedField;
+        if (resolved == null) {
+            resolved = path.resolve(field);
+            resolvedField = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * Get the path beneath which the field lies.
+     *
+     * @return the path, or null where the field is not beneath a path.
+     */
+    public FieldPath getPath() {
+        return path;
+    }
+
+    /**
+     * Creates a copy of this message beneath another path.
+     *
+     * @param path the path of the copy, or null for the copy's field not to lie beneath a path.
+     * @return the copy, or this message where the path is already its own.
+     */
+    public MessageImpl withPath(FieldPath path) {
+        return path == this.path ? this : new MessageImpl(path, field, code, parameterisedMessage, messageParameters);
     }
 
     /**
@@ -168,7 +232,8 @@ public class MessageImpl implements Message {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MessageImpl message1 = (MessageImpl) o;
-        return Objects.equals(field, message1.field) &&
+        return hashCode() == message1.hashCode() &&
+               Objects.equals(getField(), message1.getField()) &&
                Objects.equals(code, message1.code) &&
                Objects.equals(parameterisedMessage, message1.parameterisedMessage) &&
                Arrays.equals(messageParameters, message1.messageParameters);
@@ -176,7 +241,13 @@ public class MessageImpl implements Message {
 
     @Override
     public int hashCode() {
-        return Objects.hash(field, code, parameterisedMessage, messageParameters);
+        int hash = fixedHashCode;
+        if (hash == 0) {
+            int fieldHashCode = path != null ? path.resolvedHashCode(field) : Objects.hashCode(field);
+            hash = 31 * (31 * (31 + fieldHashCode) + Objects.hashCode(code)) + Objects.hashCode(parameterisedMessage);
+            fixedHashCode = hash;
+        }
+        return 31 * hash + Arrays.hashCode(messageParameters);
     }
 
     @Override
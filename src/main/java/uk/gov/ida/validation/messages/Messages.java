@@ -181,6 +181,16 @@ public interface Messages {
                     || Arrays.equals(prototype.getMessageParameters(), error.getMessageParameters())));
     }
 
+    /**
+     * Whether there is an error with the given code.
+     *
+     * @param code the message code.
+     * @return true if there exists an error with the given code, false otherwise.
+     */
+    default boolean hasErrorCode(String code) {
+        return getErrors().stream().anyMatch(error -> Objects.equals(code, error.getCode()));
+    }
+
     /**
      * Add a warning for a field, with the supplied code and message text.
      *
@@ -225,6 +235,41 @@ public interface Messages {
      */
     Messages addFieldInfo(String field, String code, String parameterisedMessage, Object... messageParameters);
 
+    /**
+     * Add all of the messages held in another container to this container, preserving their severities and order.
+     *
+     * @param other the container whose messages are to be added.
+     * @return this container, to allow method chaining.
+     */
+    default Messages mergeFrom(Messages other) {
+        other.getInfos().forEach(this::addInfo);
+        other.getWarnings().forEach(this::addWarning);
+        other.getErrors().forEach(this::addError);
+        return this;
+    }
+
+    /**
+     * Create a new, empty container for use by an independent validation whose results are later to be combined with
+     * this container's via {@link #mergeFrom(Messages)}.  A container that halts validation gives a fork that halts
+     * when it does, so that work buffered in the fork is still cut short by a budget or deadline on this container.
+     *
+     * @return a new, empty messages container.
+     */
+    default Messages fork() {
+        return new MessagesImpl();
+    }
+
+    /**
+     * Whether validators adding to this container should stop validating, for instance because a budget of errors
+     * for the whole validation has been spent.  Composite validators check this before and between their children, so
+     * that a halted validation returns without running the rest of the tree.
+     *
+     * @return true if validation should stop, false otherwise.
+     */
+    default boolean isHalted() {
+        return false;
+    }
+
     /**
      * Get the total number of messages held in this message container.
      *
@@ -232,6 +277,15 @@ public interface Messages {
      */
     int size();
 
+    /**
+     * Get the number of error messages held in this message container.
+     *
+     * @return the number of errors held in this message container.
+     */
+    default int getErrorCount() {
+        return hasErrors() ? getErrors().size() : 0;
+    }
+
     /**
      * Get whether the container holds any error messages.
      *
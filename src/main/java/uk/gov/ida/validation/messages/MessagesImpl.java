@@ -28,6 +28,7 @@ package uk.gov.ida.validation.messages;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
@@ -54,6 +55,12 @@ public class MessagesImpl implements Messages {
      */
     private List<Message> errors;
 
+    /**
+     * The ids, as registered with {@link MessageCodes}, of the codes of the messages held.  Built on first use, kept up
+     * to date as messages are added thereafter, and rebuilt should the number of messages held change otherwise.
+     */
+    private transient CodeIndex codeIndex;
+
     /**
      * Static factory method for creating an initially empty messages container.
      */
@@ -176,6 +183,7 @@ public class MessagesImpl implements Messages {
             infos = new ArrayList<>();
         }
         infos.add(message);
+        indexCode(Severity.INFO, message);
         return this;
     }
 
@@ -245,6 +253,7 @@ public class MessagesImpl implements Messages {
             warnings = new ArrayList<>();
         }
         warnings.add(message);
+        indexCode(Severity.WARNING, message);
         return this;
     }
 
@@ -314,9 +323,127 @@ public class MessagesImpl implements Messages {
             errors = new ArrayList<>();
         }
         errors.add(message);
+        indexCode(Severity.ERROR, message);
+        return this;
+    }
+
+    /**
+     * Create a new, empty container for use by an independent validation whose results are later to be
+     * combined with this container's via {@link #mergeFrom(Messages)}.
+     *
+     * @return a new, empty messages container.
+     */
+    @Override
+    public MessagesImpl fork() {
+        return new MessagesImpl();
+    }
+
+    /**
+     * Add all of the messages held in another container to this container, preserving their severities and order.
+     * Messages are appended in bulk, rather than one at a time.
+     *
+     * @param other the container whose messages are to be added.
+     * @return this container, to allow method chaining.
+     */
+    @Override
+    public MessagesImpl mergeFrom(Messages other) {
+        if (other == this || other.size() == 0) return this;
+
+        infos = appendAll(infos, other.getInfos());
+        warnings = appendAll(warnings, other.getWarnings());
+        errors = appendAll(errors, other.getErrors());
+        if (codeIndex != null) {
+            indexCodes(Severity.INFO, other.getInfos());
+            indexCodes(Severity.WARNING, other.getWarnings());
+            indexCodes(Severity.ERROR, other.getErrors());
+        }
+        return this;
+    }
+
+    /**
+     * Remove all messages from this container so that it may be reused, retaining any storage already allocated.
+     *
+     * @return this container, to allow method chaining.
+     */
+    public MessagesImpl reset() {
+        if (infos != null) infos.clear();
+        if (warnings != null) warnings.clear();
+        if (errors != null) errors.clear();
+        codeIndex = null;
         return this;
     }
 
+    /**
+     * Take an immutable snapshot of the messages currently held in this container, which may be shared freely
+     * between threads.
+     *
+     * @return an immutable snapshot of this container.
+     */
+    public ImmutableMessages snapshot() {
+        return ImmutableMessages.snapshotOf(this);
+    }
+
+    /**
+     * Whether there is an error with the given code.  This is a single bit test against the codes held, for codes
+     * registered with {@link MessageCodes}.
+     *
+     * @param code the message code.
+     * @return true if there exists an error with the given code, false otherwise.
+     */
+    @Override
+    public boolean hasErrorCode(String code) {
+        return hasCode(Severity.ERROR, code);
+    }
+
+    /**
+     * Whether there is a message of the given severity with the given code.  Where every message of the severity has a
+     * code registered with {@link MessageCodes}, this is a single bit test against the codes held; otherwise messages
+     * whose codes are not found among the codes held are looked for one by one.  Codes are only looked up, never
+     * registered, so querying a container does not grow the registry.
+     *
+     * @param severity the severity of the message.
+     * @param code     the message code.
+     * @return true if there exists a message of the given severity and code, false otherwise.
+     */
+    public boolean hasCode(Severity severity, String code) {
+        List<Message> messages = messagesOf(severity);
+        if (code == null || messages.isEmpty()) return false;
+
+        CodeIndex index = codeIndex();
+        int id = MessageCodes.idOf(code);
+        if (id != MessageCodes.UNREGISTERED && index.ids[severity.ordinal()].get(id)) return true;
+
+        return index.unregistered[severity.ordinal()]
+               && messages.stream().anyMatch(message -> code.equals(message.getCode()));
+    }
+
+    /**
+     * Get the ids, as registered with {@link MessageCodes}, of the codes of all messages of the given severity held
+     * in this container.  Bit sets from many containers may be combined cheaply to aggregate codes across results.
+     * Codes not registered when first indexed by this container are not included.
+     *
+     * @param severity the severity of the messages.
+     * @return a new bit set of the code ids of the messages.
+     */
+    public BitSet getCodeIds(Severity severity) {
+        return (BitSet) codeIndex().ids[severity.ordinal()].clone();
+    }
+
+    /**
+     * Whether there is an error similar to the one specified.  Where the prototype has a code, containers holding no
+     * error with that code are ruled out first, by a single bit test where the code is registered.
+     *
+     * @param prototype the message whose properties are to be used to determine if this message container has a
+     *                  similar error message.
+     * @return true if there exists an error with properties the same as the one specified, false otherwise.
+     */
+    @Override
+    public boolean hasErrorLike(Message prototype) {
+        if (prototype.getCode() != null && !hasErrorCode(prototype.getCode())) return false;
+
+        return Messages.super.hasErrorLike(prototype);
+    }
+
     /**
      * Get the total number of messages held in this message container.
      *
@@ -329,6 +456,16 @@ public class MessagesImpl implements Messages {
                + (errors == null ? 0 : errors.size());
     }
 
+    /**
+     * Get the number of error messages held in this message container.
+     *
+     * @return the number of errors held in this message container.
+     */
+    @Override
+    public int getErrorCount() {
+        return errors == null ? 0 : errors.size();
+    }
+
     /**
      * Get whether the container holds any error messages.
      *
@@ -359,19 +496,83 @@ public class MessagesImpl implements Messages {
         return infos != null && !infos.isEmpty();
     }
 
+    private List<Message> messagesOf(Severity severity) {
+        switch (severity) {
+            case INFO:
+                return getInfos();
+            case WARNING:
+                return getWarnings();
+            default:
+                return getErrors();
+        }
+    }
+
+    private CodeIndex codeIndex() {
+        CodeIndex index = codeIndex;
+        if (index == null || index.counts[0] != getInfos().size()
+                          || index.counts[1] != getWarnings().size()
+                          || index.counts[2] != getErrors().size()) {
+            codeIndex = new CodeIndex();
+            indexCodes(Severity.INFO, getInfos());
+            indexCodes(Severity.WARNING, getWarnings());
+            indexCodes(Severity.ERROR, getErrors());
+        }
+        return codeIndex;
+    }
+
+    private void indexCode(Severity severity, Message message) {
+        CodeIndex index = codeIndex;
+        if (index == null) return;
+
+        int ordinal = severity.ordinal();
+        int id = MessageCodes.idOf(message.getCode());
+        if (id != MessageCodes.UNREGISTERED) {
+            index.ids[ordinal].set(id);
+        } else {
+            index.unregistered[ordinal] = true;
+        }
+        index.counts[ordinal]++;
+    }
+
+    private void indexCodes(Severity severity, List<Message> messages) {
+        for (Message message : messages) {
+            indexCode(severity, message);
+        }
+    }
+
+    /**
+     * The registered code ids of the messages held, per severity, with the number of messages indexed and whether
+     * any of them had a code not registered.
+     */
+    private static final class CodeIndex {
+        private final BitSet[] ids = { new BitSet(), new BitSet(), new BitSet() };
+
+        private final int[] counts = new int[3];
+
+        private final boolean[] unregistered = new boolean[3];
+    }
+
+    private static List<Message> appendAll(List<Message> target, List<Message> source) {
+        if (source.isEmpty()) return target;
+        if (target == null) return new ArrayList<>(source);
+
+        target.addAll(source);
+        return target;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MessagesImpl messages = (MessagesImpl) o;
-        return Objects.equals(errors, messages.errors) &&
-               Objects.equals(warnings, messages.warnings) &&
-               Objects.equals(infos, messages.infos);
+        return Objects.equals(getErrors(), messages.getErrors()) &&
+               Objects.equals(getWarnings(), messages.getWarnings()) &&
+               Objects.equals(getInfos(), messages.getInfos());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(errors, warnings, infos);
+        return Objects.hash(getErrors(), getWarnings(), getInfos());
     }
 
     @Override
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+/**
+ * A pool of reusable messages containers, allowing request-scoped containers to be recycled rather than allocated
+ * afresh for every validation.
+ *
+ * <p>A container must not be used by its acquirer once it has been released back to the pool, and any messages which
+ * must outlive the container should first be captured with {@link MessagesImpl#snapshot()}.</p>
+ */
+public interface MessagesPool {
+    /**
+     * Obtain an empty container from the pool, or a new container if none is available.
+     *
+     * @return an empty messages container.
+     */
+    MessagesImpl acquire();
+
+    /**
+     * Return a container to the pool.  The container is emptied and its storage retained for reuse.
+     *
+     * @param messages the container to be returned, which must not be used further by the caller.
+     */
+    void release(MessagesImpl messages);
+
+    /**
+     * Creates a pool shared by all threads which retains at most the given number of idle containers.
+     *
+     * @param capacity the maximum number of idle containers retained by the pool.
+     * @return a new bounded pool.
+     */
+    static MessagesPool bounded(int capacity) {
+        return new BoundedMessagesPool(capacity);
+    }
+
+    /**
+     * Creates a pool which retains one idle container per thread.
+     *
+     * @return a new thread-local pool.
+     */
+    static MessagesPool threadLocal() {
+        return new ThreadLocalMessagesPool();
+    }
+}
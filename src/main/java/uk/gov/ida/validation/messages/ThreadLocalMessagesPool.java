@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+/**
+ * A messages pool retaining a single idle container for each thread.  Acquisition and release involve no
+ * synchronisation, but a container should be released by the same thread that acquired it.
+ */
+public class ThreadLocalMessagesPool implements MessagesPool {
+    private final ThreadLocal<MessagesImpl[]> idle = ThreadLocal.withInitial(() -> new MessagesImpl[1]);
+
+    @Override
+    public MessagesImpl acquire() {
+        MessagesImpl[] slot = idle.get();
+        MessagesImpl messages = slot[0];
+        if (messages == null) {
+            return new MessagesImpl();
+        }
+        slot[0] = null;
+        return messages;
+    }
+
+    @Override
+    public void release(MessagesImpl messages) {
+        idle.get()[0] = messages.reset();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Periodically exports snapshots of a set of named latency histograms, resetting each histogram as it is captured so
+ * that every export covers a single reporting interval.
+ *
+ * <p>Snapshots are passed to a callback, such as the one answered by {@link #toFile(Path)}, which appends a line per
+ * histogram to a local file for collection by a scraper.</p>
+ *
+ * <p>A periodic report that fails does not stop later reports.  Failures are counted, the last is kept, and each is
+ * passed to an optional failure handler, so that a broken exporter can be noticed.</p>
+ */
+public class HistogramReporter implements AutoCloseable {
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final List<StripedValidationMetrics> metricsSources = new CopyOnWriteArrayList<>();
+
+    private final BiConsumer<String, HistogramSnapshot> exporter;
+
+    private ScheduledExecutorService scheduler;
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile RuntimeException lastFailure;
+
+    private volatile Consumer<RuntimeException> failureHandler;
+
+    /**
+     * Constructs a reporter passing each snapshot, with the name of its histogram, to the given exporter.
+     *
+     * @param exporter the callback to receive each snapshot.
+     */
+    public HistogramReporter(BiConsumer<String, HistogramSnapshot> exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * Creates an exporter appending a line per snapshot, prefixed by the time of export and the histogram name, to
+     * the given file.
+     *
+     * @param file the file to be appended to, which is created if it does not exist.
+     * @return an exporter writing to the file.
+     */
+    public static BiConsumer<String, HistogramSnapshot> toFile(Path file) {
+        return (name, snapshot) -> {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                                                         StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(System.currentTimeMillis() + " " + name + " " + snapshot.summary() + System.lineSeparator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Adds a histogram to those reported.
+     *
+     * @param name      the name under which the histogram is reported.
+     * @param histogram the histogram.
+     * @return this reporter, to allow method chaining.
+     */
+    public HistogramReporter register(String name, LatencyHistogram histogram) {
+        histograms.put(name, histogram);
+        return this;
+    }
+
+    /**
+     * Adds the latency histograms of all validators recorded by the given metrics, including validators first recorded
+     * after this call, to those reported.  Each is reported under its validator name.
+     *
+     * @param metrics the metrics whose validator latencies are to be reported.
+     * @return this reporter, to allow method chaining.
+     */
+    public HistogramReporter registerAll(StripedValidationMetrics metrics) {
+        metricsSources.add(metrics);
+        return this;
+    }
+
+    /**
+     * Captures, resets and exports every histogram reported.
+     */
+    public void report() {
+        List<Map.Entry<String, LatencyHistogram>> entries = new ArrayList<>(histograms.entrySet());
+        for (StripedValidationMetrics metrics : metricsSources) {
+            metrics.getAllStats().forEach((name, stats) -> entries.add(new AbstractMap.SimpleImmutableEntry<>(name, stats.getLatency())));
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : entries) {
+            exporter.accept(entry.getKey(), entry.getValue().snapshotAndReset());
+        }
+    }
+
+    /**
+     * Starts reporting periodically, on a daemon thread.
+     *
+     * @param period the interval between reports.
+     * @param unit   the unit of the interval.
+     * @return this reporter, to allow method chaining.
+     */
+    public synchronized HistogramReporter start(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Reporter has already been started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "validation-histogram-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::reportQuietly, period, period, unit);
+        return this;
+    }
+
+    /**
+     * Sets a handler called with each failure of a periodic report, such as to log it.  The handler is called on the
+     * reporting thread and should not throw.
+     *
+     * @param failureHandler the failure handler, or null for none.
+     */
+    public void setFailureHandler(Consumer<RuntimeException> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Gets the number of periodic reports that have failed.
+     *
+     * @return the number of failed reports.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the failure of the most recent periodic report to fail.
+     *
+     * @return the last failure, or null if no report has failed.
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stops periodic reporting, if started.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reports, recording rather than propagating any failure, since a failure propagated from a scheduled task would
+     * cancel all subsequent reports.
+     */
+    void reportQuietly() {
+        try {
+            report();
+        } catch (RuntimeException e) {
+            failures.increment();
+            lastFailure = e;
+            Consumer<RuntimeException> handler = failureHandler;
+            if (handler != null) {
+                try {
+                    handler.accept(e);
+                } catch (RuntimeException ignored) {
+                    // The failure has been counted; a failing handler must not cancel subsequent reports either.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import java.util.Locale;
+
+/**
+ * An immutable capture of the counts of a {@link LatencyHistogram}.
+ */
+public final class HistogramSnapshot {
+    private final long[] counts;
+
+    private final long count;
+
+    private final long sum;
+
+    private final long min;
+
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long sum, long min, long max) {
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        this.counts = counts;
+        this.count = total;
+        this.sum = sum;
+        this.min = total == 0 ? 0 : min;
+        this.max = total == 0 ? 0 : max;
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return the number of latencies recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the lowest latency recorded.
+     *
+     * @return the lowest latency, in nanoseconds, or zero if nothing was recorded.
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the highest latency recorded.
+     *
+     * @return the highest latency, in nanoseconds, or zero if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the mean latency recorded.
+     *
+     * @return the mean latency, in nanoseconds, or zero if nothing was recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Gets the latency at the given percentile of all latencies recorded.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the highest value equivalent to the percentile latency, in nanoseconds, or zero if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, LatencyHistogram.highestValueOf(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Renders a one-line summary of this snapshot, suitable for a log or export file.
+     *
+     * @return a summary of the count, mean, extremes and common percentiles of this snapshot.
+     */
+    public String summary() {
+        return String.format(Locale.ROOT, "count=%d min=%d mean=%.1f p50=%d p90=%d p99=%d p999=%d max=%d",
+                             count, min, getMean(),
+                             getPercentile(50), getPercentile(90), getPercentile(99), getPercentile(99.9),
+                             max);
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies, in nanoseconds, with log-linear buckets in the manner of an HDR histogram: every power of
+ * two range is split into 16 linear sub-buckets, half of the {@value #SUB_BUCKETS} sub-buckets given by
+ * {@link #SUB_BUCKET_BITS}, and values below {@value #SUB_BUCKETS} each have a bucket of their own.  Any recorded value
+ * is therefore held with a relative error of less than one part in 16, while memory stays constant.
+ *
+ * <p>Recording is lock-free.  {@link #snapshot()} captures the counts recorded so far and
+ * {@link #snapshotAndReset()} additionally starts a fresh recording interval, without losing any values recorded
+ * concurrently.</p>
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values below {@link #SUB_BUCKETS} are each held in their own bucket; thereafter each power of two range has
+     * {@link #SUB_BUCKETS} / 2 buckets.
+     */
+    static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * (SUB_BUCKETS / 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds.  Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets the total number of latencies recorded.
+     *
+     * @return the number of latencies recorded.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the latency at the given percentile of all latencies recorded.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the highest value equivalent to the percentile latency, in nanoseconds, or zero if nothing has been
+     * recorded.
+     */
+    public long getPercentile(double percentile) {
+        return snapshot().getPercentile(percentile);
+    }
+
+    /**
+     * Captures the counts recorded so far.
+     *
+     * @return a snapshot of this histogram.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] snapshotCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshotCounts[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(snapshotCounts, sum.sum(), min.get(), max.get());
+    }
+
+    /**
+     * Captures the counts recorded so far and resets this histogram to begin a new recording interval.  Each value
+     * recorded concurrently is counted in exactly one interval.
+     *
+     * @return a snapshot of this histogram, for the interval just ended.
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        long[] snapshotCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshotCounts[i] = counts.getAndSet(i, 0);
+        }
+        return new HistogramSnapshot(snapshotCounts, sum.sumThenReset(), min.getThenReset(), max.getThenReset());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift) - (SUB_BUCKETS / 2);
+        return SUB_BUCKETS + (shift - 1) * (SUB_BUCKETS / 2) + subBucket;
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / (SUB_BUCKETS / 2) + 1;
+        long subBucket = (bucket - SUB_BUCKETS) % (SUB_BUCKETS / 2) + (SUB_BUCKETS / 2);
+        return subBucket << shift;
+    }
+
+    static long highestValueOf(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueOf(bucket + 1) - 1;
+    }
+}
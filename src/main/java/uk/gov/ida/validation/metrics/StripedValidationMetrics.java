@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A metrics implementation recording, per validator name, into {@link ValidatorStats} whose counters are striped
+ * so that many threads may record concurrently with little contention.
+ */
+public class StripedValidationMetrics implements ValidationMetrics {
+    private final ConcurrentMap<String, ValidatorStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordSkipped(String validatorName) {
+        statsFor(validatorName).recordSkipped();
+    }
+
+    @Override
+    public void recordOutcome(String validatorName, boolean passed, long elapsedNanos) {
+        statsFor(validatorName).recordOutcome(passed, elapsedNanos);
+    }
+
+    @Override
+    public void recordEvent(String validatorName, String event) {
+        statsFor(validatorName).recordEvent(event);
+    }
+
+    /**
+     * Gets the statistics recorded for the named validator.
+     *
+     * @param validatorName the stable name of the validator.
+     * @return the statistics for the validator, or null if nothing has been recorded for it.
+     */
+    public ValidatorStats getStats(String validatorName) {
+        return stats.get(validatorName);
+    }
+
+    /**
+     * Gets the statistics recorded for all validators, keyed by validator name.
+     *
+     * @return a read-only view of the statistics of all validators.
+     */
+    public Map<String, ValidatorStats> getAllStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private ValidatorStats statsFor(String validatorName) {
+        ValidatorStats validatorStats = stats.get(validatorName);
+        return validatorStats != null ? validatorStats : stats.computeIfAbsent(validatorName, name -> new ValidatorStats());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+/**
+ * Service provider interface through which validators report their invocations, outcomes and latency.
+ *
+ * <p>Validators report against a stable validator name, so that recordings from many instances of the same validator
+ * are aggregated.  When {@link #isEnabled()} answers false a validator does no measurement at all, so that with the
+ * {@link #none() no-op} implementation installed the cost of metrics is a single, easily inlined check.</p>
+ */
+public interface ValidationMetrics {
+    /**
+     * Gets the no-op metrics implementation, which records nothing and is the default for all validators.
+     *
+     * @return the no-op metrics implementation.
+     */
+    static ValidationMetrics none() {
+        return NoOpValidationMetrics.INSTANCE;
+    }
+
+    /**
+     * Whether validators should measure and report to this implementation.
+     *
+     * @return true if validators should report, false otherwise.
+     */
+    boolean isEnabled();
+
+    /**
+     * Records that a validator was invoked but did not perform its validation, because its condition was not met.
+     *
+     * @param validatorName the stable name of the validator.
+     */
+    void recordSkipped(String validatorName);
+
+    /**
+     * Records that a validator performed its validation.
+     *
+     * @param validatorName the stable name of the validator.
+     * @param passed        true if the validation added no errors, false otherwise.
+     * @param elapsedNanos  the time taken by the validation, in nanoseconds.
+     */
+    void recordOutcome(String validatorName, boolean passed, long elapsedNanos);
+
+    /**
+     * Records that a validator changed its behaviour in some notable way, such as reordering its children.  Records
+     * nothing by default.
+     *
+     * @param validatorName the stable name of the validator.
+     * @param event         the name of the event.
+     */
+    default void recordEvent(String validatorName, String event) {
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation, outcome and latency statistics for a single validator.
+ */
+public class ValidatorStats {
+    private final LongAdder invocations = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder passed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final ConcurrentMap<String, LongAdder> events = new ConcurrentHashMap<>();
+
+    void recordSkipped() {
+        invocations.increment();
+        skipped.increment();
+    }
+
+    void recordOutcome(boolean passed, long elapsedNanos) {
+        invocations.increment();
+        (passed ? this.passed : this.failed).increment();
+        latency.record(elapsedNanos);
+    }
+
+    void recordEvent(String event) {
+        events.computeIfAbsent(event, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Gets the number of times the validator has been invoked, whether or not its validation was performed.
+     *
+     * @return the number of invocations.
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Gets the number of times the validator did not perform its validation, because its condition was not met.
+     *
+     * @return the number of skipped invocations.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Gets the number of times the validator performed its validation without adding an error.
+     *
+     * @return the number of passes.
+     */
+    public long getPassed() {
+        return passed.sum();
+    }
+
+    /**
+     * Gets the number of times the validator performed its validation and added one or more errors.
+     *
+     * @return the number of failures.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the latency histogram of the validations performed.
+     *
+     * @return the latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the number of times the validator recorded the named event.
+     *
+     * @param event the name of the event.
+     * @return the number of times the event was recorded.
+     */
+    public long getEventCount(String event) {
+        LongAdder count = events.get(event);
+        return count == null ? 0L : count.sum();
+    }
+
+    /**
+     * Gets the number of times the validator recorded each event.
+     *
+     * @return the event counts, keyed and sorted by event name.
+     */
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        events.forEach((event, count) -> counts.put(event, count.sum()));
+        return counts;
+    }
+}
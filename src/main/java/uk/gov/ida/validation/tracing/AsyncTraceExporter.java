@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Passes each trace to another exporter on a background daemon thread, so that validating threads neither wait for
+ * nor are affected by a slow or failing exporter.
+ *
+ * <p>Traces are queued up to a fixed capacity.  A trace exported while the queue is full is dropped rather than
+ * blocking the validating thread, and counted, as is each trace the delegate fails to export.</p>
+ */
+public class AsyncTraceExporter implements TraceExporter, AutoCloseable {
+    private final TraceExporter delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructs an exporter queueing up to the given number of traces for the delegate.
+     *
+     * @param delegate the exporter to which traces are passed, on the background thread.
+     * @param capacity the maximum number of traces waiting to be exported.
+     */
+    public AsyncTraceExporter(TraceExporter delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                                               runnable -> {
+                                                   Thread thread = new Thread(runnable, "validation-trace-exporter");
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               },
+                                               (runnable, executor) -> dropped.increment());
+    }
+
+    @Override
+    public void export(TraceSpan root, long startEpochNanos) {
+        executor.execute(() -> {
+            try {
+                delegate.export(root, startEpochNanos);
+            } catch (RuntimeException e) {
+                failures.increment();
+            }
+        });
+    }
+
+    /**
+     * Gets the number of traces dropped because the queue was full, or the exporter closed.
+     *
+     * @return the number of traces dropped.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of traces that the delegate failed to export, by throwing.
+     *
+     * @return the number of traces not exported.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Stops accepting traces, and waits up to the given time for those queued to be exported.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the unit of the timeout.
+     * @return true if all queued traces were exported, false if the timeout elapsed first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stops accepting traces.  Those already queued are still exported, on the background thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
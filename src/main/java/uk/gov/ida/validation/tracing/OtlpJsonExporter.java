@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.validators.ValidationOutcome;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Exports each trace as a single line of OpenTelemetry protocol (OTLP) JSON, as read by the OpenTelemetry Collector's
+ * file receiver, so that traces can be collected from a local file without any network dependency.
+ *
+ * <p>Each validator invocation becomes a span named after its validator, with the validator class, the outcome and
+ * whether its condition was met as attributes, and an event for each message it added.</p>
+ */
+public class OtlpJsonExporter implements TraceExporter {
+    private static final String SCOPE_NAME = "uk.gov.ida.validation";
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private static final int STATUS_OK = 1;
+
+    private static final int STATUS_ERROR = 2;
+
+    private final String serviceName;
+
+    private final Consumer<String> sink;
+
+    /**
+     * Constructs an exporter passing each trace, as a line of JSON without a line separator, to the given sink.
+     *
+     * @param serviceName the service name reported as the resource of every span.
+     * @param sink        the callback to receive each trace.
+     */
+    public OtlpJsonExporter(String serviceName, Consumer<String> sink) {
+        this.serviceName = serviceName;
+        this.sink = sink;
+    }
+
+    /**
+     * Creates an exporter appending a line per trace to the given file.  The file is opened, appended to and closed
+     * for each trace, on the exporting thread, so the exporter is best wrapped in an {@link AsyncTraceExporter}.
+     *
+     * @param serviceName the service name reported as the resource of every span.
+     * @param file        the file to be appended to, which is created if it does not exist.
+     * @return an exporter writing to the file.
+     */
+    public static OtlpJsonExporter toFile(String serviceName, Path file) {
+        Object lock = new Object();
+        return new OtlpJsonExporter(serviceName, json -> {
+            synchronized (lock) {
+                try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                                                             StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(json + System.lineSeparator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void export(TraceSpan root, long startEpochNanos) {
+        sink.accept(toJson(root, startEpochNanos));
+    }
+
+    /**
+     * Renders a trace as OTLP JSON.
+     *
+     * @param root            the root span of the trace.
+     * @param startEpochNanos the wall-clock time at which the root span started, in nanoseconds since the epoch.
+     * @return the trace as a single line of JSON.
+     */
+    public String toJson(TraceSpan root, long startEpochNanos) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        attribute(json, "service.name", serviceName);
+        json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"").append(SCOPE_NAME).append("\"},\"spans\":[");
+        String traceId = randomHex(2);
+        appendSpan(json, root, traceId, "", startEpochNanos - root.getStartNanos());
+        json.append("]}]}]}");
+        return json.toString();
+    }
+
+    private void appendSpan(StringBuilder json, TraceSpan span, String traceId, String parentSpanId, long epochOffset) {
+        String spanId = randomHex(1);
+        long endTime = epochOffset + span.getEndNanos();
+        ValidationOutcome outcome = span.getOutcome();
+
+        json.append("{\"traceId\":\"").append(traceId)
+            .append("\",\"spanId\":\"").append(spanId)
+            .append("\",\"parentSpanId\":\"").append(parentSpanId)
+            .append("\",\"name\":");
+        string(json, span.getName());
+        json.append(",\"kind\":").append(SPAN_KIND_INTERNAL)
+            .append(",\"startTimeUnixNano\":\"").append(epochOffset + span.getStartNanos())
+            .append("\",\"endTimeUnixNano\":\"").append(endTime)
+            .append("\",\"attributes\":[");
+        if (span.getValidatorClass() != null) {
+            attribute(json, "validation.validator.class", span.getValidatorClass().getName());
+            json.append(',');
+        }
+        attribute(json, "validation.outcome", outcome.name());
+        json.append(",{\"key\":\"validation.condition.met\",\"value\":{\"boolValue\":")
+            .append(outcome != ValidationOutcome.SKIPPED).append("}}]");
+
+        List<Message> messages = span.getMessages();
+        if (!messages.isEmpty()) {
+            json.append(",\"events\":[");
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                json.append(i == 0 ? "" : ",")
+                    .append("{\"timeUnixNano\":\"").append(endTime).append("\",\"name\":\"validation.message\",\"attributes\":[");
+                attribute(json, "validation.message.severity", span.getSeverities().get(i).name());
+                json.append(',');
+                attribute(json, "validation.message.field", message.getField());
+                json.append(',');
+                attribute(json, "validation.message.code", message.getCode());
+                json.append(',');
+                attribute(json, "validation.message.text", message.getRenderedMessage());
+                json.append("]}");
+            }
+            json.append(']');
+        }
+        json.append(",\"status\":{\"code\":")
+            .append(outcome == ValidationOutcome.FAILED || outcome == ValidationOutcome.ABORTED ? STATUS_ERROR : STATUS_OK)
+            .append("}}");
+
+        for (TraceSpan child : span.getChildren()) {
+            json.append(',');
+            appendSpan(json, child, traceId, spanId, epochOffset);
+        }
+    }
+
+    private static void attribute(StringBuilder json, String key, String value) {
+        json.append("{\"key\":\"").append(key).append("\",\"value\":{\"stringValue\":");
+        string(json, value == null ? "" : value);
+        json.append("}}");
+    }
+
+    private static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Generates a random, non-zero identifier of the given number of 64-bit words, in lower-case hexadecimal.
+     */
+    private static String randomHex(int words) {
+        StringBuilder hex = new StringBuilder(words * 16);
+        for (int i = 0; i < words; i++) {
+            long value;
+            do {
+                value = ThreadLocalRandom.current().nextLong();
+            } while (value == 0);
+            hex.append(String.format("%016x", value));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.Severity;
+import uk.gov.ida.validation.validators.ValidationOutcome;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A span of a validation trace, covering a single validator invocation, with the spans of any validators it invoked
+ * as children.
+ */
+public final class TraceSpan {
+    private final TraceSpan parent;
+
+    private final String name;
+
+    private final Class<?> validatorClass;
+
+    private final long startNanos;
+
+    private final List<TraceSpan> children = new ArrayList<>();
+
+    private final List<Message> messages = new ArrayList<>();
+
+    private final List<Severity> severities = new ArrayList<>();
+
+    private long endNanos;
+
+    private ValidationOutcome outcome;
+
+    TraceSpan(TraceSpan parent, String name, Class<?> validatorClass, long startNanos) {
+        this.parent = parent;
+        this.name = name;
+        this.validatorClass = validatorClass;
+        this.startNanos = startNanos;
+        if (parent != null) {
+            synchronized (parent.children) {
+                parent.children.add(this);
+            }
+        }
+    }
+
+    void finish(long endNanos, ValidationOutcome outcome) {
+        this.endNanos = endNanos;
+        this.outcome = outcome;
+    }
+
+    void addMessages(Severity severity, List<Message> added) {
+        for (Message message : added) {
+            messages.add(message);
+            severities.add(severity);
+        }
+    }
+
+    TraceSpan getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the name of the validator, as reported by its {@code getName()}, or of the trace for the root span.
+     *
+     * @return the span name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the class of the validator invoked.
+     *
+     * @return the validator class, or null for the root span.
+     */
+    public Class<?> getValidatorClass() {
+        return validatorClass;
+    }
+
+    /**
+     * Gets the start time of the span, as measured by {@link System#nanoTime()}.
+     *
+     * @return the start time in nanoseconds.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Gets the end time of the span, as measured by {@link System#nanoTime()}.
+     *
+     * @return the end time in nanoseconds.
+     */
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    /**
+     * Gets the outcome of the validator invocation, which is {@link ValidationOutcome#SKIPPED} where the validator's
+     * condition was not met.
+     *
+     * @return the outcome of the invocation.
+     */
+    public ValidationOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the spans of the validators invoked during this span, in invocation order.
+     *
+     * @return the child spans.
+     */
+    public List<TraceSpan> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Gets the messages added directly by this span's validator, excluding those added by its children.
+     *
+     * @return the messages added.
+     */
+    public List<Message> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Gets the severities of the messages answered by {@link #getMessages()}, position for position.
+     *
+     * @return the severities of the messages added.
+     */
+    public List<Severity> getSeverities() {
+        return Collections.unmodifiableList(severities);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.messages.Severity;
+import uk.gov.ida.validation.validators.AbstractConditionalValidator;
+import uk.gov.ida.validation.validators.ValidationListener;
+import uk.gov.ida.validation.validators.ValidationListeners;
+import uk.gov.ida.validation.validators.ValidationOutcome;
+import uk.gov.ida.validation.validators.Validator;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records a tree of spans for a sampled fraction of the validations run through {@link #trace}, one span per
+ * validator invoked, and passes each completed trace to an exporter.
+ *
+ * <p>Once installed, the tracer is notified by every validator, but only validations run through {@link #trace} on
+ * the same thread, and selected by sampling, are recorded.  While no trace is being recorded each notification costs a
+ * single read of a counter, so the overhead of tracing is bounded by the sample rate.</p>
+ *
+ * <p>Each trace is exported on the validating thread once validation has finished.  An exporter that throws does not
+ * affect the result of validation: the failure is counted and the trace dropped.  An exporter doing blocking IO should
+ * be wrapped in an {@link AsyncTraceExporter}, so that validations do not wait for it.</p>
+ *
+ * <p>Validation continued on another thread, such as a chunk of elements validated in parallel, is recorded beneath a
+ * {@value #BRANCH_SPAN_NAME} span, a child of the span of the validator that handed the work over.</p>
+ */
+public class ValidationTracer implements ValidationListener {
+    /**
+     * The name of the span covering the validation continued on another thread.
+     */
+    public static final String BRANCH_SPAN_NAME = "branch";
+
+    private final TraceExporter exporter;
+
+    private final double sampleRate;
+
+    private final ThreadLocal<Trace> activeTrace = new ThreadLocal<>();
+
+    private final AtomicInteger activeTraceCount = new AtomicInteger();
+
+    private final LongAdder sampled = new LongAdder();
+
+    private final LongAdder unsampled = new LongAdder();
+
+    private final LongAdder exportFailures = new LongAdder();
+
+    /**
+     * Constructs a tracer recording the given fraction of validations.
+     *
+     * @param exporter   where each completed trace is passed.
+     * @param sampleRate the fraction of validations to be traced, from 0 for none to 1 for all.
+     */
+    public ValidationTracer(TraceExporter exporter, double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.exporter = exporter;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Registers this tracer with {@link ValidationListeners}, so that validators report to it.
+     *
+     * @return this tracer, to allow method chaining.
+     */
+    public ValidationTracer install() {
+        ValidationListeners.unregister(this);
+        ValidationListeners.register(this);
+        return this;
+    }
+
+    /**
+     * Unregisters this tracer, installed by {@link #install()}.
+     */
+    public void uninstall() {
+        ValidationListeners.unregister(this);
+    }
+
+    /**
+     * Validates an object, recording a trace of the validation if it is selected by sampling.  A validation run
+     * while a trace is already being recorded on the current thread forms part of that trace.
+     *
+     * @param name      the name of the root span of the trace.
+     * @param validator the validator to apply.
+     * @param object    the object being validated.
+     * @param messages  standard messages container to which will be added validation messages.
+     * @param <T>       the type of the object being validated.
+     * @return the messages container answered by the validator.
+     */
+    public <T> Messages trace(String name, Validator<T> validator, T object, Messages messages) {
+        if (activeTrace.get() != null) {
+            return validator.validate(object, messages);
+        }
+        if (!isSampled()) {
+            unsampled.increment();
+            return validator.validate(object, messages);
+        }
+
+        sampled.increment();
+        long startEpochNanos = System.currentTimeMillis() * 1_000_000L;
+        Trace trace = new Trace(new TraceSpan(null, name, null, System.nanoTime()), messages);
+        activeTrace.set(trace);
+        activeTraceCount.incrementAndGet();
+        ValidationOutcome outcome = ValidationOutcome.ABORTED;
+        try {
+            int originalErrorCount = messages.getErrorCount();
+            Messages result = validator.validate(object, messages);
+            outcome = messages.getErrorCount() == originalErrorCount ? ValidationOutcome.PASSED : ValidationOutcome.FAILED;
+            return result;
+        } finally {
+            activeTraceCount.decrementAndGet();
+            activeTrace.remove();
+            trace.checkpoint(messages);
+            trace.root.finish(System.nanoTime(), outcome);
+            export(trace.root, startEpochNanos);
+        }
+    }
+
+    private void export(TraceSpan root, long startEpochNanos) {
+        try {
+            exporter.export(root, startEpochNanos);
+        } catch (RuntimeException e) {
+            exportFailures.increment();
+        }
+    }
+
+    /**
+     * Gets the number of validations run through {@link #trace} that were traced.
+     *
+     * @return the number of traces recorded.
+     */
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    /**
+     * Gets the number of validations run through {@link #trace} that were not selected by sampling.
+     *
+     * @return the number of validations not traced.
+     */
+    public long getUnsampledCount() {
+        return unsampled.sum();
+    }
+
+    /**
+     * Gets the number of traces that the exporter failed to export, by throwing.
+     *
+     * @return the number of traces not exported.
+     */
+    public long getExportFailureCount() {
+        return exportFailures.sum();
+    }
+
+    @Override
+    public Object started(AbstractConditionalValidator<?> validator, Messages messages) {
+        if (activeTraceCount.get() == 0) {
+            return null;
+        }
+        Trace trace = activeTrace.get();
+        if (trace == null) {
+            return null;
+        }
+
+        trace.checkpoint(messages);
+        trace.current = new TraceSpan(trace.current, validator.getName(), validator.getClass(), System.nanoTime());
+        return trace;
+    }
+
+    @Override
+    public void finished(Object handle, AbstractConditionalValidator<?> validator, Messages messages, ValidationOutcome outcome) {
+        if (handle == null) {
+            return;
+        }
+
+        Trace trace = (Trace) handle;
+        trace.checkpoint(messages);
+        trace.current.finish(System.nanoTime(), outcome);
+        trace.current = trace.current.getParent();
+    }
+
+    @Override
+    public Object capture() {
+        if (activeTraceCount.get() == 0) {
+            return null;
+        }
+        Trace trace = activeTrace.get();
+        return trace != null ? trace.current : null;
+    }
+
+    /**
+     * Attaches a trace captured on another thread, recording the validation on this thread beneath a new branch span.
+     */
+    @Override
+    public Object attach(Object captured) {
+        Trace previous = activeTrace.get();
+        if (captured == null) {
+            if (previous == null) {
+                return null;
+            }
+            activeTrace.remove();
+            return new Branch(previous, null);
+        }
+
+        Trace branch = new Trace(new TraceSpan((TraceSpan) captured, BRANCH_SPAN_NAME, null, System.nanoTime()), null);
+        activeTrace.set(branch);
+        activeTraceCount.incrementAndGet();
+        return new Branch(previous, branch);
+    }
+
+    @Override
+    public void detach(Object handle) {
+        if (handle == null) {
+            return;
+        }
+
+        Branch branch = (Branch) handle;
+        if (branch.trace != null) {
+            activeTraceCount.decrementAndGet();
+            TraceSpan root = branch.trace.root;
+            boolean failed = root.getChildren().stream().anyMatch(span -> span.getOutcome() == ValidationOutcome.FAILED
+                                                                       || span.getOutcome() == ValidationOutcome.ABORTED);
+            root.finish(System.nanoTime(), failed ? ValidationOutcome.FAILED : ValidationOutcome.PASSED);
+        }
+        if (branch.previous != null) {
+            activeTrace.set(branch.previous);
+        } else {
+            activeTrace.remove();
+        }
+    }
+
+    private boolean isSampled() {
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * A trace attached to a thread, and the trace the thread was recording before, to be restored on detaching.
+     */
+    private static final class Branch {
+        private final Trace previous;
+
+        private final Trace trace;
+
+        private Branch(Trace previous, Trace trace) {
+            this.previous = previous;
+            this.trace = trace;
+        }
+    }
+
+    /**
+     * The state of a trace being recorded on a thread: the span of the validator currently running, and how many
+     * messages of each severity had been added to the container when that span was last brought up to date.
+     */
+    private static final class Trace {
+        private final TraceSpan root;
+
+        private TraceSpan current;
+
+        private Messages container;
+
+        private final int[] counts = new int[Severity.values().length];
+
+        private Trace(TraceSpan root, Messages container) {
+            this.root = root;
+            this.current = root;
+            this.container = container;
+            if (container == null) {
+                return;
+            }
+            counts[Severity.INFO.ordinal()] = container.getInfos().size();
+            counts[Severity.WARNING.ordinal()] = container.getWarnings().size();
+            counts[Severity.ERROR.ordinal()] = container.getErrors().size();
+        }
+
+        /**
+         * Attributes the messages added to the container since the last checkpoint to the current span.  Messages
+         * added to a container other than the last one seen cannot be attributed, and are not recorded.
+         */
+        private void checkpoint(Messages messages) {
+            boolean sameContainer = messages == container;
+            container = messages;
+            checkpoint(Severity.INFO, messages.getInfos(), sameContainer);
+            checkpoint(Severity.WARNING, messages.getWarnings(), sameContainer);
+            checkpoint(Severity.ERROR, messages.getErrors(), sameContainer);
+        }
+
+        private void checkpoint(Severity severity, List<Message> messages, boolean sameContainer) {
+            int size = messages.size();
+            int previous = counts[severity.ordinal()];
+            if (sameContainer && size > previous) {
+                current.addMessages(severity, messages.subList(previous, size));
+            }
+            counts[severity.ordinal()] = size;
+        }
+    }
+}
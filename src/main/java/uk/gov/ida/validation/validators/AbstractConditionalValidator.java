@@ -27,6 +27,7 @@ package uk.gov.ida.validation.validators;
 
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.metrics.ValidationMetrics;
 
 import java.util.function.Predicate;
 
@@ -40,6 +41,38 @@ public abstract class AbstractConditionalValidator<T> implements ConditionalVali
      */
     private Predicate<T> condition;
 
+    /**
+     * The stable name of this validator, as set by its user, defaulting to {@link #defaultName()}.
+     */
+    private String name;
+
+    /**
+     * The name under which this validator reports metrics where no name has been set, assigned from its position in
+     * a tree by {@link ValidatorTrees#setMetrics(Validator, ValidationMetrics)}.
+     */
+    private transient String metricsName;
+
+    /**
+     * The default name, derived on first use.  Strings are safe to publish without synchronisation, so a race at worst
+     * derives the name twice.
+     */
+    private transient String defaultName;
+
+    /**
+     * Where this validator reports its invocations, outcomes and latency.  Reports nothing by default.
+     */
+    private ValidationMetrics metrics = ValidationMetrics.none();
+
+    /**
+     * A cost hint overriding this validator's own estimate, such as one measured in production.
+     */
+    private ValidationCost cost;
+
+    /**
+     * How important this validator is, determining whether it is shed under load.  Never shed by default.
+     */
+    private ValidationTier tier = ValidationTier.CRITICAL;
+
     /**
      * Constructs a conditional that always performs validation.
      */
@@ -57,7 +90,7 @@ public abstract class AbstractConditionalValidator<T> implements ConditionalVali
 
     /**
      * Conditionally-validate the context object, according to the result of evaluating this validator's
-     * condition.
+     * condition.  A validator shed by {@link LoadShedding} validates nothing, and does not evaluate its condition.
      *
      * @param object   the object being validated.
      * @param messages standard messages container to which will be added validation messages.
@@ -65,17 +98,199 @@ public abstract class AbstractConditionalValidator<T> implements ConditionalVali
      */
     @Override
     public final Messages validate(T object, Messages messages) {
+        if (tier != ValidationTier.CRITICAL && LoadShedding.shed(tier)) {
+            metrics.recordEvent(getMetricsName(), "shed");
+            return messages;
+        }
+
+        ValidationListener listener = ValidationListeners.current();
+        if (listener != null || metrics.isEnabled()) {
+            return validateObserved(object, messages, listener);
+        }
+
         if (condition == null || condition.test(object)) {
             return doValidate(object, messages);
         }
         return messages;
     }
 
+    /**
+     * Conditionally-validate the context object, reporting to any registered listener and to this validator's metrics.
+     */
+    private Messages validateObserved(T object, Messages messages, ValidationListener listener) {
+        boolean measured = metrics.isEnabled();
+        long start = measured ? System.nanoTime() : 0L;
+        Object handle = listener == null ? null : listener.started(this, messages);
+        ValidationOutcome outcome = ValidationOutcome.ABORTED;
+        try {
+            if (condition != null && !condition.test(object)) {
+                outcome = ValidationOutcome.SKIPPED;
+                return messages;
+            }
+
+            int originalErrorCount = messages.getErrorCount();
+            Messages result = doValidate(object, messages);
+            outcome = messages.getErrorCount() == originalErrorCount ? ValidationOutcome.PASSED : ValidationOutcome.FAILED;
+            return result;
+        } finally {
+            if (measured) {
+                if (outcome == ValidationOutcome.SKIPPED) {
+                    metrics.recordSkipped(getMetricsName());
+                } else {
+                    metrics.recordOutcome(getMetricsName(), outcome == ValidationOutcome.PASSED, System.nanoTime() - start);
+                }
+            }
+            if (listener != null) {
+                listener.finished(handle, this, messages, outcome);
+            }
+        }
+    }
+
     @Override
     public Predicate<T> getCondition() {
         return condition;
     }
 
+    /**
+     * Gets the stable name of this validator.
+     *
+     * @return the name of this validator, which is its {@link #defaultName() default name} unless otherwise set.
+     */
+    public String getName() {
+        return name != null ? name : cachedDefaultName();
+    }
+
+    /**
+     * Gets the name under which this validator reports metrics: its name where one has been set, or else any name
+     * assigned from its position in a tree by {@link ValidatorTrees#setMetrics(Validator, ValidationMetrics)}, or else
+     * its default name.
+     *
+     * @return the metrics name of this validator.
+     */
+    public String getMetricsName() {
+        if (name != null) {
+            return name;
+        }
+        String assigned = metricsName;
+        return assigned != null ? assigned : cachedDefaultName();
+    }
+
+    /**
+     * Assigns the name under which this validator reports metrics where no name has been set.
+     *
+     * @param metricsName the metrics name, or null to report under the default name.
+     */
+    void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
+    }
+
+    private String cachedDefaultName() {
+        String cached = defaultName;
+        if (cached == null) {
+            cached = defaultName();
+            defaultName = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Whether a name has been set for this validator, rather than its default name used.
+     *
+     * @return true if a name has been set, false otherwise.
+     */
+    boolean isNamed() {
+        return name != null;
+    }
+
+    /**
+     * Derives the name under which this validator reports metrics where no name has been set.  Subclasses should
+     * derive a name telling apart instances of the same class where they can, so that their metrics are not
+     * aggregated under one name; {@link ValidatorTrees#setMetrics(Validator, ValidationMetrics)} additionally names
+     * unnamed validators by their position in a tree.
+     *
+     * The name is derived once, so should depend only on state fixed on construction.
+     *
+     * @return the default name, which is the name of the class of this validator.
+     */
+    protected String defaultName() {
+        return getClass().getName();
+    }
+
+    /**
+     * Sets the stable name under which this validator reports metrics.
+     *
+     * @param name the name of this validator, or null to use its default name.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets where this validator reports its invocations, outcomes and latency.
+     *
+     * @return the metrics this validator reports to.
+     */
+    public ValidationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets where this validator reports its invocations, outcomes and latency.
+     *
+     * @param metrics the metrics this validator is to report to, or null to report nothing.
+     */
+    public void setMetrics(ValidationMetrics metrics) {
+        this.metrics = metrics == null ? ValidationMetrics.none() : metrics;
+    }
+
+    /**
+     * Gets how important this validator is, determining whether it is shed under load.
+     *
+     * @return the tier of this validator, which is {@link ValidationTier#CRITICAL} unless otherwise set.
+     */
+    public ValidationTier getTier() {
+        return tier;
+    }
+
+    /**
+     * Sets how important this validator is, determining whether it is shed under load.
+     *
+     * @param tier the tier of this validator, or null for {@link ValidationTier#CRITICAL}.
+     */
+    public void setTier(ValidationTier tier) {
+        this.tier = tier == null ? ValidationTier.CRITICAL : tier;
+    }
+
+    /**
+     * Gets a hint of the time this validator takes to run: the hint set, if any, or otherwise the validator's own
+     * estimate.
+     *
+     * @return the cost hint.
+     */
+    @Override
+    public ValidationCost getCost() {
+        return cost != null ? cost : estimateCost();
+    }
+
+    /**
+     * Sets a hint of the time this validator takes to run, overriding the validator's own estimate.
+     *
+     * @param cost the cost hint, or null to use the validator's own estimate.
+     */
+    public void setCost(ValidationCost cost) {
+        this.cost = cost;
+    }
+
+    /**
+     * Estimates the time this validator takes to run, in the absence of a cost hint having been set.  Extending
+     * classes whose cost is known should override this method.
+     *
+     * @return the estimated cost, which is {@link ValidationCost#MODERATE} by default.
+     */
+    protected ValidationCost estimateCost() {
+        return ValidationCost.MODERATE;
+    }
+
     /**
      * Carry out validation.  This method delegates to extending classes.
      *
@@ -0,0 +1,254 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.cache.SegmentedLruCache;
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * A validator checking a value, such as an entity id, against an external service consulted through a
+ * {@link LookupClient}.  Concurrent lookups are batched into single calls of the client, and values found and keys
+ * not found may be cached for a time.  Each lookup, and each call of the client, waits at most a configured timeout,
+ * and a {@link CircuitBreaker} refuses lookups once the service has failed repeatedly.  Where a value cannot be looked up, the validator fails
+ * with a fallback message rather than its own.  A null key is not looked up.
+ *
+ * @param <T> The type of the context object containing the key being looked up.
+ * @param <K> The type of the keys looked up.
+ * @param <V> The type of the values looked up.
+ */
+public abstract class AbstractLookupValidator<T, K, V> extends AbstractValidator<T> {
+    public static final String FALLBACK_MESSAGE_CODE = "lookup.unavailable";
+    public static final String FALLBACK_PARAM_MESSAGE = "Value could not be looked up";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    private static final Boolean NOT_FOUND = Boolean.TRUE;
+
+    private final LookupClient<K, V> client;
+
+    private volatile LookupBatcher<K, V> batcher;
+
+    private volatile SegmentedLruCache<K, V> positiveCache;
+
+    private volatile SegmentedLruCache<K, Boolean> negativeCache;
+
+    private long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIMEOUT_MILLIS);
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(5, 30, TimeUnit.SECONDS);
+
+    private Message fallbackMessage = globalMessage(FALLBACK_MESSAGE_CODE, FALLBACK_PARAM_MESSAGE);
+
+    public AbstractLookupValidator(Message message, Function<T, K> keyProvider, LookupClient<K, V> client) {
+        this(null, message, keyProvider, client);
+    }
+
+    public AbstractLookupValidator(Predicate<T> condition, Message message, Function<T, K> keyProvider, LookupClient<K, V> client) {
+        super(condition, message, keyProvider);
+        this.client = client;
+        this.batcher = new LookupBatcher<>(client, DEFAULT_MAX_BATCH_SIZE, 1);
+        this.batcher.setCallTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Whether the value looked up for a key is valid.
+     *
+     * @param key   the key looked up.
+     * @param value the value of the key, or null where the key is not known to the service.
+     * @return true if the value is valid, false otherwise.
+     */
+    protected abstract boolean isValid(K key, V value);
+
+    /**
+     * Sets how lookups are batched: lookups queue while the given number of calls are in flight, and are then sent in
+     * batches of at most the given size.
+     *
+     * @param maxBatchSize the maximum number of keys in a call, at least 1.
+     * @param maxInFlight  the maximum number of calls in flight, at least 1.
+     */
+    public void setBatching(int maxBatchSize, int maxInFlight) {
+        LookupBatcher<K, V> batcher = new LookupBatcher<>(client, maxBatchSize, maxInFlight);
+        batcher.setCallTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        this.batcher = batcher;
+    }
+
+    /**
+     * Caches the values found for keys for a time, so that they are not looked up again.
+     *
+     * @param capacity   the maximum number of values cached, or 0 to cache none.
+     * @param timeToLive how long a value is cached.
+     * @param unit       the unit of the time to live.
+     */
+    public void setPositiveCache(int capacity, long timeToLive, TimeUnit unit) {
+        this.positiveCache = capacity > 0 ? new SegmentedLruCache<>(capacity, timeToLive, unit) : null;
+    }
+
+    /**
+     * Caches the keys not known to the service for a time, so that they are not looked up again.  This is usually a
+     * shorter time than values found are cached for, so that newly registered keys are soon recognised.
+     *
+     * @param capacity   the maximum number of keys cached, or 0 to cache none.
+     * @param timeToLive how long a key is cached.
+     * @param unit       the unit of the time to live.
+     */
+    public void setNegativeCache(int capacity, long timeToLive, TimeUnit unit) {
+        this.negativeCache = capacity > 0 ? new SegmentedLruCache<>(capacity, timeToLive, unit) : null;
+    }
+
+    /**
+     * Sets how long a validation waits for a lookup before failing with the fallback message, and how long a call of
+     * the client may be in flight before it is abandoned, failing the lookups it carries, and the next call is made.
+     *
+     * @param timeout the timeout.
+     * @param unit    the unit of the timeout.
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        batcher.setCallTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the circuit breaker guarding the service.
+     *
+     * @return the circuit breaker.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sets the circuit breaker guarding the service, which may be shared by validators consulting the same service.
+     *
+     * @param circuitBreaker the circuit breaker.
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Gets the message added when a value cannot be looked up.
+     *
+     * @return the fallback message.
+     */
+    public Message getFallbackMessage() {
+        return fallbackMessage;
+    }
+
+    /**
+     * Sets the message added when a value cannot be looked up.
+     *
+     * @param fallbackMessage the fallback message.
+     */
+    public void setFallbackMessage(Message fallbackMessage) {
+        this.fallbackMessage = fallbackMessage;
+    }
+
+    /**
+     * Gets the number of calls made to the lookup client.
+     *
+     * @return the number of calls.
+     */
+    public long getCallCount() {
+        return batcher.getCallCount();
+    }
+
+    @Override
+    protected Messages doValidate(T object, Messages messages) {
+        K key = getValidationValue(object);
+        if (key == null) {
+            return messages;
+        }
+
+        SegmentedLruCache<K, V> positive = positiveCache;
+        V value = positive != null ? positive.get(key) : null;
+        if (value == null) {
+            SegmentedLruCache<K, Boolean> negative = negativeCache;
+            if (negative == null || negative.get(key) == null) {
+                if (!circuitBreaker.allowRequest()) {
+                    return fallback(messages, "lookup.rejected");
+                }
+                CompletableFuture<V> lookup = batcher.submit(key);
+                try {
+                    value = lookup.get(timeoutNanos, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    lookup.cancel(false);
+                    circuitBreaker.recordFailure();
+                    return fallback(messages, "lookup.timeout");
+                } catch (ExecutionException | CancellationException e) {
+                    circuitBreaker.recordFailure();
+                    return fallback(messages, "lookup.failed");
+                } catch (InterruptedException e) {
+                    lookup.cancel(false);
+                    Thread.currentThread().interrupt();
+                    circuitBreaker.recordFailure();
+                    return fallback(messages, "lookup.interrupted");
+                }
+                circuitBreaker.recordSuccess();
+                cache(key, value);
+            }
+        }
+
+        if (!isValid(key, value)) {
+            messages.addError(failureMessage(object, key));
+        }
+        return messages;
+    }
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return ValidationCost.EXPENSIVE;
+    }
+
+    private void cache(K key, V value) {
+        if (value != null) {
+            SegmentedLruCache<K, V> positive = positiveCache;
+            if (positive != null) {
+                positive.put(key, value);
+            }
+        } else {
+            SegmentedLruCache<K, Boolean> negative = negativeCache;
+            if (negative != null) {
+                negative.put(key, NOT_FOUND);
+            }
+        }
+    }
+
+    private Messages fallback(Messages messages, String event) {
+        getMetrics().recordEvent(getMetricsName(), event);
+        messages.addError(fallbackMessage);
+        return messages;
+    }
+}
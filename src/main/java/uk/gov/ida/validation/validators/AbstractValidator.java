@@ -27,11 +27,16 @@ package uk.gov.ida.validation.validators;
 
 
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
+import uk.gov.ida.validation.messages.FieldPath;
 import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.MessageImpl;
 
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.pathMessage;
+
 /**
  * A conditional validator supporting validation of a single value (but not limited to).
  *
@@ -43,6 +48,16 @@ public abstract class AbstractValidator<T> extends AbstractValueProvidedValidato
      */
     private Message message;
 
+    /**
+     * Whether failures share a single, immutable message rather than building a new message each time.
+     */
+    private boolean flyweight;
+
+    /**
+     * The shared failure message used in flyweight mode, created on first failure beneath no path.
+     */
+    private volatile MessageImpl flyweightMessage;
+
     public AbstractValidator(Message message) {
         this(null, message);
     }
@@ -78,6 +93,76 @@ public abstract class AbstractValidator<T> extends AbstractValueProvidedValidato
         return message;
     }
 
+    /**
+     * Whether this validator reports every failure with a single, shared message instance.
+     *
+     * @return true if flyweight messages are used, false otherwise.
+     */
+    public boolean isFlyweight() {
+        return flyweight;
+    }
+
+    /**
+     * Sets whether this validator reports every failure with a single, shared message instance built from the message
+     * template, rather than a new message per failure.  Where the template has no message parameters of its own, the
+     * shared message carries none either, so the validated object and value are not made available as parameters.
+     * A failure beneath a {@link FieldPath} is reported with a copy of the shared message carrying the current path.
+     *
+     * @param flyweight true to share a single failure message, false to build a new message per failure.
+     */
+    public void setFlyweight(boolean flyweight) {
+        this.flyweight = flyweight;
+        this.flyweightMessage = null;
+    }
+
+    /**
+     * Creates the message to be reported for a failed validation, from this validator's message template.  Where the
+     * template has no message parameters, the object being validated and the value validated are supplied as message
+     * parameters, unless this validator is in flyweight mode.
+     *
+     * @param object the object being validated.
+     * @param value  the value that failed validation.
+     * @return the failure message.
+     */
+    protected Message failureMessage(T object, Object value) {
+        if (flyweight) {
+            MessageImpl shared = flyweightMessage;
+            if (shared == null) {
+                shared = pathMessage(null,
+                                     message.getField(),
+                                     message.getCode(),
+                                     message.getParameterisedMessage(),
+                                     message.getMessageParameters());
+                flyweightMessage = shared;
+            }
+            FieldPath path = FieldPath.current();
+            return path == null ? shared : shared.withPath(path);
+        }
+
+        return fieldMessage(message.getField(),
+                            message.getCode(),
+                            message.getParameterisedMessage(),
+                            message.getMessageParameters() != null ? message.getMessageParameters() :
+                            new Object[]{
+                                    object,
+                                    value
+                            });
+    }
+
+    /**
+     * Derives the name under which this validator reports metrics from the name of its class and the field and code of
+     * its message, such as {@code uk.gov.ida.validation.validators.RequiredValidator[nameId:nameId.required]}.
+     *
+     * @return the default name.
+     */
+    @Override
+    protected String defaultName() {
+        if (message == null) {
+            return super.defaultName();
+        }
+        return super.defaultName() + "[" + (message.getField() != null ? message.getField() + ":" : "") + message.getCode() + "]";
+    }
+
     @Override
     public String toString() {
         return ReflectionToStringBuilder.reflectionToString(this);
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * The statistics kept for the children of an adaptively ordered {@link CompositeValidator}, and the evaluation order
+ * learned from them.
+ */
+final class AdaptiveOrdering {
+    private final ChildStatistics[] statistics;
+
+    private final int reorderInterval;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private volatile int[] order;
+
+    AdaptiveOrdering(int children, int reorderInterval) {
+        this.statistics = new ChildStatistics[children];
+        for (int i = 0; i < children; i++) {
+            statistics[i] = new ChildStatistics();
+        }
+        this.reorderInterval = reorderInterval;
+        this.order = IntStream.range(0, children).toArray();
+    }
+
+    int[] getOrder() {
+        return order;
+    }
+
+    int getReorderInterval() {
+        return reorderInterval;
+    }
+
+    ChildStatistics[] getStatistics() {
+        return statistics;
+    }
+
+    void record(int child, long elapsedNanos, boolean failed) {
+        statistics[child].record(elapsedNanos, failed);
+    }
+
+    /**
+     * Notes the completion of a validation, reordering the children every {@code reorderInterval} validations.
+     *
+     * @return true if the evaluation order was changed, false otherwise.
+     */
+    boolean completed() {
+        return calls.incrementAndGet() % reorderInterval == 0 && reorder();
+    }
+
+    synchronized boolean reorder() {
+        double[] ranks = Arrays.stream(statistics).mapToDouble(ChildStatistics::getRank).toArray();
+        int[] reordered = IntStream.range(0, statistics.length).boxed()
+                .sorted(Comparator.<Integer>comparingDouble(child -> ranks[child]).thenComparingInt(child -> child))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (Arrays.equals(reordered, order)) {
+            return false;
+        }
+        order = reordered;
+        return true;
+    }
+}
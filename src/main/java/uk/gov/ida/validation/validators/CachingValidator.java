@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.cache.SegmentedLruCache;
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.ImmutableMessages;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A validator memoising the messages added by another validator, keyed on a value obtained from the object validated,
+ * such as an issuer entity id or a certificate fingerprint.  On a hit, the messages cached for the key are added
+ * without running the decorated validator.
+ *
+ * <p>The key must determine the outcome of the decorated validator, including its condition, and messages that
+ * include the object validated among their parameters would be replayed for other objects with the same key.  Every
+ * {@link AbstractValidator} in the decorated tree, beneath composites and other decorators, must therefore be in
+ * {@link AbstractValidator#setFlyweight(boolean) flyweight} mode, whose messages do not depend on the object
+ * validated, and a tree holding one that is not is rejected.  Should a validator of the tree later leave flyweight
+ * mode, the outcomes found from then on are added but not cached.</p>
+ *
+ * <p>Outcomes are cached independently of the {@link FieldPath} beneath which they were found, and replayed beneath
+ * the path current when they are replayed.</p>
+ *
+ * @param <T> The type of the context object being validated.
+ */
+public class CachingValidator<T> implements ValidatorDecorator<T> {
+    private final Validator<T> validator;
+
+    private final Function<T, ?> key;
+
+    private final SegmentedLruCache<Object, ImmutableMessages> cache;
+
+    /**
+     * Constructs a validator caching the outcomes of the given value-provided validator, keyed on the value it
+     * validates.
+     *
+     * @param validator the validator to be cached.
+     * @param capacity  the maximum number of outcomes cached.
+     * @throws IllegalArgumentException if the validator's tree holds an {@link AbstractValidator} not in flyweight
+     *                                  mode.
+     */
+    public CachingValidator(AbstractValueProvidedValidator<T> validator, int capacity) {
+        this(validator, valueOf(validator), capacity, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a validator caching the outcomes of the given validator, keyed on a value obtained from each object.
+     *
+     * @param validator the validator to be cached.
+     * @param key       the function answering the key of an object.
+     * @param capacity  the maximum number of outcomes cached.
+     * @throws IllegalArgumentException if the validator's tree holds an {@link AbstractValidator} not in flyweight
+     *                                  mode.
+     */
+    public CachingValidator(Validator<T> validator, Function<T, ?> key, int capacity) {
+        this(validator, key, capacity, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a validator caching the outcomes of the given validator, keyed on a value obtained from each object,
+     * for a limited time.
+     *
+     * @param validator  the validator to be cached.
+     * @param key        the function answering the key of an object.
+     * @param capacity   the maximum number of outcomes cached.
+     * @param timeToLive the time for which an outcome may be replayed, or 0 for outcomes never to expire.
+     * @param unit       the unit of the time to live.
+     * @throws IllegalArgumentException if the validator's tree holds an {@link AbstractValidator} not in flyweight
+     *                                  mode.
+     */
+    public CachingValidator(Validator<T> validator, Function<T, ?> key, int capacity, long timeToLive, TimeUnit unit) {
+        AbstractValidator<?> nonFlyweight = ValidatorTrees.findNonFlyweight(validator);
+        if (nonFlyweight != null) {
+            throw new IllegalArgumentException("Cached validators must be in flyweight mode, so that their messages do "
+                                               + "not depend on the object validated: " + nonFlyweight.getClass().getName());
+        }
+        this.validator = validator;
+        this.key = key;
+        this.cache = new SegmentedLruCache<>(capacity, timeToLive, unit);
+    }
+
+    private static <T> Function<T, ?> valueOf(AbstractValueProvidedValidator<T> validator) {
+        Function<T, ?> valueProvider = validator.getValueProvider();
+        return valueProvider != null ? valueProvider : Function.identity();
+    }
+
+    @Override
+    public Messages validate(T object, Messages messages) {
+        Object cacheKey = key.apply(object);
+        ImmutableMessages outcome = cache.get(cacheKey);
+        if (outcome == null) {
+            outcome = ReplayedMessages.record(validator, object);
+            if (ValidatorTrees.findNonFlyweight(validator) == null) {
+                cache.put(cacheKey, outcome);
+            }
+        }
+
+        if (outcome.size() > 0) {
+            ReplayedMessages.replay(outcome, FieldPath.current(), messages);
+        }
+        return messages;
+    }
+
+    /**
+     * Gets a hint of the time this validator takes to run: the cost of the decorated validator, weighted by the
+     * fraction of lookups that miss the cache.
+     *
+     * @return the cost hint.
+     */
+    @Override
+    public ValidationCost getCost() {
+        long hits = cache.getHitCount(), misses = cache.getMissCount();
+        if (hits + misses == 0) {
+            return validator.getCost();
+        }
+        long missCost = validator.getCost().getNanos() * misses / (hits + misses);
+        return ValidationCost.ofNanos(ValidationCost.CHEAP.getNanos() + missCost);
+    }
+
+    @Override
+    public Validator<T> getValidator() {
+        return validator;
+    }
+
+    /**
+     * Gets the number of validations answered from the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * Gets the number of validations that ran the decorated validator.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * Gets the cache of outcomes, for inspection or invalidation.
+     *
+     * @return the cache.
+     */
+    public SegmentedLruCache<Object, ImmutableMessages> getCache() {
+        return cache;
+    }
+}
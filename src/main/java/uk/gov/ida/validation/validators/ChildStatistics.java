@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost and failure statistics for a single child of an adaptively ordered {@link CompositeValidator}.
+ */
+public final class ChildStatistics {
+    private final LongAdder invocations = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    void record(long elapsedNanos, boolean failed) {
+        invocations.increment();
+        totalNanos.add(elapsedNanos);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Gets the number of times the child has been run.
+     *
+     * @return the number of invocations.
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Gets the number of times the child added one or more errors.
+     *
+     * @return the number of failures.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the mean time taken by the child.
+     *
+     * @return the mean time taken, in nanoseconds, or 0 if the child has not been run.
+     */
+    public double getMeanNanos() {
+        long count = invocations.sum();
+        return count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Gets the estimated probability that the child fails, smoothed so that it is never exactly 0 or 1.
+     *
+     * @return the estimated failure rate.
+     */
+    public double getFailureRate() {
+        return (failures.sum() + 1.0) / (invocations.sum() + 2.0);
+    }
+
+    /**
+     * Gets the expected cost of finding a failure by running the child: its mean cost divided by its failure rate.
+     * Running children in ascending order of rank minimises the expected cost of reaching the first failure.
+     *
+     * @return the rank of the child, which is 0 for a child not yet run, so that it is run early.
+     */
+    double getRank() {
+        return getMeanNanos() / getFailureRate();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.ImmutableMessages;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A validator coalescing concurrent validations of objects with the same key, such as the same signing certificate or
+ * metadata entity, into a single run of an expensive validator.  The first validation of a key runs the decorated
+ * validator; validations of the same key made while it is running wait for it and add the same messages.  Nothing is
+ * retained once a run completes: a later validation of the key runs the decorated validator again.
+ *
+ * <p>As with {@link CachingValidator}, the key must determine the outcome of the decorated validator, whose messages
+ * must not depend on the object validated: every {@link AbstractValidator} in the decorated tree must be in
+ * {@link AbstractValidator#setFlyweight(boolean) flyweight} mode, and a tree holding one that is not is rejected.
+ * Should a validator of the tree later leave flyweight mode, each validation from then on runs the decorated validator
+ * itself.</p>
+ *
+ * <p>The decorated validator runs independently of the {@link FieldPath} of any of the validations sharing its
+ * outcome, and each adds the shared messages beneath its own path, as with {@link CachingValidator}.  An asynchronous
+ * run is made within the context of the validation that started it, such as its load shedding level and any trace
+ * being recorded.</p>
+ *
+ * @param <T> The type of the context object being validated.
+ */
+public class CoalescingValidator<T> implements ValidatorDecorator<T> {
+    private static final Object NULL_KEY = new Object();
+
+    private final Validator<T> validator;
+
+    private final Function<T, ?> key;
+
+    private final ConcurrentMap<Object, CompletableFuture<ImmutableMessages>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder runs = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructs a validator coalescing validations of the given validator by a key obtained from each object.
+     *
+     * @param validator the validator whose concurrent runs are to be coalesced.
+     * @param key       the function answering the key of an object.
+     * @throws IllegalArgumentException if the validator's tree holds an {@link AbstractValidator} not in flyweight
+     *                                  mode.
+     */
+    public CoalescingValidator(Validator<T> validator, Function<T, ?> key) {
+        AbstractValidator<?> nonFlyweight = ValidatorTrees.findNonFlyweight(validator);
+        if (nonFlyweight != null) {
+            throw new IllegalArgumentException("Coalesced validators must be in flyweight mode, so that their messages "
+                                               + "do not depend on the object validated: " + nonFlyweight.getClass().getName());
+        }
+        this.validator = validator;
+        this.key = key;
+    }
+
+    @Override
+    public Messages validate(T object, Messages messages) {
+        if (ValidatorTrees.findNonFlyweight(validator) != null) {
+            runs.increment();
+            return validator.validate(object, messages);
+        }
+        Object flightKey = flightKey(object);
+        CompletableFuture<ImmutableMessages> flight = new CompletableFuture<>();
+        CompletableFuture<ImmutableMessages> leader = inFlight.putIfAbsent(flightKey, flight);
+        ImmutableMessages outcome;
+        if (leader == null) {
+            outcome = run(object, flightKey, flight);
+        } else {
+            coalesced.increment();
+            outcome = join(leader);
+        }
+        return addTo(messages, FieldPath.current(), outcome);
+    }
+
+    /**
+     * Validates an object asynchronously, running the decorated validator on the given executor unless a validation of
+     * the same key is already in flight, in which case its outcome is shared.
+     *
+     * @param object   the object being validated.
+     * @param messages the messages container to which the messages will be added, which the caller must not use
+     *                 until the validation completes.
+     * @param executor the executor on which to run the decorated validator.
+     * @return a future completed with the messages container once the messages have been added.
+     */
+    public CompletableFuture<Messages> validateAsync(T object, Messages messages, Executor executor) {
+        ValidationContext context = ValidationContext.capture();
+        if (ValidatorTrees.findNonFlyweight(validator) != null) {
+            runs.increment();
+            return CompletableFuture.supplyAsync(() -> {
+                context.run(() -> validator.validate(object, messages));
+                return messages;
+            }, executor);
+        }
+        Object flightKey = flightKey(object);
+        CompletableFuture<ImmutableMessages> flight = new CompletableFuture<>();
+        CompletableFuture<ImmutableMessages> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader == null) {
+            try {
+                executor.execute(() -> context.run(() -> {
+                    try {
+                        run(object, flightKey, flight);
+                    } catch (RuntimeException | Error e) {
+                        // Already passed to waiting validations through the failed flight.
+                    }
+                }));
+            } catch (RuntimeException e) {
+                inFlight.remove(flightKey, flight);
+                flight.completeExceptionally(e);
+            }
+            leader = flight;
+        } else {
+            coalesced.increment();
+        }
+        FieldPath path = FieldPath.current();
+        return leader.thenApply(outcome -> addTo(messages, path, outcome));
+    }
+
+    @Override
+    public ValidationCost getCost() {
+        return validator.getCost();
+    }
+
+    @Override
+    public Validator<T> getValidator() {
+        return validator;
+    }
+
+    /**
+     * Gets the number of times the decorated validator has been run.
+     *
+     * @return the number of runs.
+     */
+    public long getRunCount() {
+        return runs.sum();
+    }
+
+    /**
+     * Gets the number of validations that shared the outcome of a run already in flight.
+     *
+     * @return the number of coalesced validations.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private Object flightKey(T object) {
+        Object value = key.apply(object);
+        return value == null ? NULL_KEY : value;
+    }
+
+    private ImmutableMessages run(T object, Object flightKey, CompletableFuture<ImmutableMessages> flight) {
+        runs.increment();
+        try {
+            ImmutableMessages outcome = ReplayedMessages.record(validator, object);
+            flight.complete(outcome);
+            return outcome;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private static ImmutableMessages join(CompletableFuture<ImmutableMessages> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static Messages addTo(Messages messages, FieldPath path, ImmutableMessages outcome) {
+        if (outcome.size() > 0) {
+            ReplayedMessages.replay(outcome, path, messages);
+        }
+        return messages;
+    }
+}
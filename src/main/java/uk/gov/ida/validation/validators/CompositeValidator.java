@@ -25,10 +25,15 @@
 
 package uk.gov.ida.validation.validators;
 
+import uk.gov.ida.validation.messages.FieldPath;
 import uk.gov.ida.validation.messages.Messages;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * A validator that is composed of one or more other validators, each of which may be a composite validator
@@ -38,6 +43,12 @@ import java.util.function.Predicate;
  * or on a value provided by runtime-expression or other value provider. Great for nested
  * properties</p>
  *
+ * <p>A composite that stops on its first error may optionally learn the cost and failure rate of each of its children,
+ * and run the children most likely to fail cheaply first.  See {@link #setAdaptiveOrdering(int)}.</p>
+ *
+ * <p>A composite runs no further children once the messages container is {@link Messages#isHalted() halted}, so
+ * that an error budget spent deep in one branch stops the whole tree.</p>
+ *
  * @param <T> The type of the context object being validated.
  */
 public class CompositeValidator<T> extends AbstractValueProvidedValidator<T> {
@@ -46,6 +57,22 @@ public class CompositeValidator<T> extends AbstractValueProvidedValidator<T> {
 
     private Validator<?> validators[];
 
+    /**
+     * The per-child statistics and learned evaluation order, present only when adaptive ordering is enabled.
+     */
+    private volatile AdaptiveOrdering adaptiveOrdering;
+
+    /**
+     * The segment by which this composite extends the field path of messages added by its children, if any.
+     */
+    private String pathSegment;
+
+    /**
+     * The path last built from the path current on entry and the path segment, reused while the path current on entry
+     * is unchanged, so that repeated validations beneath the same parent path allocate nothing.
+     */
+    private volatile FieldPath path;
+
     @SafeVarargs
     public CompositeValidator(Validator<T>... validators) {
         this.validators = validators;
@@ -89,23 +116,228 @@ public class CompositeValidator<T> extends AbstractValueProvidedValidator<T> {
         this.validators = validators;
     }
 
-    @SuppressWarnings("unchecked")
     protected Messages doValidate(T object, Messages messages) {
+        if (messages.isHalted()) {
+            return messages;
+        }
+        String segment = pathSegment;
+        if (segment == null) {
+            return validateChildren(object, messages);
+        }
+
+        FieldPath parent = FieldPath.current();
+        FieldPath path = this.path;
+        if (path == null || path.getParent() != parent) {
+            path = parent != null ? parent.child(segment) : FieldPath.of(segment);
+            this.path = path;
+        }
+        FieldPath.setCurrent(path);
+        try {
+            return validateChildren(object, messages);
+        } finally {
+            FieldPath.setCurrent(parent);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Messages validateChildren(T object, Messages messages) {
+
         Object valueProvided = getValidationValue(object);
 
-        int originalErrorCount = messages.hasErrors() ? messages.getErrors().size() : 0;
+        AdaptiveOrdering ordering = adaptiveOrdering;
+        if (stopOnFirstError && ordering != null) {
+            return doValidateAdaptively(valueProvided, messages, ordering);
+        }
+
+        int originalErrorCount = messages.getErrorCount();
 
         for (Validator<?> validator : validators) {
             ((Validator<Object>)validator).validate(valueProvided, messages);
-            int errorsNow = messages.hasErrors() ? messages.getErrors().size() : 0;
-            if (stopOnFirstError && (errorsNow >  originalErrorCount)) {
+            if (stopOnFirstError && (messages.getErrorCount() >  originalErrorCount) || messages.isHalted()) {
+                break;
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+     * Runs the children in the learned evaluation order until one fails, each into its own {@link Messages#fork()
+     * fork} of the caller's container, then adds the messages of the children that ran in declaration order.  The
+     * forks halt when the caller's container does, or once their errors would spend its budget, so budgets and
+     * deadlines still cut a child's subtree short, and the caller's container is checked between children.
+     */
+    @SuppressWarnings("unchecked")
+    private Messages doValidateAdaptively(Object valueProvided, Messages messages, AdaptiveOrdering ordering) {
+        Messages[] outcomes = new Messages[validators.length];
+        for (int child : ordering.getOrder()) {
+            Messages outcome = messages.fork();
+            long start = System.nanoTime();
+            ((Validator<Object>)validators[child]).validate(valueProvided, outcome);
+            boolean failed = outcome.hasErrors();
+            ordering.record(child, System.nanoTime() - start, failed);
+            outcomes[child] = outcome;
+            if (failed || outcome.isHalted() || messages.isHalted()) {
                 break;
             }
         }
 
+        for (Messages outcome : outcomes) {
+            if (outcome != null) {
+                messages.mergeFrom(outcome);
+            }
+        }
+
+        if (ordering.completed()) {
+            getMetrics().recordEvent(getMetricsName(), "reordered");
+        }
         return messages;
     }
 
+    /**
+     * Gets the segment by which this composite extends the field path of messages added by its children.
+     *
+     * @return the path segment, which may be null.
+     */
+    public String getPathSegment() {
+        return pathSegment;
+    }
+
+    /**
+     * Sets the segment by which this composite extends the field path of messages added by its children, usually the
+     * name of the property answered by its value provider.  While the children run, the segment is appended to the
+     * {@link FieldPath#current() current path}, so that a message on the {@code nameId} field added beneath a
+     * composite with segment {@code subject}, itself beneath a composite with segment {@code assertion}, is reported
+     * against {@code assertion.subject.nameId}.  The path is rendered only for the messages whose field is asked for.
+     *
+     * @param pathSegment the path segment, or null for the children's messages to lie beneath the current path.
+     */
+    public void setPathSegment(String pathSegment) {
+        this.pathSegment = pathSegment;
+        this.path = null;
+    }
+
+    /**
+     * Enables or disables adaptive ordering of this composite's children, which has effect only when the composite
+     * stops on its first error.
+     *
+     * <p>When enabled, the composite keeps the cost and failure rate of each child and, every {@code reorderInterval}
+     * validations, reorders the children so that those that find a failure at least expected cost run first.  A
+     * reordering is recorded against this validator's metrics as a {@code reordered} event.  Each child's messages are
+     * held until the composite finishes and then added in declaration order, so the order of the messages reported does
+     * not change as the children are reordered.  Which children run before the first failure still depends on the
+     * learned order, so where more than one child would fail, the failure reported may change; the children should
+     * not depend on one another's messages.</p>
+     *
+     * @param reorderInterval the number of validations between reorderings, or 0 to disable adaptive ordering.
+     */
+    public void setAdaptiveOrdering(int reorderInterval) {
+        if (reorderInterval < 0) {
+            throw new IllegalArgumentException("Reorder interval must not be negative: " + reorderInterval);
+        }
+        adaptiveOrdering = reorderInterval == 0 ? null : new AdaptiveOrdering(validators.length, reorderInterval);
+    }
+
+    /**
+     * Whether adaptive ordering of this composite's children is enabled.
+     *
+     * @return true if adaptive ordering is enabled, false otherwise.
+     */
+    public boolean isAdaptiveOrdering() {
+        return adaptiveOrdering != null;
+    }
+
+    /**
+     * Gets the order in which this composite currently runs its children.
+     *
+     * @return the declaration indices of the children, in evaluation order.
+     */
+    public int[] getEvaluationOrder() {
+        AdaptiveOrdering ordering = adaptiveOrdering;
+        return ordering != null && stopOnFirstError ? ordering.getOrder().clone() : IntStream.range(0, validators.length).toArray();
+    }
+
+    /**
+     * Gets the cost and failure statistics kept for each child when adaptive ordering is enabled.
+     *
+     * @return the statistics of the children, in declaration order, or an empty list if adaptive ordering is disabled.
+     */
+    public List<ChildStatistics> getChildStatistics() {
+        AdaptiveOrdering ordering = adaptiveOrdering;
+        return ordering == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(ordering.getStatistics()));
+    }
+
+    /**
+     * Estimates the expected time this composite takes to run from the cost hints of its children.  Where the
+     * composite stops on its first error and has learned the failure rates of its children, each child's cost is
+     * weighted by the probability that no child evaluated before it fails, and measured costs replace the hints of
+     * children that have been run; otherwise every child is assumed to run.
+     *
+     * @return the expected cost of this composite.
+     */
+    @Override
+    protected ValidationCost estimateCost() {
+        List<ChildStatistics> statistics = stopOnFirstError ? getChildStatistics() : Collections.emptyList();
+        double expectedNanos = 0.0;
+        double reachProbability = 1.0;
+        for (int child : getEvaluationOrder()) {
+            ChildStatistics childStatistics = statistics.isEmpty() ? null : statistics.get(child);
+            if (childStatistics != null && childStatistics.getInvocations() > 0) {
+                expectedNanos += reachProbability * childStatistics.getMeanNanos();
+                reachProbability *= 1.0 - childStatistics.getFailureRate();
+            } else {
+                expectedNanos += reachProbability * validators[child].getCost().getNanos();
+            }
+        }
+        return ValidationCost.ofNanos(Math.round(expectedNanos));
+    }
+
+    /**
+     * Describes the cost of this composite and, indented beneath it in evaluation order, of each of its descendants,
+     * a line per validator.
+     *
+     * @return the cost report.
+     */
+    public String explain() {
+        StringBuilder report = new StringBuilder();
+        explain(this, 0, report);
+        return report.toString();
+    }
+
+    private static void explain(Validator<?> validator, int depth, StringBuilder report) {
+        for (int i = 0; i < depth; i++) {
+            report.append("  ");
+        }
+        report.append(describe(validator)).append(": ");
+
+        if (validator instanceof CompositeValidator) {
+            CompositeValidator<?> composite = (CompositeValidator<?>) validator;
+            report.append("expected ").append(composite.getCost())
+                  .append(composite.isStopOnFirstError() ? ", stops on first error" : "")
+                  .append(composite.isAdaptiveOrdering() ? ", adaptively ordered" : "")
+                  .append(System.lineSeparator());
+            for (int child : composite.getEvaluationOrder()) {
+                explain(composite.validators[child], depth + 1, report);
+            }
+        } else if (validator instanceof ValidatorDecorator) {
+            report.append(validator.getCost()).append(validator instanceof TimedValidator ? ", timed" : "").append(System.lineSeparator());
+            explain(((ValidatorDecorator<?>) validator).getValidator(), depth + 1, report);
+        } else {
+            report.append(validator.getCost()).append(System.lineSeparator());
+        }
+    }
+
+    private static String describe(Validator<?> validator) {
+        if (validator instanceof AbstractConditionalValidator) {
+            AbstractConditionalValidator<?> named = (AbstractConditionalValidator<?>) validator;
+            if (named.isNamed()) {
+                return named.getName();
+            }
+        }
+        String simpleName = validator.getClass().getSimpleName();
+        return simpleName.isEmpty() ? validator.getClass().getName() : simpleName;
+    }
+
     public boolean isStopOnFirstError() {
         return stopOnFirstError;
     }
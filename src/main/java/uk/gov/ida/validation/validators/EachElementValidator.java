@@ -0,0 +1,426 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.messages.MessagesImpl;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static uk.gov.ida.validation.messages.MessageImpl.pathMessage;
+
+/**
+ * A validator applying an element validator to every element of a collection, array or other {@link Iterable}, such as
+ * a list of attributes or address lines.  Messages added by the element validator are reported against an indexed
+ * field path, such as {@code addresses[3].postcode} for a message on the {@code postcode} field of the fourth
+ * element of {@code addresses}, or {@code addresses[3]} for a message without a field.  Where the collection is
+ * validated beneath a {@link FieldPath}, the indexed paths lie beneath it.  Paths are built only for the messages
+ * actually reported.
+ *
+ * <p>Validation may be limited to a number of failing elements, after which the remaining elements are not
+ * validated.  A null collection is not validated.</p>
+ *
+ * <p>Very large collections may be validated in parallel, in chunks of elements validated on a {@link ForkJoinPool}.
+ * Each chunk adds its messages to its own container, and the containers are merged in index order once every chunk
+ * has completed, so messages are reported in the same order as when validated sequentially.</p>
+ *
+ * @param <T> The type of the context object containing the elements being validated.
+ * @param <E> The type of the elements being validated.
+ */
+public class EachElementValidator<T, E> extends AbstractValueProvidedValidator<T> {
+    private final String field;
+
+    private final Validator<E> elementValidator;
+
+    private int stopAfterFailures = Integer.MAX_VALUE;
+
+    private ForkJoinPool pool;
+
+    private int chunkSize;
+
+    /**
+     * Constructs a validator applying an element validator to every element of the value provided.
+     *
+     * @param field            the field name of the elements, used as the base of the indexed field paths, which may
+     *                         be null.
+     * @param valueProvider    the function answering the collection, array or {@link Iterable} of elements.
+     * @param elementValidator the validator applied to each element.
+     */
+    public EachElementValidator(String field, Function<T, ?> valueProvider, Validator<E> elementValidator) {
+        this(null, field, valueProvider, elementValidator);
+    }
+
+    public EachElementValidator(Predicate<T> condition, String field, Function<T, ?> valueProvider, Validator<E> elementValidator) {
+        super(condition, valueProvider);
+        this.field = field;
+        this.elementValidator = elementValidator;
+    }
+
+    /**
+     * Gets the field name of the elements, used as the base of the indexed field paths.
+     *
+     * @return the field name, which may be null.
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Gets the validator applied to each element.
+     *
+     * @return the element validator.
+     */
+    public Validator<E> getElementValidator() {
+        return elementValidator;
+    }
+
+    /**
+     * Gets the number of failing elements after which validation stops.
+     *
+     * @return the number of failing elements, {@link Integer#MAX_VALUE} where every element is validated.
+     */
+    public int getStopAfterFailures() {
+        return stopAfterFailures;
+    }
+
+    /**
+     * Stops validating elements once the given number of elements have failed validation.
+     *
+     * @param stopAfterFailures the number of failing elements, at least 1.
+     */
+    public void setStopAfterFailures(int stopAfterFailures) {
+        if (stopAfterFailures < 1) {
+            throw new IllegalArgumentException("Number of failures must be at least 1: " + stopAfterFailures);
+        }
+        this.stopAfterFailures = stopAfterFailures;
+    }
+
+    /**
+     * Validates collections of more than the given number of elements in parallel, in chunks of that many elements,
+     * on the common fork/join pool.
+     *
+     * @param chunkSize the number of elements in a chunk, or 0 to validate sequentially.
+     * @see #setParallel(ForkJoinPool, int)
+     */
+    public void setParallel(int chunkSize) {
+        setParallel(ForkJoinPool.commonPool(), chunkSize);
+    }
+
+    /**
+     * Validates collections of more than the given number of elements in parallel, in chunks of that many elements,
+     * on the given fork/join pool.
+     *
+     * <p>The element validator must be thread safe, and runs on the threads of the pool rather than the thread
+     * validating the collection.  The library's own per-thread state, namely the {@link LoadShedding} level, the
+     * state of any {@link ValidationListener} such as a trace being recorded, and the field path, is carried to the
+     * pool's threads; other thread-local state is not.  Where validation stops after a number of failing elements,
+     * chunks still to be validated once that many have failed are abandoned, and the failing elements reported are
+     * those found first rather than necessarily those with the lowest indices.</p>
+     *
+     * <p>A chunk also stops when the messages container being validated into is halted, whether by another validator
+     * or by a deadline.  The chunks' messages are added to the container only once every chunk has completed, so an
+     * error budget such as {@link uk.gov.ida.validation.messages.BudgetedMessages} is not spent, and cannot halt the
+     * chunks, until then; limit the failures of a parallel validation with {@link #setStopAfterFailures} instead.</p>
+     *
+     * @param pool      the pool on which chunks are validated.
+     * @param chunkSize the number of elements in a chunk, or 0 to validate sequentially.
+     */
+    public void setParallel(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("Chunk size must not be negative: " + chunkSize);
+        }
+        this.pool = chunkSize == 0 ? null : pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Whether large collections are validated in parallel.
+     *
+     * @return true if large collections are validated in parallel, false otherwise.
+     */
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    @Override
+    protected Messages doValidate(T object, Messages messages) {
+        Object elements = getValidationValue(object);
+        if (elements == null) {
+            return messages;
+        }
+
+        // Elements are validated beneath no path, and their messages re-created beneath the indexed path.
+        FieldPath outer = FieldPath.current();
+        if (outer == null) {
+            return validateElements(elements, messages, null);
+        }
+        FieldPath.setCurrent(null);
+        try {
+            return validateElements(elements, messages, outer);
+        } finally {
+            FieldPath.setCurrent(outer);
+        }
+    }
+
+    private Messages validateElements(Object elements, Messages messages, FieldPath outer) {
+        if (pool != null) {
+            int size = sizeOf(elements);
+            if (size > chunkSize) {
+                return validateInParallel(list(elements), messages, outer);
+            }
+            if (size < 0) {
+                List<E> list = list(elements);
+                return list.size() > chunkSize ? validateInParallel(list, messages, outer) : validateSequentially(list, messages, outer);
+            }
+        }
+        return validateSequentially(elements, messages, outer);
+    }
+
+    private Messages validateSequentially(Object elements, Messages messages, FieldPath outer) {
+
+        MessagesImpl scratch = new MessagesImpl();
+        int failures = 0;
+        int index = 0;
+        for (Iterator<E> iterator = iterator(elements); iterator.hasNext() && !messages.isHalted(); index++) {
+            elementValidator.validate(iterator.next(), scratch);
+            if (scratch.size() > 0) {
+                boolean failed = scratch.hasErrors();
+                addIndexed(outer, index, scratch, messages);
+                scratch.reset();
+                if (failed && ++failures >= stopAfterFailures) {
+                    break;
+                }
+            }
+        }
+        return messages;
+    }
+
+    private Messages validateInParallel(List<E> elements, Messages messages, FieldPath outer) {
+        int chunks = (elements.size() + chunkSize - 1) / chunkSize;
+        MessagesImpl[] results = new MessagesImpl[chunks];
+        pool.invoke(new ChunkTask(elements, results, 0, chunks, new AtomicInteger(), messages, outer, ValidationContext.capture()));
+
+        for (MessagesImpl result : results) {
+            if (result != null && result.size() > 0) {
+                messages.mergeFrom(result);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Validates a range of chunks, splitting the range until each task validates a single chunk.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<E> elements;
+
+        private final MessagesImpl[] results;
+
+        private final int fromChunk;
+
+        private final int toChunk;
+
+        private final AtomicInteger failures;
+
+        private final Messages target;
+
+        private final FieldPath outer;
+
+        private final ValidationContext context;
+
+        private ChunkTask(List<E> elements, MessagesImpl[] results, int fromChunk, int toChunk, AtomicInteger failures, Messages target,
+                          FieldPath outer, ValidationContext context) {
+            this.elements = elements;
+            this.results = results;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.failures = failures;
+            this.target = target;
+            this.outer = outer;
+            this.context = context;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(elements, results, fromChunk, middle, failures, target, outer, context),
+                          new ChunkTask(elements, results, middle, toChunk, failures, target, outer, context));
+                return;
+            }
+
+            context.run(this::validateChunk);
+        }
+
+        private void validateChunk() {
+            MessagesImpl chunkMessages = new MessagesImpl();
+            MessagesImpl scratch = new MessagesImpl();
+            int end = Math.min(elements.size(), (fromChunk + 1) * chunkSize);
+            for (int index = fromChunk * chunkSize; index < end && !stopped(); index++) {
+                elementValidator.validate(elements.get(index), scratch);
+                if (scratch.size() > 0) {
+                    if (!scratch.hasErrors() || failures.incrementAndGet() <= stopAfterFailures) {
+                        addIndexed(outer, index, scratch, chunkMessages);
+                    }
+                    scratch.reset();
+                }
+            }
+            results[fromChunk] = chunkMessages;
+        }
+
+        private boolean stopped() {
+            return failures.get() >= stopAfterFailures || target.isHalted();
+        }
+    }
+
+    /**
+     * Adds the messages added by the element validator for an element to a messages container, against the indexed
+     * field path of the element.
+     *
+     * @param outer the path current when the collection was validated, which may be null.
+     * @param index the index of the element.
+     * @param from  the messages added for the element.
+     * @param to    the messages container to which the messages are added.
+     */
+    private void addIndexed(FieldPath outer, int index, Messages from, Messages to) {
+        FieldPath path = elementPath(outer, index);
+        if (from.hasInfos()) {
+            for (Message message : from.getInfos()) {
+                to.addInfo(indexed(path, message));
+            }
+        }
+        if (from.hasWarnings()) {
+            for (Message message : from.getWarnings()) {
+                to.addWarning(indexed(path, message));
+            }
+        }
+        if (from.hasErrors()) {
+            for (Message message : from.getErrors()) {
+                to.addError(indexed(path, message));
+            }
+        }
+    }
+
+    private FieldPath elementPath(FieldPath outer, int index) {
+        FieldPath base = field == null ? outer : outer != null ? outer.child(field) : FieldPath.of(field);
+        return base != null ? base.index(index) : FieldPath.ofIndex(index);
+    }
+
+    private static Message indexed(FieldPath path, Message message) {
+        return pathMessage(path,
+                           message.getField(),
+                           message.getCode(),
+                           message.getParameterisedMessage(),
+                           message.getMessageParameters());
+    }
+
+    /**
+     * Gets the number of elements, where it is known without iterating them.
+     *
+     * @return the number of elements, or -1 if it is not known.
+     */
+    private static int sizeOf(Object elements) {
+        if (elements instanceof Collection) {
+            return ((Collection<?>) elements).size();
+        }
+        if (elements.getClass().isArray()) {
+            return Array.getLength(elements);
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> list(Object elements) {
+        if (elements instanceof List && elements instanceof RandomAccess) {
+            return (List<E>) elements;
+        }
+        if (elements instanceof Object[]) {
+            return (List<E>) Arrays.asList((Object[]) elements);
+        }
+        if (elements.getClass().isArray()) {
+            int length = Array.getLength(elements);
+            return new AbstractList<E>() {
+                @Override
+                public E get(int index) {
+                    return (E) Array.get(elements, index);
+                }
+
+                @Override
+                public int size() {
+                    return length;
+                }
+            };
+        }
+        List<E> copy = new ArrayList<>();
+        for (Iterator<E> iterator = iterator(elements); iterator.hasNext(); ) {
+            copy.add(iterator.next());
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Iterator<E> iterator(Object elements) {
+        if (elements instanceof Iterable) {
+            return ((Iterable<E>) elements).iterator();
+        }
+        if (elements instanceof Object[]) {
+            return ((List<E>) Arrays.asList((Object[]) elements)).iterator();
+        }
+        if (elements.getClass().isArray()) {
+            int length = Array.getLength(elements);
+            return new Iterator<E>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < length;
+                }
+
+                @Override
+                public E next() {
+                    return (E) Array.get(elements, index++);
+                }
+            };
+        }
+        throw new IllegalArgumentException("Not a collection, array or Iterable: " + elements.getClass().getName());
+    }
+}
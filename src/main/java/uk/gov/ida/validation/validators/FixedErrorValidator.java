@@ -65,15 +65,12 @@ public class FixedErrorValidator<T> extends AbstractValidator<T> {
 
     @Override
     protected Messages doValidate(T object, Messages messages) {
-        messages.addError(fieldMessage(getMessage().getField(),
-                                       getMessage().getCode(),
-                                       getMessage().getParameterisedMessage(),
-                                       getMessage().getMessageParameters() != null ? getMessage().getMessageParameters() :
-                                       new Object[]{
-                                               object,
-                                               getValidationValue(object)
-                                       })
-                         );
+        messages.addError(failureMessage(object, getValidationValue(object)));
         return messages;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return ValidationCost.CHEAP;
+    }
+}
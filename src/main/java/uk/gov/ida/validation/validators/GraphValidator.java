@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A validator applying a node validator to every node of a recursive object graph, such as nested composite
+ * attributes or tree-shaped metadata, reached from a root through a children function.  The graph is walked
+ * depth first, in the order the children are answered, with an explicit work stack rather than recursion, so that
+ * the depth of the graph is not limited by the depth of the thread's stack.
+ *
+ * <p>Nodes are tracked by identity: a node reachable by more than one route, or through a cycle, is validated once
+ * per validation, at the first route by which it is reached.  Validation therefore costs time and memory linear in
+ * the number of nodes and edges reachable.</p>
+ *
+ * <p>Where a path segment is set, each node is validated beneath the {@link FieldPath} by which it was reached, such
+ * as {@code attributes[0].attributes[2]} for the third child of the first child of the root, with a children path
+ * segment of {@code attributes}.  A null root is not validated.</p>
+ *
+ * @param <T> The type of the context object containing the root of the graph.
+ * @param <N> The type of the nodes of the graph.
+ */
+public class GraphValidator<T, N> extends AbstractValueProvidedValidator<T> {
+    private final Validator<N> nodeValidator;
+
+    private final Function<N, ? extends Iterable<? extends N>> children;
+
+    private String pathSegment;
+
+    /**
+     * Constructs a validator applying a node validator to every node of the graph reached from the value provided.
+     *
+     * @param valueProvider the function answering the root of the graph, or null for the object validated to be the
+     *                      root.
+     * @param nodeValidator the validator applied to each node.
+     * @param children      the function answering the children of a node, which may answer null for a node without
+     *                      children.
+     */
+    public GraphValidator(Function<T, N> valueProvider, Validator<N> nodeValidator, Function<N, ? extends Iterable<? extends N>> children) {
+        this(null, valueProvider, nodeValidator, children);
+    }
+
+    public GraphValidator(Predicate<T> condition,
+                          Function<T, N> valueProvider,
+                          Validator<N> nodeValidator,
+                          Function<N, ? extends Iterable<? extends N>> children) {
+        super(condition, valueProvider);
+        this.nodeValidator = nodeValidator;
+        this.children = children;
+    }
+
+    /**
+     * Gets the validator applied to each node.
+     *
+     * @return the node validator.
+     */
+    public Validator<N> getNodeValidator() {
+        return nodeValidator;
+    }
+
+    /**
+     * Gets the path segment naming the children of a node.
+     *
+     * @return the path segment, which may be null.
+     */
+    public String getPathSegment() {
+        return pathSegment;
+    }
+
+    /**
+     * Sets the path segment naming the children of a node, so that each node is validated beneath an indexed path
+     * from the root.
+     *
+     * @param pathSegment the path segment, or null to validate every node beneath the path current on entry.
+     */
+    public void setPathSegment(String pathSegment) {
+        this.pathSegment = pathSegment;
+    }
+
+    @Override
+    protected Messages doValidate(T object, Messages messages) {
+        N root = getValidationValue(object);
+        if (root == null) {
+            return messages;
+        }
+
+        String segment = pathSegment;
+        FieldPath outer = FieldPath.current();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Visit<N>> stack = new ArrayDeque<>();
+        List<N> siblings = new ArrayList<>();
+        stack.push(new Visit<>(root, null, -1));
+        try {
+            while (!stack.isEmpty() && !messages.isHalted()) {
+                Visit<N> visit = stack.pop();
+                if (!visited.add(visit.node)) {
+                    continue;
+                }
+
+                FieldPath path = null;
+                if (segment != null) {
+                    path = visit.index < 0 ? outer : childPath(visit.parentPath, segment, visit.index);
+                    FieldPath.setCurrent(path);
+                }
+                nodeValidator.validate(visit.node, messages);
+
+                Iterable<? extends N> nodeChildren = children.apply(visit.node);
+                if (nodeChildren != null) {
+                    for (N child : nodeChildren) {
+                        siblings.add(child);
+                    }
+                    for (int index = siblings.size() - 1; index >= 0; index--) {
+                        N child = siblings.get(index);
+                        if (child != null && !visited.contains(child)) {
+                            stack.push(new Visit<>(child, path, index));
+                        }
+                    }
+                    siblings.clear();
+                }
+            }
+        } finally {
+            if (segment != null) {
+                FieldPath.setCurrent(outer);
+            }
+        }
+        return messages;
+    }
+
+    private static FieldPath childPath(FieldPath parentPath, String segment, int index) {
+        return (parentPath != null ? parentPath.child(segment) : FieldPath.of(segment)).index(index);
+    }
+
+    /**
+     * A node waiting to be visited, with the path of the parent by which it was reached and its index among the
+     * parent's children, from which its own path is built only if it is visited.
+     */
+    private static final class Visit<N> {
+        private final N node;
+
+        private final FieldPath parentPath;
+
+        private final int index;
+
+        private Visit(N node, FieldPath parentPath, int index) {
+            this.node = node;
+            this.parentPath = parentPath;
+            this.index = index;
+        }
+    }
+}
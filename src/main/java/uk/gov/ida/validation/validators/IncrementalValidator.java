@@ -0,0 +1,357 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.ImmutableMessages;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.messages.MessagesImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A validator supporting incremental revalidation of an object after small changes, such as the edits of a form.  The
+ * validator is made up of rules, usually the children of a {@link CompositeValidator}, each of which depends on some
+ * of the object's named properties.  A full validation retains the messages of each rule in a {@link Result}; a
+ * revalidation, given the properties that have changed or the old and new values of the object, runs only the rules
+ * depending on a changed property and replaces their messages within the result.  The cost of a revalidation is
+ * therefore proportional to the rules affected by the change rather than to the whole tree.
+ *
+ * <p>Properties are registered with {@link #addProperty(String, Function)}, naming the same value provider instances
+ * the rules are built with.  The properties a rule depends on are then found from the value providers of the rule
+ * and, for a {@link CompositeValidator} without a value provider, of its children.  A rule is taken to depend on every
+ * property, and so runs on every revalidation, where any of its value providers is not registered, where it validates
+ * the object directly, or where it has a condition, which may read any property.  The dependencies of such a rule may
+ * instead be declared with {@link #setDependencies(Validator, String...)}.</p>
+ *
+ * @param <T> The type of the context object being validated.
+ */
+public class IncrementalValidator<T> implements Validator<T> {
+    private final Validator<T>[] rules;
+
+    private final Map<String, Function<T, ?>> properties = new LinkedHashMap<>();
+
+    private final Map<Validator<T>, Set<String>> declaredDependencies = new IdentityHashMap<>();
+
+    /**
+     * The rules depending on each property, and the rules depending on every property, computed on first use.
+     */
+    private volatile Plan plan;
+
+    /**
+     * Constructs an incremental validator whose rules are the children of a composite, which must neither have a value
+     * provider or condition of its own nor stop on its first error.
+     *
+     * @param composite the composite whose children are the rules.
+     */
+    public IncrementalValidator(CompositeValidator<T> composite) {
+        this(rulesOf(composite));
+    }
+
+    /**
+     * Constructs an incremental validator of the given rules.
+     *
+     * @param rules the rules, run in order.
+     */
+    @SafeVarargs
+    public IncrementalValidator(Validator<T>... rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Registers a named property of the object, by the value provider with which rules validating the property are
+     * built.
+     *
+     * @param name     the property name.
+     * @param accessor the value provider answering the property value.
+     */
+    public void addProperty(String name, Function<T, ?> accessor) {
+        properties.put(name, accessor);
+        plan = null;
+    }
+
+    /**
+     * Declares the properties a rule depends on, replacing those found from its value providers.
+     *
+     * @param rule       the rule.
+     * @param properties the names of the properties the rule depends on.
+     */
+    public void setDependencies(Validator<T> rule, String... properties) {
+        if (!Arrays.asList(rules).contains(rule)) {
+            throw new IllegalArgumentException("Not a rule of this validator: " + rule);
+        }
+        declaredDependencies.put(rule, new HashSet<>(Arrays.asList(properties)));
+        plan = null;
+    }
+
+    /**
+     * Gets the names of the properties a rule depends on.
+     *
+     * @param rule the rule.
+     * @return the property names, or null where the rule depends on every property.
+     */
+    public Set<String> getDependencies(Validator<T> rule) {
+        int index = Arrays.asList(rules).indexOf(rule);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a rule of this validator: " + rule);
+        }
+        return plan().dependencies.get(index);
+    }
+
+    @Override
+    public Messages validate(T object, Messages messages) {
+        for (Validator<T> rule : rules) {
+            rule.validate(object, messages);
+            if (messages.isHalted()) {
+                break;
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Validates an object with every rule, retaining the messages of each rule for later revalidation.
+     *
+     * @param object the object being validated.
+     * @return the retained result.
+     */
+    public Result validateAll(T object) {
+        Result result = new Result(rules.length);
+        BitSet all = new BitSet(rules.length);
+        all.set(0, rules.length);
+        run(object, all, result);
+        return result;
+    }
+
+    /**
+     * Revalidates an object after the given properties have changed, running only the rules depending on a changed
+     * property, or on every property, and replacing their messages within the result.
+     *
+     * @param result            the result retained from validating the object before the change, which is updated.
+     * @param object            the object being validated.
+     * @param changedProperties the names of the properties that have changed.
+     * @return the updated result.
+     */
+    public Result revalidate(Result result, T object, Set<String> changedProperties) {
+        if (result.ruleMessages.length != rules.length) {
+            throw new IllegalArgumentException("Result was not retained by this validator");
+        }
+
+        Plan current = plan();
+        BitSet affected = (BitSet) current.alwaysRun.clone();
+        for (String property : changedProperties) {
+            BitSet dependents = current.dependents.get(property);
+            if (dependents == null) {
+                throw new IllegalArgumentException("Unknown property: " + property);
+            }
+            affected.or(dependents);
+        }
+        run(object, affected, result);
+        return result;
+    }
+
+    /**
+     * Revalidates an object after a change, finding the properties that have changed by comparing the registered
+     * properties of its old and new values.  Where the object is changed in place, the old value must be a copy taken
+     * before the change.
+     *
+     * @param result   the result retained from validating the old value, which is updated.
+     * @param oldValue the value of the object before the change.
+     * @param newValue the value of the object after the change.
+     * @return the updated result.
+     */
+    public Result revalidate(Result result, T oldValue, T newValue) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Function<T, ?>> property : properties.entrySet()) {
+            if (!Objects.equals(property.getValue().apply(oldValue), property.getValue().apply(newValue))) {
+                changed.add(property.getKey());
+            }
+        }
+        return revalidate(result, newValue, changed);
+    }
+
+    private void run(T object, BitSet affected, Result result) {
+        MessagesImpl scratch = new MessagesImpl();
+        for (int rule = affected.nextSetBit(0); rule >= 0; rule = affected.nextSetBit(rule + 1)) {
+            rules[rule].validate(object, scratch);
+            result.replace(rule, ImmutableMessages.snapshotOf(scratch));
+            scratch.reset();
+        }
+        result.lastRunCount = affected.cardinality();
+    }
+
+    private Plan plan() {
+        Plan current = plan;
+        if (current == null) {
+            current = new Plan();
+            plan = current;
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Validator<T>[] rulesOf(CompositeValidator<T> composite) {
+        if (composite.getValueProvider() != null || composite.getCondition() != null || composite.isStopOnFirstError()) {
+            throw new IllegalArgumentException("Composite must have no value provider or condition, and not stop on its first error");
+        }
+        return (Validator<T>[]) (Validator<?>[]) composite.getValidators();
+    }
+
+    /**
+     * Finds the properties a validator depends on from its value providers.
+     *
+     * @return the property names, or null where the validator depends on every property.
+     */
+    private Set<String> dependenciesOf(Validator<?> validator, Map<Function<?, ?>, String> names) {
+        if (validator instanceof AbstractConditionalValidator && ((AbstractConditionalValidator<?>) validator).getCondition() != null) {
+            return null;
+        }
+        if (validator instanceof ValueProvidedValidator && ((ValueProvidedValidator<?>) validator).getValueProvider() != null) {
+            String name = names.get(((ValueProvidedValidator<?>) validator).getValueProvider());
+            return name == null ? null : Collections.singleton(name);
+        }
+        if (validator instanceof CompositeValidator) {
+            Set<String> dependencies = new HashSet<>();
+            for (Validator<?> child : ((CompositeValidator<?>) validator).getValidators()) {
+                Set<String> childDependencies = dependenciesOf(child, names);
+                if (childDependencies == null) {
+                    return null;
+                }
+                dependencies.addAll(childDependencies);
+            }
+            return dependencies;
+        }
+        if (validator instanceof ValidatorDecorator) {
+            return dependenciesOf(((ValidatorDecorator<?>) validator).getValidator(), names);
+        }
+        return null;
+    }
+
+    /**
+     * The rules to be run when each property changes.
+     */
+    private final class Plan {
+        private final List<Set<String>> dependencies = new ArrayList<>();
+
+        private final Map<String, BitSet> dependents = new HashMap<>();
+
+        private final BitSet alwaysRun = new BitSet(rules.length);
+
+        private Plan() {
+            Map<Function<?, ?>, String> names = new IdentityHashMap<>();
+            for (Map.Entry<String, Function<T, ?>> property : properties.entrySet()) {
+                names.put(property.getValue(), property.getKey());
+                dependents.put(property.getKey(), new BitSet(rules.length));
+            }
+
+            for (int rule = 0; rule < rules.length; rule++) {
+                Set<String> ruleDependencies = declaredDependencies.containsKey(rules[rule])
+                                               ? declaredDependencies.get(rules[rule])
+                                               : dependenciesOf(rules[rule], names);
+                dependencies.add(ruleDependencies == null ? null : Collections.unmodifiableSet(ruleDependencies));
+                if (ruleDependencies == null) {
+                    alwaysRun.set(rule);
+                    continue;
+                }
+                for (String property : ruleDependencies) {
+                    dependents.computeIfAbsent(property, name -> new BitSet(rules.length)).set(rule);
+                }
+            }
+        }
+    }
+
+    /**
+     * The messages of each rule retained from a validation, updated in place by revalidation.  A result is not safe
+     * for use by multiple threads.
+     */
+    public static final class Result {
+        private final ImmutableMessages[] ruleMessages;
+
+        private MessagesImpl messages;
+
+        private int lastRunCount;
+
+        private Result(int rules) {
+            this.ruleMessages = new ImmutableMessages[rules];
+            Arrays.fill(ruleMessages, ImmutableMessages.EMPTY);
+        }
+
+        /**
+         * Gets the messages of every rule, in rule order.
+         *
+         * @return the messages, which should not be modified.
+         */
+        public Messages getMessages() {
+            if (messages == null) {
+                MessagesImpl merged = new MessagesImpl();
+                for (ImmutableMessages rule : ruleMessages) {
+                    if (rule.size() > 0) {
+                        merged.mergeFrom(rule);
+                    }
+                }
+                messages = merged;
+            }
+            return messages;
+        }
+
+        /**
+         * Gets the messages of a single rule.
+         *
+         * @param rule the index of the rule.
+         * @return the messages of the rule.
+         */
+        public ImmutableMessages getRuleMessages(int rule) {
+            return ruleMessages[rule];
+        }
+
+        /**
+         * Gets the number of rules run by the validation or revalidation last applied to this result.
+         *
+         * @return the number of rules run.
+         */
+        public int getLastRunCount() {
+            return lastRunCount;
+        }
+
+        private void replace(int rule, ImmutableMessages replacement) {
+            if (replacement != ruleMessages[rule]) {
+                ruleMessages[rule] = replacement;
+                messages = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The load level at which validators are run: the least important {@link ValidationTier} still run, below which
+ * validators are skipped, or shed, without evaluating their conditions or value providers.  A composite that is shed
+ * skips its whole subtree.
+ *
+ * <p>The level is set globally, for instance by a load monitor, and may be overridden for the validations made by a
+ * single call.  Validators at the {@link ValidationTier#CRITICAL} tier are never shed.</p>
+ */
+public final class LoadShedding {
+    private static volatile ValidationTier level = ValidationTier.DIAGNOSTIC;
+
+    private static final ThreadLocal<ValidationTier> overrideLevel = new ThreadLocal<>();
+
+    /**
+     * The number of calls currently overriding the level, so that the thread-local override need be consulted only
+     * while there are any.
+     */
+    private static final AtomicInteger overrides = new AtomicInteger();
+
+    private static final LongAdder[] shedCounts = new LongAdder[ValidationTier.values().length];
+
+    static {
+        for (int i = 0; i < shedCounts.length; i++) {
+            shedCounts[i] = new LongAdder();
+        }
+    }
+
+    private LoadShedding() {}
+
+    /**
+     * Sets the global load level.
+     *
+     * @param lowestTierRun the least important tier still run, which is {@link ValidationTier#DIAGNOSTIC} to run all
+     *                      validators.
+     */
+    public static void setLevel(ValidationTier lowestTierRun) {
+        level = lowestTierRun;
+    }
+
+    /**
+     * Gets the load level in effect for the current thread: the level of any call overriding it, or else the global
+     * level.
+     *
+     * @return the least important tier still run.
+     */
+    public static ValidationTier getLevel() {
+        if (overrides.get() > 0) {
+            ValidationTier override = overrideLevel.get();
+            if (override != null) {
+                return override;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Gets the level overriding the global level for the current thread, if any.
+     *
+     * @return the overriding level, or null if the current thread is not overriding the global level.
+     */
+    static ValidationTier getOverride() {
+        return overrides.get() > 0 ? overrideLevel.get() : null;
+    }
+
+    /**
+     * Performs an action, such as a validation, at the given load level rather than the global level.
+     *
+     * @param lowestTierRun the least important tier run by the action.
+     * @param action        the action to perform.
+     * @param <R>           the type of the result of the action.
+     * @return the result of the action.
+     */
+    public static <R> R withLevel(ValidationTier lowestTierRun, Supplier<R> action) {
+        ValidationTier previous = overrideLevel.get();
+        overrideLevel.set(lowestTierRun);
+        overrides.incrementAndGet();
+        try {
+            return action.get();
+        } finally {
+            overrides.decrementAndGet();
+            if (previous == null) {
+                overrideLevel.remove();
+            } else {
+                overrideLevel.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of times validators at the given tier have been shed.
+     *
+     * @param tier the tier of validator.
+     * @return the number of validator invocations skipped.
+     */
+    public static long getShedCount(ValidationTier tier) {
+        return shedCounts[tier.ordinal()].sum();
+    }
+
+    /**
+     * Determines whether a validator at the given tier is to be shed at the current load level, counting it if so.
+     *
+     * @param tier the tier of the validator.
+     * @return true if the validator is to be skipped, false if it is to be run.
+     */
+    static boolean shed(ValidationTier tier) {
+        if (tier.compareTo(getLevel()) <= 0) {
+            return false;
+        }
+        shedCounts[tier.ordinal()].increment();
+        return true;
+    }
+}
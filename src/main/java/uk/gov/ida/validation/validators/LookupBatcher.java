@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches concurrent lookups into calls of a {@link LookupClient}.  A lookup is sent straight away where fewer than the
+ * maximum number of calls are in flight; otherwise it queues, and every lookup queued while the calls were in flight is
+ * sent as a single batch as soon as a call completes.  The busier the service, the larger the batches, without a
+ * lookup ever waiting for a batch to fill.
+ *
+ * <p>A call not completed within the call timeout is abandoned: its lookups fail with a {@link TimeoutException} and
+ * its place is given to the lookups queued behind it, so that a service that never answers cannot hold every call.
+ * Lookups whose futures have been completed or cancelled by their callers while queued are dropped, rather than
+ * sent.</p>
+ *
+ * @param <K> The type of the keys looked up.
+ * @param <V> The type of the values looked up.
+ */
+final class LookupBatcher<K, V> {
+    private static final ScheduledThreadPoolExecutor TIMER = timer();
+
+    private final LookupClient<K, V> client;
+
+    private final int maxBatchSize;
+
+    private final int maxInFlight;
+
+    private final Queue<Pending<K, V>> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile long callTimeoutNanos = Long.MAX_VALUE;
+
+    LookupBatcher(LookupClient<K, V> client, int maxBatchSize, int maxInFlight) {
+        if (maxBatchSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Batch size and calls in flight must be at least 1");
+        }
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    private static ScheduledThreadPoolExecutor timer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "validation-lookup-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Sets how long a call may be in flight before it is abandoned.
+     *
+     * @param timeout the call timeout, or {@link Long#MAX_VALUE} for calls never to be abandoned.
+     * @param unit    the unit of the timeout.
+     */
+    void setCallTimeout(long timeout, TimeUnit unit) {
+        this.callTimeoutNanos = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : unit.toNanos(timeout);
+    }
+
+    /**
+     * Looks up a key.
+     *
+     * @param key the key to be looked up.
+     * @return a future completed with the value of the key, or null where the key is not known to the service.
+     */
+    CompletableFuture<V> submit(K key) {
+        Pending<K, V> pending = new Pending<>(key);
+        queue.add(pending);
+        dispatch();
+        return pending.future;
+    }
+
+    long getCallCount() {
+        return calls.sum();
+    }
+
+    long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    private void dispatch() {
+        while (!queue.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Map<K, List<CompletableFuture<V>>> batch = drain();
+            if (batch.isEmpty()) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            send(batch);
+        }
+    }
+
+    private Map<K, List<CompletableFuture<V>>> drain() {
+        Map<K, List<CompletableFuture<V>>> batch = new HashMap<>();
+        Pending<K, V> pending;
+        while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+            if (pending.future.isDone()) {
+                continue;
+            }
+            batch.computeIfAbsent(pending.key, key -> new ArrayList<>(1)).add(pending.future);
+        }
+        return batch;
+    }
+
+    private void send(Map<K, List<CompletableFuture<V>>> batch) {
+        calls.increment();
+        CompletableFuture<Map<K, V>> call;
+        try {
+            call = client.lookup(batch.keySet());
+        } catch (RuntimeException e) {
+            call = new CompletableFuture<>();
+            call.completeExceptionally(e);
+        }
+
+        AtomicBoolean settled = new AtomicBoolean();
+        long timeout = callTimeoutNanos;
+        ScheduledFuture<?> timer = timeout == Long.MAX_VALUE || call.isDone() ? null : TIMER.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                timeouts.increment();
+                settle(batch, null, new TimeoutException("Lookup call did not complete within "
+                                                               + TimeUnit.NANOSECONDS.toMillis(timeout) + "ms"));
+            }
+        }, timeout, TimeUnit.NANOSECONDS);
+
+        call.whenComplete((values, failure) -> {
+            if (settled.compareAndSet(false, true)) {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                settle(batch, values, failure);
+            }
+        });
+    }
+
+    /**
+     * Gives the place of a call to the lookups queued behind it, then completes the lookups it carried.
+     */
+    private void settle(Map<K, List<CompletableFuture<V>>> batch, Map<K, V> values, Throwable failure) {
+        inFlight.decrementAndGet();
+        dispatch();
+        for (Map.Entry<K, List<CompletableFuture<V>>> entry : batch.entrySet()) {
+            for (CompletableFuture<V> future : entry.getValue()) {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(values == null ? null : values.get(entry.getKey()));
+                }
+            }
+        }
+    }
+
+    private static final class Pending<K, V> {
+        private final K key;
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private Pending(K key) {
+            this.key = key;
+        }
+    }
+}
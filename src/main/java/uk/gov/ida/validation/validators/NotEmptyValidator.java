@@ -66,4 +66,9 @@ public class NotEmptyValidator<T> extends PredicatedValidator<T> {
     public <R> NotEmptyValidator(Predicate<T> condition, Message message, Function<T, R> valueProvider) {
         super(condition, valueProvider, message, VALIDATION_PREDICATE);
     }
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return ValidationCost.CHEAP;
+    }
 }
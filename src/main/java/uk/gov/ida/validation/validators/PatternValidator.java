@@ -27,6 +27,8 @@ package uk.gov.ida.validation.validators;
 
 import uk.gov.ida.validation.messages.Message;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -45,6 +47,7 @@ public class PatternValidator<T> extends PredicatedValidator<T> {
     public static final String DEFAULT_PARAM_MESSAGE = "Value is required and must not be empty";
 
     private Pattern pattern;
+    private ValidationCost patternCost;
     private final Predicate<?> VALIDATION_PREDICATE = v -> getPattern().matcher(v.toString()).matches();
 
 
@@ -69,10 +72,77 @@ public class PatternValidator<T> extends PredicatedValidator<T> {
     public <R> PatternValidator(Predicate<T> condition, Message message, Function<T, R> valueProvider, String pattern) {
         super(condition, valueProvider, message);
         this.pattern = Pattern.compile(pattern);
+        this.patternCost = estimatePatternCost(pattern);
         setValidation(VALIDATION_PREDICATE);
     }
 
     public Pattern getPattern() {
         return pattern;
     }
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return patternCost;
+    }
+
+    /**
+     * Estimates the cost of matching a typical short value against a regular expression, from the length of the
+     * expression and the number of quantifiers and alternatives it contains.  Backreferences, and quantified groups
+     * that themselves contain quantifiers, may backtrack heavily and so are estimated as
+     * {@link ValidationCost#EXPENSIVE}.
+     *
+     * @param regex the regular expression.
+     * @return the estimated cost of a match.
+     */
+    static ValidationCost estimatePatternCost(String regex) {
+        int quantifiers = 0;
+        int alternatives = 0;
+        boolean inClass = false;
+        Deque<Boolean> groupsQuantified = new ArrayDeque<>();
+        boolean lastGroupQuantified = false;
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            boolean closedGroup = false;
+            if (c == '\\') {
+                if (i + 1 < regex.length() && !inClass
+                        && (Character.isDigit(regex.charAt(i + 1)) && regex.charAt(i + 1) != '0' || regex.charAt(i + 1) == 'k')) {
+                    return ValidationCost.EXPENSIVE;
+                }
+                i++;
+            } else if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                groupsQuantified.push(false);
+            } else if (c == ')' && !groupsQuantified.isEmpty()) {
+                lastGroupQuantified = groupsQuantified.pop();
+                closedGroup = true;
+            } else if (c == '|') {
+                alternatives++;
+            } else if ((c == '*' || c == '+' || c == '{' || c == '?') && !(c == '?' && i > 0 && regex.charAt(i - 1) == '(')) {
+                if (c == '?' && i > 0 && "*+?}".indexOf(regex.charAt(i - 1)) >= 0) {
+                    continue;
+                }
+                if (i > 0 && regex.charAt(i - 1) == ')' && lastGroupQuantified && c != '?') {
+                    return ValidationCost.EXPENSIVE;
+                }
+                quantifiers++;
+                if (!groupsQuantified.isEmpty()) {
+                    groupsQuantified.pop();
+                    groupsQuantified.push(true);
+                }
+                if (c == '{') {
+                    i = Math.max(i, regex.indexOf('}', i));
+                }
+            }
+            if (closedGroup && lastGroupQuantified && !groupsQuantified.isEmpty()) {
+                groupsQuantified.pop();
+                groupsQuantified.push(true);
+            }
+        }
+
+        return ValidationCost.ofNanos(ValidationCost.CHEAP.getNanos() + 10L * regex.length() + 100L * quantifiers + 100L * alternatives);
+    }
 }
@@ -31,8 +31,6 @@ import uk.gov.ida.validation.messages.Messages;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
-import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
-
 /**
  * A validator configured with or predicated on its given validation logic at runtime.
  *
@@ -90,15 +88,7 @@ public class PredicatedValidator<T> extends AbstractValidator<T> {
     protected Messages doValidate(T object, Messages messages) {
         Object rtValue = getValidationValue(object);
         if (!((Predicate) validation).test(rtValue)) {
-            messages.addError(fieldMessage(getMessage().getField(),
-                    getMessage().getCode(),
-                    getMessage().getParameterisedMessage(),
-                    getMessage().getMessageParameters() != null ? getMessage().getMessageParameters() :
-                            new Object[]{
-                                    object,
-                                    getValidationValue(object)
-                            })
-            );
+            messages.addError(failureMessage(object, rtValue));
         }
         return messages;
     }
@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.cache.ReplayCache;
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * A validator rejecting values, such as SAML response or assertion ids, that have already been seen within a window
+ * of time, as recorded by a {@link ReplayCache} shared by every validator checking the same kind of id.  Each value
+ * validated is recorded, so a value passes only the first time it is validated within the window.  A null value is
+ * not checked.
+ *
+ * <p>Where the cache is full, a value can be neither checked nor recorded, and the validator fails closed with a
+ * distinct capacity message.</p>
+ *
+ * @param <T>   The type of the context object containing the id being validated.
+ */
+public class ReplayValidator<T> extends AbstractValidator<T> {
+    public static final String DEFAULT_MESSAGE_CODE = "replay";
+    public static final String DEFAULT_PARAM_MESSAGE = "Value has already been seen";
+    public static final String CAPACITY_MESSAGE_CODE = "replay.capacity";
+    public static final String CAPACITY_PARAM_MESSAGE = "Value could not be checked for replay";
+
+    private final ReplayCache cache;
+
+    private Message capacityMessage = globalMessage(CAPACITY_MESSAGE_CODE, CAPACITY_PARAM_MESSAGE);
+
+    public ReplayValidator(ReplayCache cache) {
+        this(globalMessage(DEFAULT_MESSAGE_CODE, DEFAULT_PARAM_MESSAGE), cache);
+    }
+
+    public ReplayValidator(Message message, ReplayCache cache) {
+        this(null, message, null, cache);
+    }
+
+    public <R> ReplayValidator(Message message, Function<T, R> valueProvider, ReplayCache cache) {
+        this(null, message, valueProvider, cache);
+    }
+
+    public <R> ReplayValidator(Predicate<T> condition, Message message, Function<T, R> valueProvider, ReplayCache cache) {
+        super(condition, message, valueProvider);
+        this.cache = cache;
+    }
+
+    /**
+     * Gets the cache recording the values seen.
+     *
+     * @return the replay cache.
+     */
+    public ReplayCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the message added when a value cannot be checked because the cache is full.
+     *
+     * @return the capacity message.
+     */
+    public Message getCapacityMessage() {
+        return capacityMessage;
+    }
+
+    /**
+     * Sets the message added when a value cannot be checked because the cache is full.
+     *
+     * @param capacityMessage the capacity message.
+     */
+    public void setCapacityMessage(Message capacityMessage) {
+        this.capacityMessage = capacityMessage;
+    }
+
+    @Override
+    protected Messages doValidate(T object, Messages messages) {
+        Object id = getValidationValue(object);
+        if (id == null) {
+            return messages;
+        }
+
+        switch (cache.record(id)) {
+            case REPLAYED:
+                messages.addError(failureMessage(object, id));
+                break;
+            case FULL:
+                messages.addError(capacityMessage);
+                break;
+            default:
+                break;
+        }
+        return messages;
+    }
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return ValidationCost.CHEAP;
+    }
+}
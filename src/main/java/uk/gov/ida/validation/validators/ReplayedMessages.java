@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.ImmutableMessages;
+import uk.gov.ida.validation.messages.Message;
+import uk.gov.ida.validation.messages.MessageImpl;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.messages.MessagesImpl;
+
+/**
+ * The outcome of a validation recorded for replay to other validations, beneath whatever {@link FieldPath} is current
+ * when each is replayed.  The validation is run beneath a stand-in root path, which is replaced by the path current
+ * at replay in the paths of the messages replayed.
+ */
+final class ReplayedMessages {
+    /**
+     * The path current while a recorded validation runs, standing in for the path beneath which its messages are
+     * replayed.
+     */
+    private static final FieldPath REPLAY_ROOT = FieldPath.of("replayed");
+
+    private ReplayedMessages() {}
+
+    /**
+     * Runs a validator beneath the stand-in root, recording the messages it adds.
+     *
+     * @param validator the validator to run.
+     * @param object    the object to be validated.
+     * @param <T>       The type of the object validated.
+     * @return the messages added by the validator.
+     */
+    static <T> ImmutableMessages record(Validator<T> validator, T object) {
+        FieldPath path = FieldPath.current();
+        FieldPath.setCurrent(REPLAY_ROOT);
+        try {
+            return ImmutableMessages.snapshotOf(validator.validate(object, MessagesImpl.messages()));
+        } finally {
+            FieldPath.setCurrent(path);
+        }
+    }
+
+    /**
+     * Adds recorded messages to a container, beneath the given path.
+     *
+     * @param outcome  the messages recorded.
+     * @param path     the path beneath which the messages are to lie, or null for none.
+     * @param messages the container to which the messages are to be added.
+     * @return the container.
+     */
+    static Messages replay(ImmutableMessages outcome, FieldPath path, Messages messages) {
+        if (outcome.hasInfos()) {
+            for (Message message : outcome.getInfos()) {
+                messages.addInfo(beneath(path, message));
+            }
+        }
+        if (outcome.hasWarnings()) {
+            for (Message message : outcome.getWarnings()) {
+                messages.addWarning(beneath(path, message));
+            }
+        }
+        if (outcome.hasErrors()) {
+            for (Message message : outcome.getErrors()) {
+                messages.addError(beneath(path, message));
+            }
+        }
+        return messages;
+    }
+
+    private static Message beneath(FieldPath path, Message message) {
+        if (!(message instanceof MessageImpl)) {
+            return message;
+        }
+        MessageImpl recorded = (MessageImpl) message;
+        return recorded.getPath() == null ? recorded : recorded.withPath(recorded.getPath().rebase(REPLAY_ROOT, path));
+    }
+}
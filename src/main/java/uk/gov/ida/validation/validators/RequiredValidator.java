@@ -67,4 +67,9 @@ public class RequiredValidator<T> extends PredicatedValidator<T> {
     public RequiredValidator(Predicate<T> condition, Message message, Function<T, ?> valueProvider) {
         super(condition, valueProvider, message, VALIDATION_PREDICATE);
     }
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return ValidationCost.CHEAP;
+    }
 }
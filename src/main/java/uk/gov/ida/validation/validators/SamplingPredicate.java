@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A validator condition that selects only a sample of the objects validated, so that expensive diagnostic
+ * validators check only a fraction of traffic.  Samples are either random, at a given rate, or deterministic, keyed
+ * on an attribute of the object validated, such as a request id, so that every validator sampling on the same key at
+ * the same rate selects the same objects.
+ *
+ * <pre>
+ *     new PatternValidator&lt;&gt;(SamplingPredicate.keyed(Request::getId, 0.01), message, pattern)
+ * </pre>
+ *
+ * <p>Objects not selected are reported as skipped by the validator's metrics, as for any unmet condition, and are
+ * also counted by the predicate.  A sample may be combined with another condition using {@link #and(Predicate)}.</p>
+ *
+ * @param <T> The type of the context object being validated.
+ */
+public final class SamplingPredicate<T> implements Predicate<T> {
+    private final Predicate<T> selection;
+
+    private final double rate;
+
+    private final LongAdder sampled = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private SamplingPredicate(Predicate<T> selection, double rate) {
+        this.selection = selection;
+        this.rate = rate;
+    }
+
+    /**
+     * Creates a predicate selecting objects at random, at the given rate.
+     *
+     * @param rate the fraction of objects to select, from 0 for none to 1 for all.
+     * @param <T>  the type of the context object being validated.
+     * @return the sampling predicate.
+     */
+    public static <T> SamplingPredicate<T> rate(double rate) {
+        checkRate(rate);
+        return new SamplingPredicate<>(object -> ThreadLocalRandom.current().nextDouble() < rate, rate);
+    }
+
+    /**
+     * Creates a predicate selecting objects deterministically, according to the hash code of a key obtained from each
+     * object, at the given rate.  Objects whose key is null are not selected.
+     *
+     * @param key  the function answering the key of an object.
+     * @param rate the fraction of keys to select, from 0 for none to 1 for all.
+     * @param <T>  the type of the context object being validated.
+     * @return the sampling predicate.
+     */
+    public static <T> SamplingPredicate<T> keyed(Function<T, ?> key, double rate) {
+        checkRate(rate);
+        return new SamplingPredicate<>(object -> {
+            Object value = key.apply(object);
+            return value != null && unitInterval(value.hashCode()) < rate;
+        }, rate);
+    }
+
+    @Override
+    public boolean test(T object) {
+        if (selection.test(object)) {
+            sampled.increment();
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Gets the fraction of objects selected.
+     *
+     * @return the sample rate.
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Gets the number of objects selected for validation.
+     *
+     * @return the number of objects selected.
+     */
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    /**
+     * Gets the number of objects not selected for validation.
+     *
+     * @return the number of objects not selected.
+     */
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    private static void checkRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + rate);
+        }
+    }
+
+    /**
+     * Maps a hash code uniformly onto [0, 1), mixing its bits so that similar keys are selected independently.
+     */
+    static double unitInterval(int hashCode) {
+        long mixed = hashCode;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return (mixed >>> 11) * 0x1.0p-53;
+    }
+}
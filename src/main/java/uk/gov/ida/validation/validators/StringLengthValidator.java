@@ -139,4 +139,9 @@ public class StringLengthValidator<T> extends PredicatedValidator<T> {
 
         return null;
     }
+
+    @Override
+    protected ValidationCost estimateCost() {
+        return ValidationCost.CHEAP;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.metrics.LatencyHistogram;
+
+/**
+ * A validator decorator recording the latency of every validation performed by the validator it decorates, which may
+ * be a single validator or a whole {@link CompositeValidator} subtree, into a {@link LatencyHistogram}.
+ *
+ * @param <T> The type of the context object being validated.
+ */
+public class TimedValidator<T> implements ValidatorDecorator<T> {
+    private final Validator<T> validator;
+
+    private final LatencyHistogram histogram;
+
+    /**
+     * Constructs a timed validator recording into a new histogram.
+     *
+     * @param validator the validator to be timed.
+     */
+    public TimedValidator(Validator<T> validator) {
+        this(validator, new LatencyHistogram());
+    }
+
+    /**
+     * Constructs a timed validator recording into the given histogram, which may be shared with other validators.
+     *
+     * @param validator the validator to be timed.
+     * @param histogram the histogram to record into.
+     */
+    public TimedValidator(Validator<T> validator, LatencyHistogram histogram) {
+        this.validator = validator;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public Messages validate(T object, Messages messages) {
+        long start = System.nanoTime();
+        try {
+            return validator.validate(object, messages);
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets a hint of the time the validator being timed takes to run: the median latency recorded, or the
+     * validator's own hint if no latency has yet been recorded.
+     *
+     * @return the cost hint.
+     */
+    @Override
+    public ValidationCost getCost() {
+        return histogram.getCount() > 0 ? ValidationCost.ofNanos(histogram.getPercentile(50.0)) : validator.getCost();
+    }
+
+    /**
+     * Gets the validator being timed.
+     *
+     * @return the validator being timed.
+     */
+    @Override
+    public Validator<T> getValidator() {
+        return validator;
+    }
+
+    /**
+     * Gets the histogram into which latencies are recorded.
+     *
+     * @return the latency histogram.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.FieldPath;
+
+/**
+ * The per-thread state of a validation in progress: the current {@link FieldPath}, any {@link LoadShedding} level
+ * overriding the global level, and the state of the registered {@link ValidationListener}, such as a trace being
+ * recorded.  A validator continuing a validation on other threads captures the context on the validating thread and
+ * runs its work on the other threads within it.
+ */
+final class ValidationContext {
+    private final FieldPath path;
+
+    private final ValidationTier loadSheddingOverride;
+
+    private final ValidationListener listener;
+
+    private final Object listenerState;
+
+    private ValidationContext(FieldPath path, ValidationTier loadSheddingOverride, ValidationListener listener,
+                              Object listenerState) {
+        this.path = path;
+        this.loadSheddingOverride = loadSheddingOverride;
+        this.listener = listener;
+        this.listenerState = listenerState;
+    }
+
+    /**
+     * Captures the context of the current thread.
+     *
+     * @return the context captured.
+     */
+    static ValidationContext capture() {
+        ValidationListener listener = ValidationListeners.current();
+        return new ValidationContext(FieldPath.current(),
+                                     LoadShedding.getOverride(),
+                                     listener,
+                                     listener != null ? listener.capture() : null);
+    }
+
+    /**
+     * Runs an action on the current thread within this context, restoring the thread's own context afterwards.
+     *
+     * @param action the action to run.
+     */
+    void run(Runnable action) {
+        FieldPath previousPath = FieldPath.current();
+        FieldPath.setCurrent(path);
+        Object listenerHandle = listener != null ? listener.attach(listenerState) : null;
+        try {
+            if (loadSheddingOverride != null) {
+                LoadShedding.withLevel(loadSheddingOverride, () -> {
+                    action.run();
+                    return null;
+                });
+            } else {
+                action.run();
+            }
+        } finally {
+            if (listener != null) {
+                listener.detach(listenerHandle);
+            }
+            FieldPath.setCurrent(previousPath);
+        }
+    }
+}
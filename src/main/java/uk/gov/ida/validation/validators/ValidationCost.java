@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+/**
+ * A hint of the time a validator takes to run, either one of the broad categories {@link #CHEAP}, {@link #MODERATE}
+ * and {@link #EXPENSIVE} or a measured estimate in nanoseconds.
+ */
+public final class ValidationCost implements Comparable<ValidationCost> {
+    /**
+     * A null check or similar constant-time test of a value.
+     */
+    public static final ValidationCost CHEAP = new ValidationCost("CHEAP", 50L);
+
+    /**
+     * A test taking time proportional to the size of a value, or arbitrary logic of unknown cost.
+     */
+    public static final ValidationCost MODERATE = new ValidationCost("MODERATE", 500L);
+
+    /**
+     * A test that may backtrack heavily, perform I/O or otherwise take orders of magnitude longer than others.
+     */
+    public static final ValidationCost EXPENSIVE = new ValidationCost("EXPENSIVE", 50_000L);
+
+    /**
+     * A validator that does nothing.
+     */
+    public static final ValidationCost FREE = new ValidationCost("FREE", 0L);
+
+    private final String category;
+
+    private final long nanos;
+
+    private ValidationCost(String category, long nanos) {
+        this.category = category;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Creates a cost hint from a measured or calculated estimate.
+     *
+     * @param nanos the estimated time taken, in nanoseconds.
+     * @return the cost hint.
+     */
+    public static ValidationCost ofNanos(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Cost must not be negative: " + nanos);
+        }
+        return new ValidationCost(null, nanos);
+    }
+
+    /**
+     * Gets the estimated time taken.
+     *
+     * @return the estimated time taken, in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Gets the name of the category of this cost.
+     *
+     * @return the category name, or null if this cost is an estimate in nanoseconds.
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Answers the sum of this and another cost.
+     *
+     * @param other the cost to add.
+     * @return the total cost.
+     */
+    public ValidationCost plus(ValidationCost other) {
+        return ofNanos(nanos + other.nanos);
+    }
+
+    @Override
+    public int compareTo(ValidationCost other) {
+        return Long.compare(nanos, other.nanos);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+
+        ValidationCost that = (ValidationCost) other;
+        return nanos == that.nanos && (category == null ? that.category == null : category.equals(that.category));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(nanos) + (category == null ? 0 : category.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return category == null ? nanos + "ns" : category + "(" + nanos + "ns)";
+    }
+}
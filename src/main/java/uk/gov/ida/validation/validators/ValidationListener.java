@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.Messages;
+
+/**
+ * Service provider interface notified as each {@link AbstractConditionalValidator}, leaf or composite, starts and
+ * finishes an invocation.  Listeners are registered globally with {@link ValidationListeners}; when none is registered
+ * validators make no notifications at all.
+ *
+ * <p>Notifications are made on the validating thread and nest: every validator invoked by a composite starts and
+ * finishes between the composite's own start and finish.  A validator that continues validation on other threads,
+ * such as one validating the elements of a collection in parallel, carries any per-thread state of the listener to
+ * them with {@link #capture()}, {@link #attach(Object)} and {@link #detach(Object)}.</p>
+ */
+public interface ValidationListener {
+    /**
+     * Notifies that a validator has been invoked, before its condition is evaluated.
+     *
+     * @param validator the validator invoked.
+     * @param messages  the messages container the validator will add to.
+     * @return a handle to be passed back to {@link #finished}, which may be null.
+     */
+    Object started(AbstractConditionalValidator<?> validator, Messages messages);
+
+    /**
+     * Notifies that a validator invocation has finished.
+     *
+     * @param handle    the handle answered by {@link #started} for this invocation.
+     * @param validator the validator invoked.
+     * @param messages  the messages container the validator added to.
+     * @param outcome   the outcome of the invocation.
+     */
+    void finished(Object handle, AbstractConditionalValidator<?> validator, Messages messages, ValidationOutcome outcome);
+
+    /**
+     * Captures the state this listener keeps for the current thread, so that it may be attached to another thread
+     * continuing the same validation.
+     *
+     * @return the state captured, which may be null.
+     */
+    default Object capture() {
+        return null;
+    }
+
+    /**
+     * Attaches state captured on another thread to the current thread, until {@link #detach} is called with the
+     * handle returned.  The state may be attached to several threads at once.
+     *
+     * @param captured the state answered by {@link #capture()}.
+     * @return a handle to be passed back to {@link #detach}, which may be null.
+     */
+    default Object attach(Object captured) {
+        return null;
+    }
+
+    /**
+     * Detaches the state attached by {@link #attach}, restoring the current thread's own state.
+     *
+     * @param handle the handle answered by {@link #attach}.
+     */
+    default void detach(Object handle) {
+    }
+}
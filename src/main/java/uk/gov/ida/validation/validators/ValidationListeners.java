@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.Arrays;
+
+/**
+ * The global registry of {@link ValidationListener}s.  No listeners are registered by default, in which case the
+ * cost to validators is a single volatile read.
+ */
+public final class ValidationListeners {
+    private static final ValidationListener[] NONE = new ValidationListener[0];
+
+    private static volatile ValidationListener[] registered = NONE;
+
+    /**
+     * The listener notified by validators: null, a single registered listener, or a broadcaster to several.
+     */
+    private static volatile ValidationListener current;
+
+    private ValidationListeners() {}
+
+    /**
+     * Registers a listener to be notified by all validators.
+     *
+     * @param listener the listener to register.
+     */
+    public static synchronized void register(ValidationListener listener) {
+        ValidationListener[] updated = Arrays.copyOf(registered, registered.length + 1);
+        updated[registered.length] = listener;
+        update(updated);
+    }
+
+    /**
+     * Unregisters a previously registered listener.
+     *
+     * @param listener the listener to unregister.
+     */
+    public static synchronized void unregister(ValidationListener listener) {
+        update(Arrays.stream(registered).filter(l -> l != listener).toArray(ValidationListener[]::new));
+    }
+
+    /**
+     * Gets the listener to be notified by validators.
+     *
+     * @return the listener to notify, or null if no listener is registered.
+     */
+    static ValidationListener current() {
+        return current;
+    }
+
+    private static void update(ValidationListener[] listeners) {
+        registered = listeners;
+        current = listeners.length == 0 ? null
+                : listeners.length == 1 ? listeners[0]
+                : new Broadcaster(listeners);
+    }
+
+    private static final class Broadcaster implements ValidationListener {
+        private final ValidationListener[] listeners;
+
+        private Broadcaster(ValidationListener[] listeners) {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public Object started(AbstractConditionalValidator<?> validator, Messages messages) {
+            Object[] handles = new Object[listeners.length];
+            for (int i = 0; i < listeners.length; i++) {
+                handles[i] = listeners[i].started(validator, messages);
+            }
+            return handles;
+        }
+
+        @Override
+        public void finished(Object handle, AbstractConditionalValidator<?> validator, Messages messages, ValidationOutcome outcome) {
+            Object[] handles = (Object[]) handle;
+            for (int i = listeners.length - 1; i >= 0; i--) {
+                listeners[i].finished(handles[i], validator, messages, outcome);
+            }
+        }
+
+        @Override
+        public Object capture() {
+            Object[] captured = new Object[listeners.length];
+            for (int i = 0; i < listeners.length; i++) {
+                captured[i] = listeners[i].capture();
+            }
+            return captured;
+        }
+
+        @Override
+        public Object attach(Object captured) {
+            Object[] states = (Object[]) captured;
+            Object[] handles = new Object[listeners.length];
+            for (int i = 0; i < listeners.length; i++) {
+                handles[i] = listeners[i].attach(states[i]);
+            }
+            return handles;
+        }
+
+        @Override
+        public void detach(Object handle) {
+            Object[] handles = (Object[]) handle;
+            for (int i = listeners.length - 1; i >= 0; i--) {
+                listeners[i].detach(handles[i]);
+            }
+        }
+    }
+}
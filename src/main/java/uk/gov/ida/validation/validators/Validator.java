@@ -42,4 +42,13 @@ public interface Validator<T> {
      * @return              the messages container in its post-validation state.
      */
     Messages validate(T object, Messages messages);
+
+    /**
+     * Gets a hint of the time this validator takes to run, for planning the cost of validator trees.
+     *
+     * @return the cost hint, which is {@link ValidationCost#MODERATE} unless the validator knows better.
+     */
+    default ValidationCost getCost() {
+        return ValidationCost.MODERATE;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import uk.gov.ida.validation.metrics.ValidationMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Utility operations over trees of validators, as composed by {@link CompositeValidator}.
+ */
+public final class ValidatorTrees {
+    private ValidatorTrees() {}
+
+    /**
+     * Visits every validator of a tree, parents before their children and children in declaration order.
+     *
+     * @param root   the root of the tree.
+     * @param action the action to apply to each validator.
+     */
+    public static void forEach(Validator<?> root, Consumer<Validator<?>> action) {
+        Deque<Validator<?>> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Validator<?> validator = pending.pop();
+            action.accept(validator);
+            if (validator instanceof CompositeValidator) {
+                Validator<?>[] children = ((CompositeValidator<?>) validator).getValidators();
+                for (int i = children.length - 1; i >= 0; i--) {
+                    pending.push(children[i]);
+                }
+            } else if (validator instanceof ValidatorDecorator) {
+                pending.push(((ValidatorDecorator<?>) validator).getValidator());
+            }
+        }
+    }
+
+    /**
+     * Finds the first validator of a tree that is an {@link AbstractValidator} not in
+     * {@link AbstractValidator#setFlyweight(boolean) flyweight} mode, whose messages may depend on the object validated.
+     *
+     * @param root the root of the tree.
+     * @return the first such validator, or null if every validator of the tree is safe to share messages between
+     * objects.
+     */
+    static AbstractValidator<?> findNonFlyweight(Validator<?> root) {
+        AbstractValidator<?>[] found = new AbstractValidator<?>[1];
+        forEach(root, validator -> {
+            if (found[0] == null && validator instanceof AbstractValidator
+                    && !((AbstractValidator<?>) validator).isFlyweight()) {
+                found[0] = (AbstractValidator<?>) validator;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Sets every validator of a tree to report to the given metrics.  Validators without a name of their own report
+     * under a {@link AbstractConditionalValidator#getMetricsName() metrics name} of their default name and their
+     * position in the tree, such as {@code uk.gov.ida.validation.validators.RequiredValidator@0.2}, for the third child
+     * of the first child of the root, so that the metrics of each are kept apart.  The root reports under its default
+     * name.  The validators' own names are left unchanged, and the positional names are removed when the metrics are
+     * set to null.
+     *
+     * @param root    the root of the tree.
+     * @param metrics the metrics every validator of the tree is to report to, or null to report nothing.
+     */
+    public static void setMetrics(Validator<?> root, ValidationMetrics metrics) {
+        Deque<Validator<?>> pending = new ArrayDeque<>();
+        Deque<String> positions = new ArrayDeque<>();
+        pending.push(root);
+        positions.push("");
+        while (!pending.isEmpty()) {
+            Validator<?> validator = pending.pop();
+            String position = positions.pop();
+            if (validator instanceof AbstractConditionalValidator) {
+                AbstractConditionalValidator<?> conditional = (AbstractConditionalValidator<?>) validator;
+                conditional.setMetrics(metrics);
+                conditional.setMetricsName(metrics == null || position.isEmpty() ? null : conditional.getName() + "@" + position);
+            }
+            if (validator instanceof CompositeValidator) {
+                Validator<?>[] children = ((CompositeValidator<?>) validator).getValidators();
+                for (int i = children.length - 1; i >= 0; i--) {
+                    pending.push(children[i]);
+                    positions.push(position.isEmpty() ? Integer.toString(i) : position + "." + i);
+                }
+            } else if (validator instanceof ValidatorDecorator) {
+                pending.push(((ValidatorDecorator<?>) validator).getValidator());
+                positions.push(position);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link ReplayCache}.
+ */
+public class ReplayCacheTest {
+    @Test
+    public void detectsReplayWithinWindow() {
+        // Given
+        ReplayCache cache = new ReplayCache(1, TimeUnit.HOURS, 100);
+
+        // When
+        ReplayCache.Outcome first = cache.record("id");
+        ReplayCache.Outcome second = cache.record("id");
+
+        // Then
+        assertThat(first, is(ReplayCache.Outcome.FIRST_SEEN));
+        assertThat(second, is(ReplayCache.Outcome.REPLAYED));
+        assertThat(cache.contains("id"), is(true));
+        assertThat(cache.contains("other"), is(false));
+        assertThat(cache.size(), is(1L));
+        assertThat(cache.getReplayCount(), is(1L));
+    }
+
+    @Test
+    public void remembersIdsAcrossBucketRotationWithinWindow() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        ReplayCache cache = new ReplayCache(200, TimeUnit.MILLISECONDS, 100, 5, now::get);
+        cache.record("id");
+
+        // When
+        now.addAndGet(199);
+
+        // Then
+        assertThat(cache.record("id"), is(ReplayCache.Outcome.REPLAYED));
+    }
+
+    @Test
+    public void forgetsIdsOnceWindowAndBucketSpanHavePassed() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        ReplayCache cache = new ReplayCache(20, TimeUnit.MILLISECONDS, 100, 2, now::get);
+        cache.record("id");
+
+        // When
+        now.addAndGet(40);
+
+        // Then
+        assertThat(cache.contains("id"), is(false));
+        assertThat(cache.size(), is(0L));
+        assertThat(cache.record("id"), is(ReplayCache.Outcome.FIRST_SEEN));
+    }
+
+    @Test
+    public void retainsNoMoreThanCapacityUnderBurstyRecordings() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        ReplayCache cache = new ReplayCache(30, TimeUnit.MILLISECONDS, 100, 4, now::get);
+        long maxRetained = 0;
+
+        // When
+        for (int burst = 0; burst < 4; burst++) {
+            now.set(burst * 50L);
+            for (int i = 0; i < 100; i++) {
+                assertThat(cache.record("id-" + burst + "-" + i), is(ReplayCache.Outcome.FIRST_SEEN));
+            }
+            maxRetained = Math.max(maxRetained, cache.getRetainedCount());
+        }
+
+        // Then
+        assertThat(maxRetained, is(100L));
+        assertThat(cache.size(), is(100L));
+        assertThat(cache.getFullCount(), is(0L));
+    }
+
+    @Test
+    public void refusesNewIdsWhenFullButStillDetectsReplays() {
+        // Given
+        ReplayCache cache = new ReplayCache(1, TimeUnit.HOURS, 2);
+        cache.record("id1");
+        cache.record("id2");
+
+        // When
+        ReplayCache.Outcome outcome = cache.record("id3");
+
+        // Then
+        assertThat(outcome, is(ReplayCache.Outcome.FULL));
+        assertThat(cache.record("id1"), is(ReplayCache.Outcome.REPLAYED));
+        assertThat(cache.getFullCount(), is(1L));
+        assertThat(cache.size(), is(2L));
+    }
+
+    @Test
+    public void recordingInLaterBucketIsSeenByRecordingStillInEarlierBucket() {
+        // Given
+        AtomicLong now = new AtomicLong(99);
+        AtomicReference<ReplayCache> cacheHolder = new AtomicReference<>();
+        AtomicReference<ReplayCache.Outcome> laterOutcome = new AtomicReference<>();
+        ReplayCache cache = new ReplayCache(1000, TimeUnit.MILLISECONDS, 100, 11, () -> {
+            long time = now.get();
+            if (laterOutcome.get() == null && time == 99) {
+                // Another thread reads the clock in the next bucket, and records the id before this recording does.
+                now.set(100);
+                laterOutcome.set(cacheHolder.get().record("id"));
+            }
+            return time;
+        });
+        cacheHolder.set(cache);
+
+        // When
+        ReplayCache.Outcome earlierOutcome = cache.record("id");
+
+        // Then
+        assertThat(laterOutcome.get(), is(ReplayCache.Outcome.FIRST_SEEN));
+        assertThat(earlierOutcome, is(ReplayCache.Outcome.REPLAYED));
+    }
+
+    @Test
+    public void concurrentRecordingsOfSameIdHaveAtMostOneFirst() throws Exception {
+        // Given
+        ReplayCache cache = new ReplayCache(1, TimeUnit.HOURS, 1_000_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        LongAdder firsts = new LongAdder();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int id = 0; id < 20_000; id++) {
+                    if (cache.record(id) == ReplayCache.Outcome.FIRST_SEEN) {
+                        firsts.increment();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(firsts.sum(), is(20_000L));
+        assertThat(cache.getReplayCount(), is(140_000L));
+        assertThat(cache.size(), is(20_000L));
+    }
+
+    @Test
+    public void recordsManyDistinctIdsAcrossThreads() throws Exception {
+        // Given
+        ReplayCache cache = new ReplayCache(1, TimeUnit.HOURS, 10_000_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            int base = thread * 100_000;
+            futures.add(executor.submit(() -> {
+                for (int id = base; id < base + 100_000; id++) {
+                    assertThat(cache.record("_" + id), is(ReplayCache.Outcome.FIRST_SEEN));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(cache.size(), is(800_000L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSingleBucket() {
+        new ReplayCache(1, TimeUnit.HOURS, 100, 1);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link SegmentedLruCache}.
+ */
+public class SegmentedLruCacheTest {
+    @Test
+    public void answersCachedValuesAndCountsHitsAndMisses() {
+        // Given
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+
+        // When
+        cache.put("key", "value");
+
+        // Then
+        assertThat(cache.get("key"), is("value"));
+        assertThat(cache.get("other"), nullValue());
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void cachesNullKey() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+
+        cache.put(null, "value");
+
+        assertThat(cache.get(null), is("value"));
+    }
+
+    @Test
+    public void boundsSizeByEvictingLeastRecentlyUsed() {
+        // Given
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(4);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+
+        // Then
+        assertThat(cache.size(), is(4));
+        assertThat(cache.getEvictionCount(), is(6L));
+        assertThat(cache.get(0), nullValue());
+        assertThat(cache.get(9), is(9));
+    }
+
+    @Test
+    public void frequentlyUsedEntriesSurviveScanOfOneOffKeys() {
+        // Given
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(10);
+        for (int hot = 0; hot < 5; hot++) {
+            cache.put(hot, hot);
+            cache.get(hot);
+        }
+
+        // When
+        for (int cold = 100; cold < 200; cold++) {
+            cache.put(cold, cold);
+        }
+
+        // Then
+        for (int hot = 0; hot < 5; hot++) {
+            assertThat(cache.get(hot), is(hot));
+        }
+        assertThat(cache.size(), is(10));
+    }
+
+    @Test
+    public void expiresEntriesAfterTimeToLive() throws InterruptedException {
+        // Given
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10, 10, TimeUnit.MILLISECONDS);
+        cache.put("probation", "value");
+        cache.put("protected", "value");
+        cache.get("protected");
+
+        // When
+        Thread.sleep(30);
+
+        // Then
+        assertThat(cache.get("probation"), nullValue());
+        assertThat(cache.get("protected"), nullValue());
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void invalidateAllRemovesEntries() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(1000);
+        cache.put("key", "value");
+
+        cache.invalidateAll();
+
+        assertThat(cache.get("key"), nullValue());
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void remainsBoundedUnderConcurrentUse() throws Exception {
+        // Given
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int key = ThreadLocalRandom.current().nextInt(5000);
+                    Integer value = cache.get(key);
+                    if (value == null) {
+                        cache.put(key, key);
+                    } else {
+                        assertThat(value, is(key));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(cache.size() <= 1000, is(true));
+        assertThat(cache.getHitCount() + cache.getMissCount(), is(160_000L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroCapacity() {
+        new SegmentedLruCache<>(0);
+    }
+}
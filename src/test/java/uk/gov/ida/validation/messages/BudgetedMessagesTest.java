@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link BudgetedMessages}.
+ */
+public class BudgetedMessagesTest {
+    @Test
+    public void haltsOnceErrorBudgetSpent() {
+        // Given
+        Messages delegate = messages();
+        BudgetedMessages messages = BudgetedMessages.stopAfterErrors(delegate, 2);
+
+        // When
+        messages.addWarning("warning", "Warning").addInfo("info", "Info").addError("error1", "Error");
+
+        // Then
+        assertThat(messages.isHalted(), is(false));
+        messages.addFieldError("field", "error2", "Error");
+        assertThat(messages.isHalted(), is(true));
+        assertThat(delegate.getErrorCount(), is(2));
+        assertThat(messages.size(), is(4));
+    }
+
+    @Test
+    public void haltsAtFirstMessageOfSeverity() {
+        // Given
+        BudgetedMessages messages = BudgetedMessages.stopAtSeverity(messages(), Severity.WARNING);
+
+        // When
+        messages.addInfo("info", "Info");
+
+        // Then
+        assertThat(messages.isHalted(), is(false));
+        messages.addWarning(globalMessage("warning", "Warning"));
+        assertThat(messages.isHalted(), is(true));
+    }
+
+    @Test
+    public void haltsAtHigherSeverity() {
+        // Given
+        BudgetedMessages messages = BudgetedMessages.stopAtSeverity(messages(), Severity.WARNING);
+
+        // When
+        messages.addError("error", "Error");
+
+        // Then
+        assertThat(messages.isHalted(), is(true));
+    }
+
+    @Test
+    public void haltsWhenMergedErrorsSpendBudget() {
+        // Given
+        BudgetedMessages messages = BudgetedMessages.stopAfterErrors(messages(), 2);
+
+        // When
+        messages.mergeFrom(messages().addError("error1", "Error").addError("error2", "Error"));
+
+        // Then
+        assertThat(messages.isHalted(), is(true));
+    }
+
+    @Test
+    public void haltedFromConstructionWhenDelegateAlreadyOverBudget() {
+        assertThat(BudgetedMessages.stopAfterErrors(messages().addError("error", "Error"), 1).isHalted(), is(true));
+    }
+
+    @Test
+    public void haltedWhenDelegateHalted() {
+        // Given
+        BudgetedMessages inner = BudgetedMessages.stopAfterErrors(messages(), 1);
+        BudgetedMessages outer = BudgetedMessages.stopAfterErrors(inner, 5);
+
+        // When
+        outer.addError("error", "Error");
+
+        // Then
+        assertThat(outer.isHalted(), is(true));
+    }
+
+    @Test
+    public void forkHaltsOnceRemainingBudgetSpent() {
+        // Given
+        BudgetedMessages messages = BudgetedMessages.stopAfterErrors(messages(), 2);
+        messages.addError("error1", "Error");
+
+        // When
+        Messages fork = messages.fork();
+        fork.addError("error2", "Error");
+
+        // Then
+        assertThat(fork.isHalted(), is(true));
+        assertThat(messages.isHalted(), is(false));
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void forkHaltedWhenParentHalted() {
+        // Given
+        BudgetedMessages messages = BudgetedMessages.stopAtSeverity(messages(), Severity.ERROR);
+        Messages fork = messages.fork();
+
+        // When
+        messages.addError("error", "Error");
+
+        // Then
+        assertThat(fork.isHalted(), is(true));
+        assertThat(fork.size(), is(0));
+    }
+
+    @Test
+    public void addingAnswersDecoratedContainer() {
+        BudgetedMessages messages = BudgetedMessages.stopAfterErrors(messages(), 1);
+
+        assertThat(messages.addInfo("info", "Info", "param"), sameInstance(messages));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyBudget() {
+        BudgetedMessages.stopAfterErrors(messages(), 0);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.CompactMessages.compactMessages;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link CompactMessages}.
+ */
+public class CompactMessagesTest {
+    @Test
+    public void emptyContainer() {
+        CompactMessages messages = compactMessages();
+
+        assertThat(messages.getInfos(), equalTo(Collections.emptyList()));
+        assertThat(messages.getWarnings(), equalTo(Collections.emptyList()));
+        assertThat(messages.getErrors(), equalTo(Collections.emptyList()));
+        assertThat(messages.getMessages(), equalTo(Collections.emptyList()));
+        assertThat(messages.size(), is(0));
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(messages.hasWarnings(), is(false));
+        assertThat(messages.hasInfos(), is(false));
+    }
+
+    @Test
+    public void viewsFilterBySeverity() {
+        // Given
+        Message error = globalMessage("theCode", "theMessage");
+
+        // When
+        CompactMessages messages = compactMessages()
+                .addInfo("info1", "theMessage")
+                .addError(error)
+                .addFieldWarning("theField", "warning1", "theMessage")
+                .addInfo("info2", "theMessage")
+                .addFieldError("theField", "error2", "theMessage", "param");
+
+        // Then
+        assertThat(messages.size(), is(5));
+        assertThat(messages.getErrorCount(), is(2));
+        assertThat(codesOf(messages.getInfos()), equalTo(Arrays.asList("info1", "info2")));
+        assertThat(codesOf(messages.getWarnings()), equalTo(Arrays.asList("warning1")));
+        assertThat(codesOf(messages.getErrors()), equalTo(Arrays.asList("theCode", "error2")));
+        assertThat(messages.getErrors().get(0), sameInstance(error));
+        assertThat(messages.getErrors().get(1).getMessageParameters()[0], equalTo("param"));
+    }
+
+    @Test
+    public void viewsSupportOutOfOrderAccess() {
+        // Given
+        CompactMessages messages = compactMessages();
+        for (int i = 0; i < 10; i++) {
+            messages.addInfo("info" + i, "theMessage").addError("error" + i, "theMessage");
+        }
+
+        // Then
+        assertThat(messages.getErrors().get(7).getCode(), equalTo("error7"));
+        assertThat(messages.getErrors().get(3).getCode(), equalTo("error3"));
+        assertThat(messages.getErrors().get(9).getCode(), equalTo("error9"));
+        assertThat(messages.getErrors().get(0).getCode(), equalTo("error0"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void viewsRejectIndexBeyondSeverityCount() {
+        compactMessages().addInfo("info", "theMessage").getErrors().get(0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewsAreNotModifiable() {
+        compactMessages().getErrors().add(globalMessage("theCode", "theMessage"));
+    }
+
+    @Test
+    public void getMessagesRetainsInsertionOrderAcrossSeverities() {
+        // Given
+        CompactMessages messages = compactMessages()
+                .addError("error", "theMessage")
+                .addInfo("info", "theMessage")
+                .addWarning("warning", "theMessage");
+
+        // Then
+        assertThat(codesOf(messages.getMessages()), equalTo(Arrays.asList("error", "info", "warning")));
+        assertThat(messages.getSeverity(0), is(Severity.ERROR));
+        assertThat(messages.getSeverity(1), is(Severity.INFO));
+        assertThat(messages.getSeverity(2), is(Severity.WARNING));
+    }
+
+    @Test
+    public void resetRemovesAllMessagesAndViewsStayConsistent() {
+        // Given
+        CompactMessages messages = compactMessages().addError("error1", "theMessage").addError("error2", "theMessage");
+        messages.getErrors().get(1);
+
+        // When
+        messages.reset().addInfo("info", "theMessage").addError("error3", "theMessage").addError("error4", "theMessage");
+
+        // Then
+        assertThat(messages.size(), is(3));
+        assertThat(codesOf(messages.getErrors()), equalTo(Arrays.asList("error3", "error4")));
+        assertThat(messages.getErrors().get(1).getCode(), equalTo("error4"));
+    }
+
+    @Test
+    public void mergeFromCompactContainer() {
+        // Given
+        CompactMessages messages = compactMessages().addError("error1", "theMessage");
+        CompactMessages other = compactMessages().addInfo("info", "theMessage").addError("error2", "theMessage");
+
+        // When
+        messages.mergeFrom(other);
+
+        // Then
+        assertThat(messages.size(), is(3));
+        assertThat(codesOf(messages.getMessages()), equalTo(Arrays.asList("error1", "info", "error2")));
+        assertThat(messages.getErrorCount(), is(2));
+        assertThat(messages.hasInfos(), is(true));
+    }
+
+    @Test
+    public void mergeFromOtherContainer() {
+        // Given
+        CompactMessages messages = compactMessages();
+
+        // When
+        messages.mergeFrom(messages().addWarning("warning", "theMessage").addError("error", "theMessage"));
+
+        // Then
+        assertThat(codesOf(messages.getWarnings()), equalTo(Arrays.asList("warning")));
+        assertThat(codesOf(messages.getErrors()), equalTo(Arrays.asList("error")));
+    }
+
+    @Test
+    public void forkAnswersNewEmptyContainer() {
+        CompactMessages messages = compactMessages().addError("theCode", "theMessage");
+
+        assertThat(messages.fork().size(), is(0));
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        CompactMessages messages1 = compactMessages().addInfo("theCode", "theMessage").addError("theCode", "theMessage");
+        CompactMessages messages2 = compactMessages().addInfo("theCode", "theMessage").addError("theCode", "theMessage");
+        CompactMessages messages3 = compactMessages().addError("theCode", "theMessage").addInfo("theCode", "theMessage");
+
+        assertThat(messages1, equalTo(messages2));
+        assertThat(messages1.hashCode(), equalTo(messages2.hashCode()));
+        assertThat(messages1, not(equalTo(messages3)));
+    }
+
+    @Test
+    public void toStringTest() {
+        assertThat(compactMessages().addError("theCode", "theMessage").toString(), containsString("infos=[],warnings=[],errors=[uk.gov.ida.validation.messages.MessageImpl"));
+    }
+
+    private static List<String> codesOf(List<Message> messages) {
+        List<String> codes = new ArrayList<>();
+        messages.forEach(message -> codes.add(message.getCode()));
+        return codes;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.ConcurrentMessages.concurrentMessages;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * Unit tests for {@link ConcurrentMessages}.
+ */
+public class ConcurrentMessagesTest {
+    private static final int MESSAGES_PER_WRITER = 2_000;
+
+    @Test
+    public void emptyContainer() {
+        ConcurrentMessages messages = concurrentMessages();
+
+        assertThat(messages.getInfos(), equalTo(Collections.emptyList()));
+        assertThat(messages.getWarnings(), equalTo(Collections.emptyList()));
+        assertThat(messages.getErrors(), equalTo(Collections.emptyList()));
+        assertThat(messages.size(), is(0));
+        assertThat(messages.getErrorCount(), is(0));
+        assertThat(messages.hasInfos(), is(false));
+        assertThat(messages.hasWarnings(), is(false));
+        assertThat(messages.hasErrors(), is(false));
+    }
+
+    @Test
+    public void addsMessagesOfEachSeverity() {
+        // Given
+        Message message = globalMessage("theCode", "theMessage");
+        ConcurrentMessages messages = concurrentMessages();
+
+        // When
+        messages.addInfo("infoCode", "infoMessage")
+                .addFieldWarning("theField", "warningCode", "warningMessage")
+                .addError(message);
+
+        // Then
+        assertThat(messages.size(), is(3));
+        assertThat(messages.getInfos().size(), is(1));
+        assertThat(messages.getInfos().get(0).getCode(), equalTo("infoCode"));
+        assertThat(messages.getInfos().get(0).getField(), nullValue());
+        assertThat(messages.getWarnings().size(), is(1));
+        assertThat(messages.getWarnings().get(0).getField(), equalTo("theField"));
+        assertThat(messages.getErrors().size(), is(1));
+        assertThat(messages.getErrors().get(0), sameInstance(message));
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void readsPresentMessagesInArrivalOrder() {
+        // Given
+        ConcurrentMessages messages = new ConcurrentMessages(1);
+
+        // When
+        messages.addError("code1", "message1")
+                .addInfo("info", "info")
+                .addError("code2", "message2")
+                .addError("code3", "message3");
+
+        // Then
+        assertThat(codesOf(messages.getErrors()), equalTo(listOf("code1", "code2", "code3")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readsAreNotModifiable() {
+        concurrentMessages().addError("theCode", "theMessage").getErrors().clear();
+    }
+
+    @Test
+    public void hasErrorLike() {
+        ConcurrentMessages messages = concurrentMessages().addFieldError("theField", "theCode", "theMessage");
+
+        assertThat(messages.hasErrorLike(globalMessage("theCode", null)), is(true));
+        assertThat(messages.hasErrorLike(globalMessage("otherCode", null)), is(false));
+    }
+
+    @Test
+    public void concurrentWritersLoseNoMessages() throws Exception {
+        for (int writers : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+            // Given
+            ConcurrentMessages messages = concurrentMessages();
+
+            // When
+            writeConcurrently(messages, writers);
+
+            // Then
+            assertThat(messages.size(), is(writers * MESSAGES_PER_WRITER));
+            assertThat(messages.getErrorCount(), is(writers * MESSAGES_PER_WRITER / 2));
+            assertThat(messages.getErrors().size(), is(writers * MESSAGES_PER_WRITER / 2));
+            assertThat(messages.getWarnings().size(), is(writers * MESSAGES_PER_WRITER / 4));
+            assertThat(messages.getInfos().size(), is(writers * MESSAGES_PER_WRITER / 4));
+        }
+    }
+
+    @Test
+    public void concurrentWritersMessagesRetainEachWritersOrder() throws Exception {
+        // Given
+        int writers = 8;
+        ConcurrentMessages messages = concurrentMessages();
+
+        // When
+        writeConcurrently(messages, writers);
+
+        // Then
+        int[] lastSeen = new int[writers];
+        Arrays.fill(lastSeen, -1);
+        for (Message error : messages.getErrors()) {
+            int writer = (Integer)error.getMessageParameters()[0];
+            int index = (Integer)error.getMessageParameters()[1];
+            assertThat(index > lastSeen[writer], is(true));
+            lastSeen[writer] = index;
+        }
+    }
+
+    @Test
+    public void toStringTest() {
+        assertThat(concurrentMessages().addError("theCode", "theMessage").toString(), containsString("errors=[uk.gov.ida.validation.messages.MessageImpl"));
+    }
+
+    private static void writeConcurrently(ConcurrentMessages messages, int writers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < MESSAGES_PER_WRITER; i++) {
+                        if (i % 2 == 0) {
+                            messages.addError("theCode", "theMessage", writer, i);
+                        } else if (i % 4 == 1) {
+                            messages.addWarning("theCode", "theMessage");
+                        } else {
+                            messages.addInfo("theCode", "theMessage");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> codesOf(List<Message> messages) {
+        List<String> codes = new ArrayList<>();
+        messages.forEach(message -> codes.add(message.getCode()));
+        return codes;
+    }
+
+    private static List<String> listOf(String... values) {
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+import uk.gov.ida.validation.validators.CompositeValidator;
+import uk.gov.ida.validation.validators.Validator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link DeadlineMessages}.
+ */
+public class DeadlineMessagesTest {
+    @Test
+    public void notHaltedBeforeDeadline() {
+        // Given
+        DeadlineMessages messages = DeadlineMessages.withDeadline(messages(), 1, TimeUnit.HOURS);
+
+        // When
+        messages.addWarning("warning", "Warning");
+
+        // Then
+        assertThat(messages.isHalted(), is(false));
+        assertThat(messages.isTimedOut(), is(false));
+        assertThat(messages.getRemainingMillis() > 0, is(true));
+        assertThat(messages.getWarnings().size(), is(1));
+    }
+
+    @Test
+    public void haltsWithSingleTimeoutErrorOnceDeadlinePassed() throws InterruptedException {
+        // Given
+        DeadlineMessages messages = DeadlineMessages.withDeadline(messages(), 10, TimeUnit.MILLISECONDS);
+
+        // When
+        Thread.sleep(30);
+
+        // Then
+        assertThat(messages.isHalted(), is(true));
+        assertThat(messages.isHalted(), is(true));
+        assertThat(messages.isTimedOut(), is(true));
+        assertThat(messages.getRemainingMillis(), is(0L));
+        assertThat(messages.getErrorCount(), is(1));
+        assertThat(messages.getErrors().get(0).getCode(), is(DeadlineMessages.TIMEOUT_MESSAGE_CODE));
+        assertThat(messages.getErrors().get(0).getRenderedMessage(), is("Validation did not complete within 10ms"));
+    }
+
+    @Test
+    public void dropsWarningsAndInfosAfterSoftDeadline() {
+        // Given
+        DeadlineMessages messages = DeadlineMessages.withDeadlines(messages(), 0, 1, TimeUnit.HOURS);
+
+        // When
+        messages.addWarning("warning", "Warning").addFieldInfo("field", "info", "Info").addError("error", "Error");
+        messages.mergeFrom(messages().addWarning("warning", "Warning").addError("error", "Error"));
+
+        // Then
+        assertThat(messages.hasWarnings(), is(false));
+        assertThat(messages.hasInfos(), is(false));
+        assertThat(messages.getErrorCount(), is(2));
+        assertThat(messages.isHalted(), is(false));
+        assertThat(messages.isPastSoftDeadline(), is(true));
+    }
+
+    @Test
+    public void notPastSoftDeadlineWithoutOne() {
+        DeadlineMessages messages = DeadlineMessages.withDeadline(messages(), 1, TimeUnit.HOURS);
+
+        assertThat(messages.isPastSoftDeadline(), is(false));
+    }
+
+    @Test
+    public void compositeStopsBetweenChildrenOnceDeadlinePassed() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        Validator<Object> slow = (object, messages) -> {
+            runs.incrementAndGet();
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(15);
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+            return messages;
+        };
+        CompositeValidator<Object> composite = new CompositeValidator<>(slow, new CompositeValidator<>(slow, slow), slow, slow);
+
+        // When
+        Messages messages = composite.validate(new Object(), DeadlineMessages.withDeadline(messages(), 20, TimeUnit.MILLISECONDS));
+
+        // Then
+        assertThat(runs.get() < 5, is(true));
+        assertThat(messages.hasErrorCode(DeadlineMessages.TIMEOUT_MESSAGE_CODE), is(true));
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSoftTimeoutAfterTimeout() {
+        DeadlineMessages.withDeadlines(messages(), 2, 1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link FieldPath}.
+ */
+public class FieldPathTest {
+    @Test
+    public void rendersNamedAndIndexedSegments() {
+        // Given
+        FieldPath path = FieldPath.of("response").child("assertions").index(2).child("subject");
+
+        // Then
+        assertThat(path.toString(), is("response.assertions[2].subject"));
+        assertThat(FieldPath.ofIndex(0).child("postcode").toString(), is("[0].postcode"));
+        assertThat(path.toString(), sameInstance(path.toString()));
+    }
+
+    @Test
+    public void hashCodeIsThatOfRenderedPath() {
+        // Given
+        FieldPath path = FieldPath.of("response").child("assertions").index(12);
+
+        // Then
+        assertThat(path.hashCode(), is("response.assertions[12]".hashCode()));
+        assertThat(path.resolvedHashCode("nameId"), is("response.assertions[12].nameId".hashCode()));
+        assertThat(path.resolvedHashCode(null), is(path.hashCode()));
+    }
+
+    @Test
+    public void resolvesFieldBeneathPath() {
+        FieldPath path = FieldPath.of("subject");
+
+        assertThat(path.resolve("nameId"), is("subject.nameId"));
+        assertThat(path.resolve(null), is("subject"));
+    }
+
+    @Test
+    public void rebasesPathBeneathAnotherRoot() {
+        // Given
+        FieldPath root = FieldPath.of("root");
+        FieldPath path = root.child("subject").index(2);
+
+        // When
+        FieldPath moved = path.rebase(root, FieldPath.of("assertion").child("conditions"));
+        FieldPath detached = path.rebase(root, null);
+
+        // Then
+        assertThat(moved.toString(), is("assertion.conditions.subject[2]"));
+        assertThat(moved.hashCode(), is("assertion.conditions.subject[2]".hashCode()));
+        assertThat(detached.toString(), is("subject[2]"));
+        assertThat(root.rebase(root, null), nullValue());
+        assertThat(path.rebase(FieldPath.of("root"), null), sameInstance(path));
+    }
+
+    @Test
+    public void equalPathsHaveSameRendering() {
+        assertThat(FieldPath.of("a").child("b"), is(FieldPath.of("a").child("b")));
+        assertThat(FieldPath.of("a").child("b"), not(FieldPath.of("a").index(0)));
+    }
+
+    @Test
+    public void currentPathIsPerThread() throws InterruptedException {
+        // Given
+        FieldPath path = FieldPath.of("assertion");
+        FieldPath[] seenByOtherThread = new FieldPath[1];
+        FieldPath.setCurrent(path);
+        try {
+            // When
+            Thread other = new Thread(() -> seenByOtherThread[0] = FieldPath.current());
+            other.start();
+            other.join();
+
+            // Then
+            assertThat(FieldPath.current(), sameInstance(path));
+            assertThat(seenByOtherThread[0], nullValue());
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link ForwardingMessages}.
+ */
+public class ForwardingMessagesTest {
+    @Test
+    public void forwardsToDelegateAndNotifiesSeverities() {
+        // Given
+        Messages delegate = messages();
+        List<Severity> added = new ArrayList<>();
+        ForwardingMessages messages = new ForwardingMessages(delegate) {
+            @Override
+            protected void added(Severity severity) {
+                added.add(severity);
+            }
+        };
+
+        // When
+        Messages returned = messages
+                .addError("error", "Error")
+                .addFieldWarning("field", "warning", "Warning {0}", "param")
+                .addInfo(globalMessage("info", "Info"));
+
+        // Then
+        assertThat(returned, sameInstance(messages));
+        assertThat(messages.getDelegate(), sameInstance(delegate));
+        assertThat(added, equalTo(Arrays.asList(Severity.ERROR, Severity.WARNING, Severity.INFO)));
+        assertThat(delegate.size(), is(3));
+        assertThat(messages.getErrors(), equalTo(delegate.getErrors()));
+        assertThat(messages.getWarnings(), equalTo(delegate.getWarnings()));
+        assertThat(messages.getInfos(), equalTo(delegate.getInfos()));
+        assertThat(messages.hasErrorCode("error"), is(true));
+        assertThat(messages.getErrorCount(), is(1));
+        assertThat(messages.isHalted(), is(false));
+    }
+
+    @Test
+    public void mergeNotifiesEachSeverityMerged() {
+        // Given
+        List<Severity> added = new ArrayList<>();
+        ForwardingMessages messages = new ForwardingMessages(messages()) {
+            @Override
+            protected void added(Severity severity) {
+                added.add(severity);
+            }
+        };
+
+        // When
+        messages.mergeFrom(messages().addInfo("info", "Info").addError("error", "Error"));
+
+        // Then
+        assertThat(added, equalTo(Arrays.asList(Severity.INFO, Severity.ERROR)));
+        assertThat(messages.size(), is(2));
+    }
+
+    @Test
+    public void forkAcceptsAndHaltsAsParentDoes() {
+        // Given
+        AtomicBoolean halted = new AtomicBoolean();
+        ForwardingMessages messages = new ForwardingMessages(messages()) {
+            @Override
+            protected boolean accepts(Severity severity) {
+                return severity == Severity.ERROR;
+            }
+
+            @Override
+            public boolean isHalted() {
+                return halted.get();
+            }
+        };
+
+        // When
+        Messages fork = messages.fork();
+        fork.addWarning("warning", "Warning").addError("error", "Error");
+        halted.set(true);
+
+        // Then
+        assertThat(fork.size(), is(1));
+        assertThat(fork.isHalted(), is(true));
+        assertThat(messages.size(), is(0));
+    }
+}
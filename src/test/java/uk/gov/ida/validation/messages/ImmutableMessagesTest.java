@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.ImmutableMessages.snapshotOf;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link ImmutableMessages}.
+ */
+public class ImmutableMessagesTest {
+    @Test
+    public void snapshotOfEmptyContainerIsEmpty() {
+        assertThat(snapshotOf(messages()), sameInstance(ImmutableMessages.EMPTY));
+        assertThat(ImmutableMessages.EMPTY.size(), is(0));
+        assertThat(ImmutableMessages.EMPTY.getErrors(), equalTo(Collections.emptyList()));
+    }
+
+    @Test
+    public void snapshotOfSnapshotIsSameInstance() {
+        ImmutableMessages snapshot = snapshotOf(messages().addError("theCode", "theMessage"));
+
+        assertThat(snapshotOf(snapshot), sameInstance(snapshot));
+    }
+
+    @Test
+    public void snapshotHoldsMessagesOfEachSeverity() {
+        // Given
+        MessagesImpl messages = messages()
+                .addInfo("info", "theMessage")
+                .addWarning("warning", "theMessage")
+                .addError("error", "theMessage");
+
+        // When
+        ImmutableMessages snapshot = snapshotOf(messages);
+
+        // Then
+        assertThat(snapshot.size(), is(3));
+        assertThat(snapshot.getInfos(), equalTo(messages.getInfos()));
+        assertThat(snapshot.getWarnings(), equalTo(messages.getWarnings()));
+        assertThat(snapshot.getErrors(), equalTo(messages.getErrors()));
+        assertThat(snapshot.hasInfos(), is(true));
+        assertThat(snapshot.hasWarnings(), is(true));
+        assertThat(snapshot.hasErrors(), is(true));
+        assertThat(snapshot.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void mergeAnswersNewSnapshotLeavingOperandsUnchanged() {
+        // Given
+        ImmutableMessages first = snapshotOf(messages().addError("error1", "theMessage"));
+        ImmutableMessages second = snapshotOf(messages().addError("error2", "theMessage").addInfo("info", "theMessage"));
+
+        // When
+        ImmutableMessages merged = first.merge(second);
+
+        // Then
+        assertThat(merged.getErrors().size(), is(2));
+        assertThat(merged.getErrors().get(0).getCode(), equalTo("error1"));
+        assertThat(merged.getErrors().get(1).getCode(), equalTo("error2"));
+        assertThat(merged.getInfos().size(), is(1));
+        assertThat(first.size(), is(1));
+        assertThat(second.size(), is(2));
+    }
+
+    @Test
+    public void mergeWithEmptyAnswersOtherOperand() {
+        ImmutableMessages snapshot = snapshotOf(messages().addError("theCode", "theMessage"));
+
+        assertThat(snapshot.merge(ImmutableMessages.EMPTY), sameInstance(snapshot));
+        assertThat(ImmutableMessages.EMPTY.merge(snapshot), sameInstance(snapshot));
+    }
+
+    @Test
+    public void canBeReplayedIntoAnotherContainer() {
+        // Given
+        ImmutableMessages snapshot = snapshotOf(messages().addError("theCode", "theMessage"));
+        MessagesImpl messages = messages();
+
+        // When
+        messages.mergeFrom(snapshot).mergeFrom(snapshot);
+
+        // Then
+        assertThat(messages.getErrors().size(), is(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cannotAddMessages() {
+        ImmutableMessages.EMPTY.addError("theCode", "theMessage");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void listsAreNotModifiable() {
+        snapshotOf(messages().addError("theCode", "theMessage")).getErrors().clear();
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        ImmutableMessages snapshot1 = snapshotOf(messages().addError("theCode", "theMessage"));
+        ImmutableMessages snapshot2 = snapshotOf(messages().addError("theCode", "theMessage"));
+
+        assertThat(snapshot1, equalTo(snapshot2));
+        assertThat(snapshot1.hashCode(), equalTo(snapshot2.hashCode()));
+        assertThat(snapshot1, not(equalTo(ImmutableMessages.EMPTY)));
+    }
+}
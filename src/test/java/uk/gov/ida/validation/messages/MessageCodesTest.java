@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link MessageCodes}.
+ */
+public class MessageCodesTest {
+    @Test
+    public void registerAnswersSameIdForSameCode() {
+        int id = MessageCodes.register("MessageCodesTest.code1");
+
+        assertThat(MessageCodes.register("MessageCodesTest.code1"), is(id));
+        assertThat(MessageCodes.register(new String("MessageCodesTest.code1")), is(id));
+        assertThat(MessageCodes.idOf("MessageCodesTest.code1"), is(id));
+        assertThat(MessageCodes.codeOf(id), equalTo("MessageCodesTest.code1"));
+    }
+
+    @Test
+    public void registerAnswersDistinctIdsForDistinctCodes() {
+        assertThat(MessageCodes.register("MessageCodesTest.code2"), not(MessageCodes.register("MessageCodesTest.code3")));
+    }
+
+    @Test
+    public void nullAndUnseenCodesAreUnregistered() {
+        assertThat(MessageCodes.register(null), is(MessageCodes.UNREGISTERED));
+        assertThat(MessageCodes.idOf(null), is(MessageCodes.UNREGISTERED));
+        assertThat(MessageCodes.idOf("MessageCodesTest.neverRegistered"), is(MessageCodes.UNREGISTERED));
+        assertThat(MessageCodes.codeOf(MessageCodes.UNREGISTERED), nullValue());
+        assertThat(MessageCodes.codeOf(Integer.MAX_VALUE), nullValue());
+    }
+
+    @Test
+    public void registryGrowsBeyondInitialCapacity() {
+        for (int i = 0; i < 200; i++) {
+            int id = MessageCodes.register("MessageCodesTest.growth" + i);
+            assertThat(MessageCodes.codeOf(id), equalTo("MessageCodesTest.growth" + i));
+        }
+    }
+
+    @Test
+    public void codesOf() {
+        BitSet ids = new BitSet();
+        ids.set(MessageCodes.register("MessageCodesTest.code4"));
+        ids.set(MessageCodes.register("MessageCodesTest.code5"));
+
+        assertThat(MessageCodes.codesOf(ids), equalTo(new String[] {"MessageCodesTest.code4", "MessageCodesTest.code5"}));
+    }
+}
@@ -28,6 +28,9 @@ package uk.gov.ida.validation.messages;
 import org.junit.Test;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 import static org.hamcrest.CoreMatchers.containsString;
@@ -39,6 +42,7 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
 import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.pathMessage;
 
 /**
  * Unit tests for {@link @{@link MessageImpl}.
@@ -201,10 +205,35 @@ public class MessageImplTest {
         MessageImpl message = fieldMessage("theField","theCode", "theMessage", param1);
 
         // Then
-        assertThat(message.hashCode(), equalTo(Objects.hash(message.getField(),
+        assertThat(message.hashCode(), equalTo(31 * Objects.hash(message.getField(),
                 message.getCode(),
-                message.getParameterisedMessage(),
-                message.getMessageParameters())));
+                message.getParameterisedMessage()) + Arrays.hashCode(message.getMessageParameters())));
+    }
+
+    @Test
+    public void hashCodeConsistentWithEqualsForDistinctParameterArrays() {
+        // Given
+        MessageImpl message1 = fieldMessage("theField", "theCode", "theMessage", "param1", 1234L);
+        MessageImpl message2 = fieldMessage("theField", "theCode", "theMessage", "param1", 1234L);
+
+        // Then
+        assertThat(message1, equalTo(message2));
+        assertThat(message1.hashCode(), equalTo(message2.hashCode()));
+    }
+
+    @Test
+    public void hashCodeReflectsParametersAtTimeOfCall() {
+        // Given
+        List<String> values = new ArrayList<>();
+        MessageImpl message = fieldMessage("theField", "theCode", "theMessage", values);
+        int before = message.hashCode();
+
+        // When
+        values.add("value");
+
+        // Then
+        assertThat(message.hashCode() == before, is(false));
+        assertThat(message.hashCode(), equalTo(fieldMessage("theField", "theCode", "theMessage", new ArrayList<>(values)).hashCode()));
     }
 
     @Test
@@ -220,4 +249,46 @@ public class MessageImplTest {
         assertThat(message.toString(), containsString("parameterisedMessage=theMessage"));
         assertThat(message.toString(), containsString("messageParameters={This is param1}"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void pathMessageRendersFieldBeneathPath() {
+        // Given
+        MessageImpl message = pathMessage(FieldPath.of("assertion").child("subject"), "nameId", "theCode", "theMessage");
+
+        // Then
+        assertThat(message.getField(), is("assertion.subject.nameId"));
+        assertThat(message.getField(), sameInstance(message.getField()));
+    }
+
+    @Test
+    public void pathMessageEqualsFlatMessageWithSameRenderedField() {
+        // Given
+        MessageImpl pathed = pathMessage(FieldPath.of("addresses").index(3), "postcode", "theCode", "theMessage", "param");
+        MessageImpl flat = fieldMessage("addresses[3].postcode", "theCode", "theMessage", "param");
+
+        // Then
+        assertThat(pathed.hashCode(), is(flat.hashCode()));
+        assertThat(pathed, equalTo(flat));
+        assertThat(flat, equalTo(pathed));
+    }
+
+    @Test
+    public void messagesCreatedWhilePathCurrentLieBeneathIt() {
+        // Given
+        FieldPath.setCurrent(FieldPath.of("assertion"));
+        MessageImpl field;
+        MessageImpl global;
+        try {
+            // When
+            field = fieldMessage("id", "theCode", "theMessage");
+            global = globalMessage("theCode", "theMessage");
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+
+        // Then
+        assertThat(field.getField(), is("assertion.id"));
+        assertThat(global.getField(), is("assertion"));
+        assertThat(fieldMessage("id", "theCode", "theMessage").getPath(), nullValue());
+    }
+}
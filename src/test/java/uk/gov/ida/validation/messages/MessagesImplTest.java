@@ -27,6 +27,7 @@ package uk.gov.ida.validation.messages;
 
 import org.junit.Test;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -381,6 +382,248 @@ public class MessagesImplTest {
                            .size(), is(3));
     }
 
+    @Test
+    public void getErrorCount() {
+        assertThat(messages().getErrorCount(), is(0));
+        assertThat(messages().addInfo("theCode", "theMessage").getErrorCount(), is(0));
+        assertThat(messages()
+                           .addError("theCode", "theMessage")
+                           .addError("theCode", "theMessage")
+                           .getErrorCount(), is(2));
+    }
+
+    @Test
+    public void forkAnswersNewEmptyContainer() {
+        // Given
+        MessagesImpl messages = messages().addError("theCode", "theMessage");
+
+        // When
+        MessagesImpl fork = messages.fork();
+
+        // Then
+        assertThat(fork == messages, is(false));
+        assertThat(fork.size(), is(0));
+    }
+
+    @Test
+    public void mergeFromAppendsMessagesOfEachSeverityInOrder() {
+        // Given
+        MessagesImpl messages = messages().addError("error1", "theMessage");
+        MessagesImpl other = messages()
+                .addInfo("info1", "theMessage")
+                .addWarning("warning1", "theMessage")
+                .addError("error2", "theMessage")
+                .addError("error3", "theMessage");
+
+        // When
+        MessagesImpl returned = messages.mergeFrom(other);
+
+        // Then
+        assertThat(returned, sameInstance(messages));
+        assertThat(messages.size(), is(5));
+        assertThat(messages.getInfos().get(0).getCode(), equalTo("info1"));
+        assertThat(messages.getWarnings().get(0).getCode(), equalTo("warning1"));
+        assertThat(messages.getErrors().get(0).getCode(), equalTo("error1"));
+        assertThat(messages.getErrors().get(1).getCode(), equalTo("error2"));
+        assertThat(messages.getErrors().get(2).getCode(), equalTo("error3"));
+    }
+
+    @Test
+    public void mergeFromDoesNotShareStorageWithSource() {
+        // Given
+        MessagesImpl messages = messages();
+        MessagesImpl other = messages().addError("error1", "theMessage");
+
+        // When
+        messages.mergeFrom(other);
+        other.addError("error2", "theMessage");
+
+        // Then
+        assertThat(messages.getErrors().size(), is(1));
+    }
+
+    @Test
+    public void mergeFromEmptyLeavesContainerUnchanged() {
+        // Given
+        MessagesImpl messages = messages();
+
+        // When
+        messages.mergeFrom(messages());
+
+        // Then
+        assertThat(messages.toString(), containsString("infos=<null>,warnings=<null>,errors=<null>"));
+    }
+
+    @Test
+    public void snapshotIsUnaffectedByLaterAdditions() {
+        // Given
+        MessagesImpl messages = messages().addError("error1", "theMessage");
+
+        // When
+        ImmutableMessages snapshot = messages.snapshot();
+        messages.addError("error2", "theMessage");
+
+        // Then
+        assertThat(snapshot.getErrors().size(), is(1));
+        assertThat(snapshot.getErrors().get(0).getCode(), equalTo("error1"));
+    }
+
+    @Test
+    public void resetRemovesAllMessages() {
+        // Given
+        MessagesImpl messages = messages()
+                .addInfo("theCode", "theMessage")
+                .addWarning("theCode", "theMessage")
+                .addError("theCode", "theMessage");
+
+        // When
+        MessagesImpl returned = messages.reset();
+
+        // Then
+        assertThat(returned, sameInstance(messages));
+        assertThat(messages.size(), is(0));
+        assertThat(messages.hasInfos(), is(false));
+        assertThat(messages.hasWarnings(), is(false));
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(messages, equalTo(messages().reset()));
+    }
+
+    @Test
+    public void resetRetainsStorage() {
+        // Given
+        MessagesImpl messages = messages().addError("theCode", "theMessage");
+        List<Message> errors = messages.getErrors();
+
+        // When
+        messages.reset().addError("anotherCode", "theMessage");
+
+        // Then
+        assertThat(messages.getErrors(), sameInstance(errors));
+        assertThat(errors.size(), is(1));
+    }
+
+    @Test
+    public void hasErrorCode() {
+        // Given
+        MessagesImpl messages = messages()
+                .addWarning("warningCode", "theMessage")
+                .addError("errorCode", "theMessage");
+
+        // Then
+        assertThat(messages.hasErrorCode("errorCode"), is(true));
+        assertThat(messages.hasErrorCode("warningCode"), is(false));
+        assertThat(messages.hasErrorCode("neverSeenCode"), is(false));
+        assertThat(messages.hasErrorCode(null), is(false));
+    }
+
+    @Test
+    public void hasCodeReflectsMessagesAddedAfterFirstQuery() {
+        // Given
+        MessagesImpl messages = messages();
+        assertThat(messages.hasCode(Severity.WARNING, "warningCode"), is(false));
+
+        // When
+        messages.addWarning("warningCode", "theMessage");
+
+        // Then
+        assertThat(messages.hasCode(Severity.WARNING, "warningCode"), is(true));
+        assertThat(messages.hasCode(Severity.INFO, "warningCode"), is(false));
+    }
+
+    @Test
+    public void hasCodeReflectsMergedMessagesAndReset() {
+        // Given
+        MessagesImpl messages = messages();
+        assertThat(messages.hasErrorCode("errorCode"), is(false));
+
+        // When
+        messages.mergeFrom(messages().addError("errorCode", "theMessage"));
+
+        // Then
+        assertThat(messages.hasErrorCode("errorCode"), is(true));
+        assertThat(messages.reset().hasErrorCode("errorCode"), is(false));
+    }
+
+    @Test
+    public void hasCodeForMessagesSuppliedOnConstruction() {
+        // Given
+        MessagesImpl messages = new MessagesImpl(null, null, Collections.singletonList(globalMessage("errorCode", "theMessage")));
+
+        // Then
+        assertThat(messages.hasErrorCode("errorCode"), is(true));
+    }
+
+    @Test
+    public void getCodeIdsAnswersIndependentCopy() {
+        // Given
+        MessageCodes.register("errorCode1");
+        MessageCodes.register("errorCode2");
+        MessagesImpl messages = messages().addError("errorCode1", "theMessage").addError("errorCode2", "theMessage");
+
+        // When
+        BitSet ids = messages.getCodeIds(Severity.ERROR);
+        ids.clear();
+
+        // Then
+        assertThat(messages.getCodeIds(Severity.ERROR).cardinality(), is(2));
+        assertThat(messages.getCodeIds(Severity.ERROR).get(MessageCodes.idOf("errorCode1")), is(true));
+        assertThat(messages.getCodeIds(Severity.INFO).isEmpty(), is(true));
+    }
+
+    @Test
+    public void queryingCodesDoesNotRegisterThem() {
+        // Given
+        MessagesImpl messages = messages().addError("MessagesImplTest.unregisteredCode", "theMessage");
+
+        // When
+        boolean found = messages.hasErrorCode("MessagesImplTest.unregisteredCode");
+
+        // Then
+        assertThat(found, is(true));
+        assertThat(messages.hasErrorCode("MessagesImplTest.otherCode"), is(false));
+        assertThat(MessageCodes.idOf("MessagesImplTest.unregisteredCode"), is(MessageCodes.UNREGISTERED));
+        assertThat(messages.getCodeIds(Severity.ERROR).isEmpty(), is(true));
+    }
+
+    @Test
+    public void hasCodeFindsCodeRegisteredAfterIndexing() {
+        // Given
+        MessagesImpl messages = messages().addError("MessagesImplTest.lateCode", "theMessage");
+        assertThat(messages.hasErrorCode("anotherCode"), is(false));
+
+        // When
+        MessageCodes.register("MessagesImplTest.lateCode");
+
+        // Then
+        assertThat(messages.hasErrorCode("MessagesImplTest.lateCode"), is(true));
+    }
+
+    @Test
+    public void hasCodeReflectsListsModifiedDirectly() {
+        // Given
+        MessageCodes.register("errorCode");
+        MessagesImpl messages = messages().addError("errorCode", "theMessage");
+        assertThat(messages.hasErrorCode("errorCode"), is(true));
+
+        // When
+        messages.getErrors().clear();
+
+        // Then
+        assertThat(messages.hasErrorCode("errorCode"), is(false));
+    }
+
+    @Test
+    public void hasErrorLike() {
+        // Given
+        MessagesImpl messages = messages().addFieldError("theField", "theCode", "theMessage");
+
+        // Then
+        assertThat(messages.hasErrorLike(globalMessage("theCode", null)), is(true));
+        assertThat(messages.hasErrorLike(MessageImpl.fieldMessage("theField", null, null)), is(true));
+        assertThat(messages.hasErrorLike(MessageImpl.fieldMessage("otherField", "theCode", null)), is(false));
+        assertThat(messages.hasErrorLike(globalMessage("otherCode", null)), is(false));
+    }
+
     @Test
     public void hasInfos() {
         assertThat(messages().hasInfos(), is(false));
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.messages;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link MessagesPool} and its implementations.
+ */
+public class MessagesPoolTest {
+    @Test
+    public void boundedPoolCreatesContainerWhenEmpty() {
+        assertThat(MessagesPool.bounded(1).acquire(), notNullValue());
+    }
+
+    @Test
+    public void boundedPoolRecyclesReleasedContainerEmptied() {
+        // Given
+        MessagesPool pool = MessagesPool.bounded(2);
+        MessagesImpl messages = pool.acquire().addError("theCode", "theMessage");
+
+        // When
+        pool.release(messages);
+        MessagesImpl reacquired = pool.acquire();
+
+        // Then
+        assertThat(reacquired, sameInstance(messages));
+        assertThat(reacquired.size(), is(0));
+    }
+
+    @Test
+    public void boundedPoolRetainsAtMostCapacity() {
+        // Given
+        BoundedMessagesPool pool = new BoundedMessagesPool(1);
+
+        // When
+        pool.release(new MessagesImpl());
+        pool.release(new MessagesImpl());
+
+        // Then
+        assertThat(pool.getIdleCount(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedPoolRejectsNonPositiveCapacity() {
+        new BoundedMessagesPool(0);
+    }
+
+    @Test
+    public void threadLocalPoolRecyclesReleasedContainerEmptied() {
+        // Given
+        MessagesPool pool = MessagesPool.threadLocal();
+        MessagesImpl messages = pool.acquire().addError("theCode", "theMessage");
+
+        // When
+        pool.release(messages);
+        MessagesImpl reacquired = pool.acquire();
+
+        // Then
+        assertThat(reacquired, sameInstance(messages));
+        assertThat(reacquired.size(), is(0));
+        assertThat(pool.acquire(), not(sameInstance(messages)));
+    }
+
+    @Test
+    public void threadLocalPoolDoesNotShareContainersBetweenThreads() throws Exception {
+        // Given
+        MessagesPool pool = MessagesPool.threadLocal();
+        MessagesImpl messages = pool.acquire();
+        pool.release(messages);
+        AtomicReference<MessagesImpl> acquiredElsewhere = new AtomicReference<>();
+
+        // When
+        Thread thread = new Thread(() -> acquiredElsewhere.set(pool.acquire()));
+        thread.start();
+        thread.join();
+
+        // Then
+        assertThat(acquiredElsewhere.get(), not(sameInstance(messages)));
+        assertThat(pool.acquire(), sameInstance(messages));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link HistogramReporter}.
+ */
+public class HistogramReporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportExportsAndResetsEachHistogram() {
+        // Given
+        Map<String, HistogramSnapshot> exported = new ConcurrentHashMap<>();
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        HistogramReporter reporter = new HistogramReporter(exported::put).register("theHistogram", histogram);
+
+        // When
+        reporter.report();
+
+        // Then
+        assertThat(exported.get("theHistogram").getCount(), is(1L));
+        assertThat(histogram.getCount(), is(0L));
+    }
+
+    @Test
+    public void reportIncludesValidatorsRecordedByMetrics() {
+        // Given
+        Map<String, HistogramSnapshot> exported = new ConcurrentHashMap<>();
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        HistogramReporter reporter = new HistogramReporter(exported::put).registerAll(metrics);
+        metrics.recordOutcome("theValidator", true, 100);
+
+        // When
+        reporter.report();
+
+        // Then
+        assertThat(exported.get("theValidator").getCount(), is(1L));
+    }
+
+    @Test
+    public void toFileAppendsLinePerSnapshot() throws Exception {
+        // Given
+        Path file = folder.getRoot().toPath().resolve("histograms.txt");
+        LatencyHistogram histogram = new LatencyHistogram();
+        HistogramReporter reporter = new HistogramReporter(HistogramReporter.toFile(file)).register("theHistogram", histogram);
+
+        // When
+        histogram.record(10);
+        reporter.report();
+        reporter.report();
+
+        // Then
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines.size(), is(2));
+        assertThat(lines.get(0), containsString(" theHistogram count=1 min=10"));
+        assertThat(lines.get(1), containsString(" theHistogram count=0"));
+    }
+
+    @Test
+    public void startReportsPeriodicallyUntilClosed() throws Exception {
+        // Given
+        CountDownLatch reports = new CountDownLatch(2);
+        HistogramReporter reporter = new HistogramReporter((name, snapshot) -> reports.countDown())
+                .register("theHistogram", new LatencyHistogram());
+
+        // When
+        try (HistogramReporter started = reporter.start(10, TimeUnit.MILLISECONDS)) {
+            // Then
+            assertThat(reports.await(10, TimeUnit.SECONDS), is(true));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotStartTwice() {
+        try (HistogramReporter reporter = new HistogramReporter((name, snapshot) -> {})) {
+            reporter.start(1, TimeUnit.HOURS);
+            reporter.start(1, TimeUnit.HOURS);
+        }
+    }
+
+    @Test
+    public void countsAndHandsOnFailedReports() {
+        // Given
+        IllegalStateException failure = new IllegalStateException("Sink unavailable");
+        List<RuntimeException> handled = new ArrayList<>();
+        HistogramReporter reporter = new HistogramReporter((name, snapshot) -> {
+            throw failure;
+        }).register("theHistogram", new LatencyHistogram());
+        reporter.setFailureHandler(handled::add);
+
+        // When
+        reporter.reportQuietly();
+        reporter.reportQuietly();
+
+        // Then
+        assertThat(reporter.getFailureCount(), is(2L));
+        assertThat(reporter.getLastFailure(), sameInstance((RuntimeException) failure));
+        assertThat(handled.size(), is(2));
+    }
+
+    @Test
+    public void noFailuresBeforeAnyReportFails() {
+        HistogramReporter reporter = new HistogramReporter((name, snapshot) -> { });
+
+        reporter.reportQuietly();
+
+        assertThat(reporter.getFailureCount(), is(0L));
+        assertThat(reporter.getLastFailure(), nullValue());
+    }
+}
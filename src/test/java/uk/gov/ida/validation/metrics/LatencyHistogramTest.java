@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link LatencyHistogram} and {@link HistogramSnapshot}.
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void emptyHistogram() {
+        HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.getCount(), is(0L));
+        assertThat(snapshot.getMin(), is(0L));
+        assertThat(snapshot.getMax(), is(0L));
+        assertThat(snapshot.getMean(), is(0.0));
+        assertThat(snapshot.getPercentile(99), is(0L));
+    }
+
+    @Test
+    public void bucketsCoverEveryValueContiguously() {
+        assertThat(LatencyHistogram.lowestValueOf(0), is(0L));
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long lowest = LatencyHistogram.lowestValueOf(bucket);
+            assertThat(lowest, is(LatencyHistogram.highestValueOf(bucket - 1) + 1));
+            assertThat(LatencyHistogram.bucketOf(lowest), is(bucket));
+            assertThat(LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(bucket)), is(bucket));
+        }
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void percentilesAreWithinRelativeErrorBound() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long value = 1; value <= 1_000_000; value++) histogram.record(value * 1_000);
+
+        // Then
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(1_000_000L));
+        assertWithinRelativeError(snapshot.getPercentile(50), 500_000_000L);
+        assertWithinRelativeError(snapshot.getPercentile(99), 990_000_000L);
+        assertWithinRelativeError(snapshot.getPercentile(99.9), 999_000_000L);
+        assertThat(snapshot.getPercentile(100), is(1_000_000_000L));
+        assertThat(snapshot.getMin(), is(1_000L));
+        assertThat(snapshot.getMax(), is(1_000_000_000L));
+    }
+
+    @Test
+    public void recordsNegativeAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-1);
+
+        assertThat(histogram.getPercentile(50), is(0L));
+        assertThat(histogram.getCount(), is(1L));
+    }
+
+    @Test
+    public void snapshotAndResetStartsNewInterval() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(200);
+
+        // When
+        HistogramSnapshot first = histogram.snapshotAndReset();
+        histogram.record(300);
+        HistogramSnapshot second = histogram.snapshot();
+
+        // Then
+        assertThat(first.getCount(), is(2L));
+        assertThat(first.getMean(), is(150.0));
+        assertThat(second.getCount(), is(1L));
+        assertThat(second.getMin(), is(300L));
+    }
+
+    @Test
+    public void recordsConcurrentlyWithoutLoss() throws Exception {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) histogram.record(i);
+            });
+        }
+
+        // When
+        long snapshotted = 0;
+        for (Thread thread : threads) thread.start();
+        for (int i = 0; i < 10; i++) snapshotted += histogram.snapshotAndReset().getCount();
+        for (Thread thread : threads) thread.join();
+        snapshotted += histogram.snapshotAndReset().getCount();
+
+        // Then
+        assertThat(snapshotted, is(80_000L));
+    }
+
+    @Test
+    public void summary() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+
+        assertThat(histogram.snapshot().summary(), is("count=1 min=10 mean=10.0 p50=10 p90=10 p99=10 p999=10 max=10"));
+    }
+
+    private static void assertWithinRelativeError(long actual, long expected) {
+        assertThat(Math.abs(actual - expected) <= expected / 16, is(true));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link StripedValidationMetrics}.
+ */
+public class StripedValidationMetricsTest {
+    @Test
+    public void noneIsDisabled() {
+        assertThat(ValidationMetrics.none().isEnabled(), is(false));
+    }
+
+    @Test
+    public void isEnabled() {
+        assertThat(new StripedValidationMetrics().isEnabled(), is(true));
+    }
+
+    @Test
+    public void recordsPerValidatorName() {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+
+        // When
+        metrics.recordSkipped("validator1");
+        metrics.recordOutcome("validator1", true, 100);
+        metrics.recordOutcome("validator1", false, 200);
+        metrics.recordOutcome("validator1", false, 300);
+        metrics.recordOutcome("validator2", true, 100);
+
+        // Then
+        ValidatorStats stats = metrics.getStats("validator1");
+        assertThat(stats.getInvocations(), is(4L));
+        assertThat(stats.getSkipped(), is(1L));
+        assertThat(stats.getPassed(), is(1L));
+        assertThat(stats.getFailed(), is(2L));
+        assertThat(stats.getLatency().getCount(), is(3L));
+        assertThat(metrics.getStats("validator2").getInvocations(), is(1L));
+        assertThat(metrics.getAllStats().size(), is(2));
+    }
+
+    @Test
+    public void unknownValidatorHasNoStats() {
+        assertThat(new StripedValidationMetrics().getStats("unknown"), nullValue());
+    }
+
+    @Test
+    public void recordsConcurrently() throws Exception {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.recordOutcome("validator", i % 2 == 0, i);
+                }
+            });
+        }
+
+        // When
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        // Then
+        assertThat(metrics.getStats("validator").getInvocations(), is(80_000L));
+        assertThat(metrics.getStats("validator").getPassed(), is(40_000L));
+        assertThat(metrics.getStats("validator").getLatency().getCount(), is(80_000L));
+    }
+
+    @Test
+    public void recordsEventCounts() {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+
+        // When
+        metrics.recordEvent("validator", "reordered");
+        metrics.recordEvent("validator", "reordered");
+        metrics.recordEvent("validator", "other");
+
+        // Then
+        ValidatorStats stats = metrics.getStats("validator");
+        assertThat(stats.getEventCount("reordered"), is(2L));
+        assertThat(stats.getEventCount("unknown"), is(0L));
+        assertThat(stats.getEventCounts().toString(), is("{other=1, reordered=2}"));
+        assertThat(stats.getInvocations(), is(0L));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import org.junit.Test;
+import uk.gov.ida.validation.validators.ValidationOutcome;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link AsyncTraceExporter}.
+ */
+public class AsyncTraceExporterTest {
+    private final TraceSpan root = span();
+
+    @Test
+    public void exportsOnBackgroundThread() throws InterruptedException {
+        // Given
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        AsyncTraceExporter exporter = new AsyncTraceExporter((span, start) -> threads.add(Thread.currentThread()), 4);
+
+        // When
+        exporter.export(root, 0);
+        exporter.export(root, 0);
+
+        // Then
+        assertThat(exporter.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(threads.size(), is(2));
+        assertThat(threads.get(0) == Thread.currentThread(), is(false));
+    }
+
+    @Test
+    public void dropsTracesWhenQueueIsFull() throws InterruptedException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncTraceExporter exporter = new AsyncTraceExporter((span, start) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1);
+        exporter.export(root, 0);
+        started.await();
+
+        // When
+        exporter.export(root, 0);
+        exporter.export(root, 0);
+        exporter.export(root, 0);
+        release.countDown();
+
+        // Then
+        assertThat(exporter.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(exporter.getDroppedCount(), is(2L));
+    }
+
+    @Test
+    public void countsFailedExports() throws InterruptedException {
+        // Given
+        AsyncTraceExporter exporter = new AsyncTraceExporter((span, start) -> {
+            throw new IllegalStateException("Collector unavailable");
+        }, 4);
+
+        // When
+        exporter.export(root, 0);
+        exporter.export(root, 0);
+
+        // Then
+        assertThat(exporter.close(10, TimeUnit.SECONDS), is(true));
+        assertThat(exporter.getFailureCount(), is(2L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        new AsyncTraceExporter((span, start) -> { }, 0);
+    }
+
+    private static TraceSpan span() {
+        TraceSpan span = new TraceSpan(null, "request", null, 0);
+        span.finish(1, ValidationOutcome.PASSED);
+        return span;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.gov.ida.validation.validators.CompositeValidator;
+import uk.gov.ida.validation.validators.FixedErrorValidator;
+import uk.gov.ida.validation.validators.RequiredValidator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link OtlpJsonExporter}.
+ */
+public class OtlpJsonExporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> lines = new ArrayList<>();
+
+    private ValidationTracer tracer;
+
+    @After
+    public void uninstallTracer() {
+        if (tracer != null) {
+            tracer.uninstall();
+        }
+    }
+
+    @Test
+    public void rendersSpansWithParentsAttributesAndEvents() {
+        // Given
+        tracer = new ValidationTracer(new OtlpJsonExporter("theService", lines::add), 1.0).install();
+        RequiredValidator<Object> required = new RequiredValidator<>(fieldMessage("theField", "required", "Required \"value\""));
+        required.setName("required");
+        CompositeValidator<Object> composite = new CompositeValidator<>(required);
+        composite.setName("composite");
+
+        // When
+        tracer.trace("request", composite, null, messages());
+
+        // Then
+        assertThat(lines.size(), is(1));
+        String json = lines.get(0);
+        assertThat(json, startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\",\"value\":{\"stringValue\":\"theService\"}}]}"));
+        assertThat(json, containsString("\"parentSpanId\":\"\",\"name\":\"request\""));
+        assertThat(json, containsString("\"name\":\"composite\""));
+        assertThat(json, containsString("{\"key\":\"validation.validator.class\",\"value\":{\"stringValue\":\"" + RequiredValidator.class.getName() + "\"}}"));
+        assertThat(json, containsString("{\"key\":\"validation.outcome\",\"value\":{\"stringValue\":\"FAILED\"}}"));
+        assertThat(json, containsString("{\"key\":\"validation.message.text\",\"value\":{\"stringValue\":\"Required \\\"value\\\"\"}}"));
+        assertThat(json, containsString("\"status\":{\"code\":2}"));
+
+        List<String> traceIds = matches(json, "\"traceId\":\"([0-9a-f]{32})\"");
+        List<String> spanIds = matches(json, "\"spanId\":\"([0-9a-f]{16})\"");
+        List<String> parentSpanIds = matches(json, "\"parentSpanId\":\"([0-9a-f]{16})\"");
+        assertThat(traceIds.size(), is(3));
+        assertThat(traceIds.stream().distinct().count(), is(1L));
+        assertThat(spanIds.size(), is(3));
+        assertThat(parentSpanIds.get(0), is(spanIds.get(0)));
+        assertThat(parentSpanIds.get(1), is(spanIds.get(1)));
+    }
+
+    @Test
+    public void rendersSkippedSpanAsConditionNotMet() {
+        // Given
+        tracer = new ValidationTracer(new OtlpJsonExporter("theService", lines::add), 1.0).install();
+        FixedErrorValidator<Object> skipped = new FixedErrorValidator<>(o -> false, "skipped", "Skipped");
+
+        // When
+        tracer.trace("request", skipped, null, messages());
+
+        // Then
+        assertThat(lines.get(0), containsString("{\"key\":\"validation.condition.met\",\"value\":{\"boolValue\":false}}"));
+        assertThat(lines.get(0), containsString("\"status\":{\"code\":1}"));
+    }
+
+    @Test
+    public void appendsLinePerTraceToFile() throws Exception {
+        // Given
+        Path file = folder.getRoot().toPath().resolve("traces.json");
+        tracer = new ValidationTracer(OtlpJsonExporter.toFile("theService", file), 1.0).install();
+
+        // When
+        tracer.trace("first", new RequiredValidator<>(), "value", messages());
+        tracer.trace("second", new RequiredValidator<>(), "value", messages());
+
+        // Then
+        List<String> written = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(written.size(), is(2));
+        assertThat(written.get(0), containsString("\"name\":\"first\""));
+        assertThat(written.get(1), containsString("\"name\":\"second\""));
+    }
+
+    private static List<String> matches(String json, String regex) {
+        List<String> found = new ArrayList<>();
+        Matcher matcher = Pattern.compile(regex).matcher(json);
+        while (matcher.find()) {
+            found.add(matcher.group(1));
+        }
+        return found;
+    }
+}
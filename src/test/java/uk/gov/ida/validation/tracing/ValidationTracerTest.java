@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.tracing;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.messages.Severity;
+import uk.gov.ida.validation.validators.CompositeValidator;
+import uk.gov.ida.validation.validators.EachElementValidator;
+import uk.gov.ida.validation.validators.FixedErrorValidator;
+import uk.gov.ida.validation.validators.RequiredValidator;
+import uk.gov.ida.validation.validators.ValidationOutcome;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link ValidationTracer}.
+ */
+public class ValidationTracerTest {
+    private final List<TraceSpan> exported = new ArrayList<>();
+    private final ValidationTracer tracer = new ValidationTracer((root, startEpochNanos) -> exported.add(root), 1.0);
+
+    @After
+    public void uninstallTracer() {
+        tracer.uninstall();
+    }
+
+    @Test
+    public void recordsSpanTreeWithOutcomesAndMessages() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>(fieldMessage("theField", "required", "Required"));
+        required.setName("required");
+        FixedErrorValidator<Object> skipped = new FixedErrorValidator<>(o -> false, "skipped", "Skipped");
+        skipped.setName("skipped");
+        CompositeValidator<Object> composite = new CompositeValidator<>(required, skipped);
+        composite.setName("composite");
+        tracer.install();
+
+        // When
+        Messages messages = tracer.trace("request", composite, null, messages());
+
+        // Then
+        assertThat(messages.getErrors().size(), is(1));
+        assertThat(exported.size(), is(1));
+        TraceSpan root = exported.get(0);
+        assertThat(root.getName(), is("request"));
+        assertThat(root.getValidatorClass(), nullValue());
+        assertThat(root.getOutcome(), is(ValidationOutcome.FAILED));
+        assertThat(root.getChildren().size(), is(1));
+
+        TraceSpan compositeSpan = root.getChildren().get(0);
+        assertThat(compositeSpan.getName(), is("composite"));
+        assertThat(compositeSpan.getValidatorClass(), equalTo((Object) CompositeValidator.class));
+        assertThat(compositeSpan.getMessages().isEmpty(), is(true));
+        assertThat(compositeSpan.getChildren().size(), is(2));
+
+        TraceSpan requiredSpan = compositeSpan.getChildren().get(0);
+        assertThat(requiredSpan.getOutcome(), is(ValidationOutcome.FAILED));
+        assertThat(requiredSpan.getMessages(), equalTo(messages.getErrors()));
+        assertThat(requiredSpan.getSeverities(), equalTo(Collections.singletonList(Severity.ERROR)));
+        assertThat(requiredSpan.getStartNanos() >= compositeSpan.getStartNanos(), is(true));
+        assertThat(requiredSpan.getEndNanos() >= requiredSpan.getStartNanos(), is(true));
+
+        TraceSpan skippedSpan = compositeSpan.getChildren().get(1);
+        assertThat(skippedSpan.getName(), is("skipped"));
+        assertThat(skippedSpan.getOutcome(), is(ValidationOutcome.SKIPPED));
+        assertThat(skippedSpan.getMessages().isEmpty(), is(true));
+        assertThat(compositeSpan.getEndNanos() >= skippedSpan.getEndNanos(), is(true));
+    }
+
+    @Test
+    public void ignoresValidationsOutsideTrace() {
+        // Given
+        tracer.install();
+
+        // When
+        new RequiredValidator<>().validate(null, messages());
+
+        // Then
+        assertThat(exported.isEmpty(), is(true));
+    }
+
+    @Test
+    public void nestedTraceFormsPartOfOuterTrace() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setName("required");
+        tracer.install();
+
+        // When
+        tracer.trace("outer", (object, messages) -> tracer.trace("inner", required, object, messages), "value", messages());
+
+        // Then
+        assertThat(exported.size(), is(1));
+        assertThat(exported.get(0).getName(), is("outer"));
+        assertThat(exported.get(0).getChildren().get(0).getName(), is("required"));
+        assertThat(tracer.getSampledCount(), is(1L));
+    }
+
+    @Test
+    public void tracesNothingAtZeroSampleRate() {
+        // Given
+        ValidationTracer unsampledTracer = new ValidationTracer((root, startEpochNanos) -> exported.add(root), 0.0);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            unsampledTracer.trace("request", new RequiredValidator<>(), null, messages());
+        }
+
+        // Then
+        assertThat(exported.isEmpty(), is(true));
+        assertThat(unsampledTracer.getSampledCount(), is(0L));
+        assertThat(unsampledTracer.getUnsampledCount(), is(100L));
+    }
+
+    @Test
+    public void tracesApproximatelyTheSampleRate() {
+        // Given
+        ValidationTracer sampledTracer = new ValidationTracer((root, startEpochNanos) -> exported.add(root), 0.1);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            sampledTracer.trace("request", new RequiredValidator<>(), "value", messages());
+        }
+
+        // Then
+        assertThat(exported.size() > 700 && exported.size() < 1300, is(true));
+        assertThat(sampledTracer.getSampledCount() + sampledTracer.getUnsampledCount(), is(10_000L));
+    }
+
+    @Test
+    public void failingExporterDoesNotAffectValidationResult() {
+        // Given
+        ValidationTracer failingTracer = new ValidationTracer((root, startEpochNanos) -> {
+            throw new UncheckedIOException(new IOException("Disk full"));
+        }, 1.0);
+        Messages messages = messages();
+
+        // When
+        Messages result = failingTracer.trace("request", new RequiredValidator<>(), null, messages);
+
+        // Then
+        assertThat(result == messages, is(true));
+        assertThat(result.getErrors().size(), is(1));
+        assertThat(failingTracer.getExportFailureCount(), is(1L));
+    }
+
+    @Test
+    public void recordsParallelElementValidationBeneathBranchSpans() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setName("required");
+        EachElementValidator<List<Object>, Object> each = new EachElementValidator<>("values", null, required);
+        each.setName("each");
+        each.setParallel(new ForkJoinPool(4), 10);
+        tracer.install();
+
+        // When
+        Messages messages = tracer.trace("request", each, Collections.nCopies(100, null), messages());
+
+        // Then
+        assertThat(messages.getErrors().size(), is(100));
+        TraceSpan eachSpan = exported.get(0).getChildren().get(0);
+        assertThat(eachSpan.getName(), is("each"));
+        int requiredSpans = 0;
+        for (TraceSpan branch : eachSpan.getChildren()) {
+            assertThat(branch.getName(), is(ValidationTracer.BRANCH_SPAN_NAME));
+            assertThat(branch.getOutcome(), is(ValidationOutcome.FAILED));
+            for (TraceSpan span : branch.getChildren()) {
+                assertThat(span.getName(), is("required"));
+                requiredSpans++;
+            }
+        }
+        assertThat(requiredSpans, is(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSampleRateAboveOne() {
+        new ValidationTracer((root, startEpochNanos) -> {}, 1.5);
+    }
+}
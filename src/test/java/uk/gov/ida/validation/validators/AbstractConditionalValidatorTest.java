@@ -27,6 +27,9 @@ package uk.gov.ida.validation.validators;
 
 import org.junit.Test;
 import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.metrics.StripedValidationMetrics;
+import uk.gov.ida.validation.metrics.ValidationMetrics;
+import uk.gov.ida.validation.metrics.ValidatorStats;
 import uk.gov.ida.validation.validators.AbstractConditionalValidator;
 
 import java.util.function.Predicate;
@@ -40,6 +43,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
 
 /**
  * Unit tests for {@link AbstractConditionalValidator}.
@@ -154,4 +160,90 @@ public class AbstractConditionalValidatorTest {
             }
         }.toString(), containsString("condition="));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void nameDefaultsToClassAndMessage() {
+        // Given
+        AbstractConditionalValidator<Object> validator = new RequiredValidator<>(fieldMessage("nameId", "nameId.required", "theMessage"));
+
+        // Then
+        assertThat(validator.getName(), is(RequiredValidator.class.getName() + "[nameId:nameId.required]"));
+        assertThat(new RequiredValidator<>(globalMessage("theCode", "theMessage")).getName(),
+                   is(RequiredValidator.class.getName() + "[theCode]"));
+        assertThat(new CompositeValidator<>().getName(), is(CompositeValidator.class.getName()));
+
+        // When
+        validator.setName("theName");
+
+        // Then
+        assertThat(validator.getName(), is("theName"));
+    }
+
+    @Test
+    public void metricsDefaultToNone() {
+        // Given
+        AbstractConditionalValidator<Object> validator = new RequiredValidator<>();
+
+        // Then
+        assertThat(validator.getMetrics(), sameInstance(ValidationMetrics.none()));
+
+        // When
+        validator.setMetrics(null);
+
+        // Then
+        assertThat(validator.getMetrics(), sameInstance(ValidationMetrics.none()));
+    }
+
+    @Test
+    public void validateReportsOutcomesAndSkipsToMetrics() {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        AbstractConditionalValidator<Object> validator = new RequiredValidator<>(o -> !"skip".equals(o),
+                                                                                 globalMessage("theCode", "theMessage"));
+        validator.setName("required");
+        validator.setMetrics(metrics);
+
+        // When
+        validator.validate("value", messages());
+        validator.validate(null, messages());
+        validator.validate(null, messages());
+        validator.validate("skip", messages());
+
+        // Then
+        ValidatorStats stats = metrics.getStats("required");
+        assertThat(stats.getInvocations(), is(4L));
+        assertThat(stats.getPassed(), is(1L));
+        assertThat(stats.getFailed(), is(2L));
+        assertThat(stats.getSkipped(), is(1L));
+        assertThat(stats.getLatency().getCount(), is(3L));
+    }
+
+    @Test
+    public void costHintOverridesEstimate() {
+        // Given
+        AbstractConditionalValidator<Object> validator = new RequiredValidator<>();
+
+        // When
+        validator.setCost(ValidationCost.ofNanos(1234));
+
+        // Then
+        assertThat(validator.getCost(), is(ValidationCost.ofNanos(1234)));
+    }
+
+    @Test
+    public void costEstimateIsModerateByDefault() {
+        // Given
+        AbstractConditionalValidator<Object> validator = new AbstractConditionalValidator<Object>() {
+            @Override
+            protected Messages doValidate(Object object, Messages messages) {
+                return messages;
+            }
+        };
+
+        // When
+        validator.setCost(null);
+
+        // Then
+        assertThat(validator.getCost(), is(ValidationCost.MODERATE));
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link AbstractLookupValidator}, consulting an in-memory stand-in for an entity status registry.
+ */
+public class AbstractLookupValidatorTest {
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    private final StandInRegistry registry = new StandInRegistry();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void passesKnownActiveEntity() {
+        // Given
+        registry.statuses.put("https://idp", "active");
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+
+        // When
+        Messages messages = validator.validate("https://idp", messages());
+
+        // Then
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(registry.calls.get(), is(1));
+    }
+
+    @Test
+    public void failsInactiveAndUnknownEntities() {
+        // Given
+        registry.statuses.put("https://idp", "suspended");
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+
+        // When
+        Messages suspended = validator.validate("https://idp", messages());
+        Messages unknown = validator.validate("https://unknown", messages());
+
+        // Then
+        assertThat(suspended.getErrors().get(0).getCode(), is("entity.inactive"));
+        assertThat(unknown.getErrors().get(0).getCode(), is("entity.inactive"));
+    }
+
+    @Test
+    public void ignoresNullKey() {
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+
+        assertThat(validator.validate(null, messages()).hasErrors(), is(false));
+        assertThat(registry.calls.get(), is(0));
+    }
+
+    @Test
+    public void cachesFoundAndNotFoundKeys() {
+        // Given
+        registry.statuses.put("https://idp", "active");
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+        validator.setPositiveCache(100, 1, TimeUnit.HOURS);
+        validator.setNegativeCache(100, 1, TimeUnit.HOURS);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            validator.validate("https://idp", messages());
+        }
+        Messages unknown = null;
+        for (int i = 0; i < 5; i++) {
+            unknown = validator.validate("https://unknown", messages());
+        }
+
+        // Then
+        assertThat(registry.calls.get(), is(2));
+        assertThat(unknown.hasErrors(), is(true));
+    }
+
+    @Test
+    public void fallsBackWhenLookupTimesOut() {
+        // Given
+        registry.latencyMillis = 500;
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+        validator.setTimeout(10, TimeUnit.MILLISECONDS);
+
+        // When
+        Messages messages = validator.validate("https://idp", messages());
+
+        // Then
+        assertThat(messages.getErrors().get(0).getCode(), is(AbstractLookupValidator.FALLBACK_MESSAGE_CODE));
+    }
+
+    @Test
+    public void abandonsCallThatNeverCompletesAndMakesTheNext() {
+        // Given
+        registry.statuses.put("https://idp", "active");
+        AtomicInteger calls = new AtomicInteger();
+        EntityStatusValidator validator = new EntityStatusValidator(keys ->
+                calls.incrementAndGet() == 1 ? new CompletableFuture<>() : registry.lookup(keys));
+        validator.setTimeout(50, TimeUnit.MILLISECONDS);
+        Messages stuck = validator.validate("https://idp", messages());
+
+        // When
+        Messages messages = validator.validate("https://idp", messages());
+
+        // Then
+        assertThat(stuck.getErrors().get(0).getCode(), is(AbstractLookupValidator.FALLBACK_MESSAGE_CODE));
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(calls.get(), is(2));
+    }
+
+    @Test
+    public void recordsFailureOfTrialLookupCancelledByClient() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        CompletableFuture<Map<String, String>> cancelled = new CompletableFuture<>();
+        cancelled.cancel(false);
+        EntityStatusValidator validator = new EntityStatusValidator(keys -> cancelled);
+        validator.setCircuitBreaker(new CircuitBreaker(1, 20, TimeUnit.MILLISECONDS, now::get));
+        Messages first = validator.validate("https://idp", messages());
+
+        // When
+        now.addAndGet(20);
+        Messages trial = validator.validate("https://idp", messages());
+
+        // Then
+        assertThat(first.getErrors().get(0).getCode(), is(AbstractLookupValidator.FALLBACK_MESSAGE_CODE));
+        assertThat(trial.getErrors().get(0).getCode(), is(AbstractLookupValidator.FALLBACK_MESSAGE_CODE));
+        assertThat(validator.getCircuitBreaker().getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void opensCircuitAfterRepeatedFailuresAndFailsFast() {
+        // Given
+        registry.failing = true;
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+        validator.setCircuitBreaker(new CircuitBreaker(3, 1, TimeUnit.HOURS));
+        validator.setFallbackMessage(globalMessage("registry.down", "Registry unavailable"));
+
+        // When
+        List<Messages> outcomes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            outcomes.add(validator.validate("https://idp", messages()));
+        }
+
+        // Then
+        assertThat(registry.calls.get(), is(3));
+        assertThat(validator.getCircuitBreaker().getState(), is(CircuitBreaker.State.OPEN));
+        for (Messages messages : outcomes) {
+            assertThat(messages.getErrors().get(0).getCode(), is("registry.down"));
+        }
+    }
+
+    @Test
+    public void closesCircuitOnceTrialLookupSucceeds() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        registry.statuses.put("https://idp", "active");
+        registry.failing = true;
+        EntityStatusValidator validator = new EntityStatusValidator(registry);
+        validator.setCircuitBreaker(new CircuitBreaker(1, 20, TimeUnit.MILLISECONDS, now::get));
+        validator.validate("https://idp", messages());
+        registry.failing = false;
+
+        // When
+        now.addAndGet(20);
+        Messages messages = validator.validate("https://idp", messages());
+
+        // Then
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(validator.getCircuitBreaker().getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(registry.calls.get(), is(2));
+    }
+
+    @Test
+    public void unbatchedLookupsCallServiceOncePerKey() throws Exception {
+        // Given
+        registry.latencyMillis = 1;
+        EntityStatusValidator unbatched = new EntityStatusValidator(registry);
+        unbatched.setBatching(1, 1);
+
+        // When
+        runConcurrentLookups(unbatched);
+
+        // Then
+        assertThat(unbatched.getCallCount(), is(320L));
+        assertThat(registry.batchSizes.stream().allMatch(size -> size == 1), is(true));
+    }
+
+    @Test
+    public void batchedLookupsSendEveryKeyOnceWithinBatchSize() throws Exception {
+        // Given
+        registry.latencyMillis = 1;
+        EntityStatusValidator batched = new EntityStatusValidator(registry);
+        batched.setBatching(8, 1);
+
+        // When
+        runConcurrentLookups(batched);
+
+        // Then
+        assertThat(batched.getCallCount(), is((long) registry.batchSizes.size()));
+        assertThat(registry.batchSizes.stream().mapToInt(Integer::intValue).sum(), is(320));
+        assertThat(registry.batchSizes.stream().allMatch(size -> size >= 1 && size <= 8), is(true));
+    }
+
+    private void runConcurrentLookups(EntityStatusValidator validator) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 16; thread++) {
+            int base = thread * 20;
+            futures.add(executor.submit(() -> {
+                for (int entity = base; entity < base + 20; entity++) {
+                    assertThat(validator.validate("https://entity/" + entity, messages()).getErrorCount(), is(1));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    private static class EntityStatusValidator extends AbstractLookupValidator<String, String, String> {
+        EntityStatusValidator(LookupClient<String, String> client) {
+            super(globalMessage("entity.inactive", "Entity is not active"), Function.identity(), client);
+        }
+
+        @Override
+        protected boolean isValid(String key, String value) {
+            return "active".equals(value);
+        }
+    }
+
+    private class StandInRegistry implements LookupClient<String, String> {
+        private final Map<String, String> statuses = new HashMap<>();
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        private volatile long latencyMillis;
+
+        private volatile boolean failing;
+
+        @Override
+        public CompletableFuture<Map<String, String>> lookup(Set<String> keys) {
+            calls.incrementAndGet();
+            batchSizes.add(keys.size());
+            CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+            Runnable respond = () -> {
+                if (failing) {
+                    result.completeExceptionally(new IllegalStateException("Registry unavailable"));
+                    return;
+                }
+                Map<String, String> found = new HashMap<>();
+                for (String key : keys) {
+                    if (statuses.containsKey(key)) {
+                        found.put(key, statuses.get(key));
+                    }
+                }
+                result.complete(found);
+            };
+            if (latencyMillis > 0) {
+                scheduler.schedule(respond, latencyMillis, TimeUnit.MILLISECONDS);
+            } else {
+                respond.run();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link CachingValidator}.
+ */
+public class CachingValidatorTest {
+    @Test
+    public void replaysCachedMessagesWithoutRunningValidator() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        Validator<String> validator = (object, messages) -> {
+            runs.incrementAndGet();
+            return messages.addWarning("warning", "Warning").addError("error", "Error");
+        };
+        CachingValidator<String> caching = new CachingValidator<>(validator, Function.identity(), 10);
+        Messages first = messages().addInfo("existing", "Existing");
+
+        // When
+        Messages returned = caching.validate("key", first);
+        Messages second = caching.validate("key", messages());
+
+        // Then
+        assertThat(returned, sameInstance(first));
+        assertThat(first.size(), is(3));
+        assertThat(second.getErrors(), equalTo(first.getErrors()));
+        assertThat(second.getWarnings(), equalTo(first.getWarnings()));
+        assertThat(runs.get(), is(1));
+        assertThat(caching.getHitCount(), is(1L));
+        assertThat(caching.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void keysOnValueProvidedToPredicatedValidator() {
+        // Given
+        PatternValidator<TestBean> pattern = new PatternValidator<>(globalMessage("pattern", "Invalid"), TestBean::getStringProperty, "[a-z]+");
+        pattern.setFlyweight(true);
+        CachingValidator<TestBean> caching = new CachingValidator<>(pattern, 10);
+
+        // When
+        Messages invalid = caching.validate(bean("ABC"), messages());
+        Messages invalidAgain = caching.validate(bean("ABC"), messages());
+        Messages valid = caching.validate(bean("abc"), messages());
+
+        // Then
+        assertThat(invalid.getErrorCount(), is(1));
+        assertThat(invalidAgain.getErrors(), equalTo(invalid.getErrors()));
+        assertThat(valid.hasErrors(), is(false));
+        assertThat(caching.getHitCount(), is(1L));
+        assertThat(caching.getMissCount(), is(2L));
+    }
+
+    @Test
+    public void rerunsValidatorOnceOutcomeExpires() throws InterruptedException {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        CachingValidator<String> caching = new CachingValidator<>((object, messages) -> {
+            runs.incrementAndGet();
+            return messages;
+        }, Function.identity(), 10, 10, TimeUnit.MILLISECONDS);
+        caching.validate("key", messages());
+
+        // When
+        Thread.sleep(30);
+        caching.validate("key", messages());
+
+        // Then
+        assertThat(runs.get(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsValidatorNotInFlyweightMode() {
+        PatternValidator<TestBean> pattern = new PatternValidator<>(globalMessage("pattern", "Invalid"), TestBean::getStringProperty, "[a-z]+");
+
+        new CachingValidator<>(pattern, TestBean::getStringProperty, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCompositeHoldingValidatorNotInFlyweightMode() {
+        RequiredValidator<TestBean> required = new RequiredValidator<>(globalMessage("required", "Required"), TestBean::getStringProperty);
+        required.setFlyweight(true);
+        PatternValidator<TestBean> pattern = new PatternValidator<>(globalMessage("pattern", "Invalid"), TestBean::getStringProperty, "[a-z]+");
+
+        new CachingValidator<>(new CompositeValidator<>(required, pattern), TestBean::getStringProperty, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDecoratorOfValidatorNotInFlyweightMode() {
+        PatternValidator<TestBean> pattern = new PatternValidator<>(globalMessage("pattern", "Invalid"), TestBean::getStringProperty, "[a-z]+");
+
+        new CachingValidator<>(new TimedValidator<>(pattern), TestBean::getStringProperty, 10);
+    }
+
+    @Test
+    public void stopsCachingOnceValidatorLeavesFlyweightMode() {
+        // Given
+        PatternValidator<TestBean> pattern = new PatternValidator<>(globalMessage("pattern", "Invalid {0}"), TestBean::getStringProperty, "[a-z]+");
+        pattern.setFlyweight(true);
+        CachingValidator<TestBean> caching = new CachingValidator<>(new CompositeValidator<>(pattern), TestBean::getStringProperty, 10);
+
+        // When
+        pattern.setFlyweight(false);
+        Messages first = caching.validate(bean("ABC"), messages());
+        Messages second = caching.validate(bean("ABC"), messages());
+
+        // Then
+        assertThat(caching.getHitCount(), is(0L));
+        assertThat(caching.getCache().size(), is(0));
+        assertThat(first.getErrorCount(), is(1));
+        assertThat(second.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void replaysCachedMessagesBeneathPathCurrentAtReplay() {
+        // Given
+        PatternValidator<TestBean> pattern = new PatternValidator<>(fieldMessage("value", "pattern", "Invalid"), TestBean::getStringProperty, "[a-z]+");
+        pattern.setFlyweight(true);
+        CompositeValidator<TestBean> nested = new CompositeValidator<>(pattern);
+        nested.setPathSegment("nested");
+        CachingValidator<TestBean> caching = new CachingValidator<>(nested, TestBean::getStringProperty, 10);
+
+        // When
+        Messages subject = validateBeneath(FieldPath.of("subject"), caching, bean("ABC"));
+        Messages issuer = validateBeneath(FieldPath.of("issuer"), caching, bean("ABC"));
+        Messages unpathed = caching.validate(bean("ABC"), messages());
+
+        // Then
+        assertThat(caching.getHitCount(), is(2L));
+        assertThat(subject.getErrors().get(0).getField(), is("subject.nested.value"));
+        assertThat(issuer.getErrors().get(0).getField(), is("issuer.nested.value"));
+        assertThat(unpathed.getErrors().get(0).getField(), is("nested.value"));
+    }
+
+    @Test
+    public void costReflectsHitRate() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setFlyweight(true);
+        required.setCost(ValidationCost.ofNanos(10_050));
+        CachingValidator<Object> caching = new CachingValidator<>(required, 10);
+        assertThat(caching.getCost(), is(required.getCost()));
+
+        // When
+        caching.validate("key", messages());
+        caching.validate("key", messages());
+
+        // Then
+        assertThat(caching.getCost().getNanos(), is(ValidationCost.CHEAP.getNanos() + 5025));
+    }
+
+    @Test
+    public void treeTraversalDescendsIntoCachedValidator() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setFlyweight(true);
+        CachingValidator<Object> caching = new CachingValidator<>(required, 10);
+        AtomicInteger visited = new AtomicInteger();
+
+        // When
+        ValidatorTrees.forEach(new CompositeValidator<>(caching), validator -> visited.incrementAndGet());
+
+        // Then
+        assertThat(visited.get(), is(3));
+        assertThat(caching.getValidator(), sameInstance((Validator<Object>) required));
+    }
+
+    @Test
+    public void avoidsMostRunsForSkewedKeys() {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        PatternValidator<String> pattern = new PatternValidator<String>(globalMessage("pattern", "Invalid"), "https://[a-z.]+/acs") {
+            {
+                setFlyweight(true);
+            }
+        };
+        CachingValidator<String> caching = new CachingValidator<>((object, messages) -> {
+            runs.incrementAndGet();
+            return pattern.validate(object, messages);
+        }, Function.identity(), 1000);
+        String[] keys = new String[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "https://sp" + i + ".example/acs";
+        }
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 50_000; i++) {
+            caching.validate(keys[zipf(random, keys.length)], messages());
+        }
+
+        // Then
+        assertThat(caching.getHitCount() + caching.getMissCount(), is(50_000L));
+        assertThat(runs.get() < 20_000, is(true));
+    }
+
+    /**
+     * Draws an index from a distribution with density proportional to 1/x, approximating the Zipf-like skew of the
+     * entity ids and endpoints seen in production.
+     */
+    private static int zipf(Random random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(n))) - 1);
+    }
+
+    private static TestBean bean(String value) {
+        return new TestBean(value);
+    }
+
+    private static Messages validateBeneath(FieldPath path, Validator<TestBean> validator, TestBean bean) {
+        FieldPath.setCurrent(path);
+        try {
+            return validator.validate(bean, messages());
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.HOURS);
+
+        // When
+        breaker.recordFailure();
+        boolean allowedAfterOne = breaker.allowRequest();
+        breaker.recordFailure();
+
+        // Then
+        assertThat(allowedAfterOne, is(true));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.allowRequest(), is(false));
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.HOURS);
+
+        // When
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+
+        // Then
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void allowsSingleTrialOnceOpenDurationHasPassed() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(1, 20, TimeUnit.MILLISECONDS, now::get);
+        breaker.recordFailure();
+        now.addAndGet(19);
+        boolean allowedBeforeOpenDuration = breaker.allowRequest();
+
+        // When
+        now.addAndGet(1);
+
+        // Then
+        assertThat(allowedBeforeOpenDuration, is(false));
+        assertThat(breaker.allowRequest(), is(true));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        assertThat(breaker.allowRequest(), is(false));
+    }
+
+    @Test
+    public void reopensWhenTrialFails() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(1, 20, TimeUnit.MILLISECONDS, now::get);
+        breaker.recordFailure();
+        now.addAndGet(20);
+        breaker.allowRequest();
+
+        // When
+        breaker.recordFailure();
+
+        // Then
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.allowRequest(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsThresholdBelowOne() {
+        new CircuitBreaker(0, 1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link CoalescingValidator}.
+ */
+public class CoalescingValidatorTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    /**
+     * A slow stand-in for an expensive validator, which blocks until released.
+     */
+    private final Validator<String> slow = (object, messages) -> {
+        runs.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return messages.addError("untrusted", "Untrusted certificate {0}", object);
+    };
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentValidationsOfSameKeyShareOneRun() throws Exception {
+        // Given
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>(slow, Function.identity());
+        List<Future<Messages>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> coalescing.validate("cert", messages())));
+        }
+
+        // When
+        awaitCount(() -> coalescing.getCoalescedCount() + coalescing.getRunCount(), 8);
+        release.countDown();
+
+        // Then
+        for (Future<Messages> result : results) {
+            assertThat(result.get().getErrorCount(), is(1));
+            assertThat(result.get().getErrors().get(0).getRenderedMessage(), is("Untrusted certificate cert"));
+        }
+        assertThat(runs.get(), is(1));
+        assertThat(coalescing.getRunCount(), is(1L));
+        assertThat(coalescing.getCoalescedCount(), is(7L));
+    }
+
+    @Test
+    public void differentKeysRunSeparately() throws Exception {
+        // Given
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>(slow, Function.identity());
+        release.countDown();
+
+        // When
+        Future<Messages> first = executor.submit(() -> coalescing.validate("cert1", messages()));
+        Future<Messages> second = executor.submit(() -> coalescing.validate("cert2", messages()));
+
+        // Then
+        assertThat(first.get().getErrors().get(0).getRenderedMessage(), is("Untrusted certificate cert1"));
+        assertThat(second.get().getErrors().get(0).getRenderedMessage(), is("Untrusted certificate cert2"));
+        assertThat(runs.get(), is(2));
+    }
+
+    @Test
+    public void completedRunIsNotRetained() {
+        // Given
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>(slow, Function.identity());
+        release.countDown();
+
+        // When
+        coalescing.validate("cert", messages());
+        coalescing.validate("cert", messages());
+
+        // Then
+        assertThat(runs.get(), is(2));
+        assertThat(coalescing.getCoalescedCount(), is(0L));
+    }
+
+    @Test
+    public void asyncValidationsShareInFlightRun() throws Exception {
+        // Given
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>(slow, Function.identity());
+        Messages syncMessages = messages();
+        Future<Messages> sync = executor.submit(() -> coalescing.validate("cert", syncMessages));
+        awaitCount(coalescing::getRunCount, 1);
+
+        // When
+        CompletableFuture<Messages> async = coalescing.validateAsync("cert", messages(), executor);
+        release.countDown();
+
+        // Then
+        assertThat(async.get(5, TimeUnit.SECONDS).getErrors(), is(sync.get().getErrors()));
+        assertThat(runs.get(), is(1));
+        assertThat(coalescing.getCoalescedCount(), is(1L));
+    }
+
+    @Test
+    public void asyncValidationRunsOnExecutor() throws Exception {
+        // Given
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>(slow, Function.identity());
+        release.countDown();
+
+        // When
+        Messages messages = coalescing.validateAsync("cert", messages(), executor).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+        assertThat(coalescing.getRunCount(), is(1L));
+    }
+
+    @Test
+    public void failureIsPassedToWaitingValidations() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>((object, messages) -> {
+            started.countDown();
+            try {
+                fail.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("lookup failed");
+        }, Function.identity());
+        Future<Messages> leader = executor.submit(() -> coalescing.validate("cert", messages()));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Messages> follower = coalescing.validateAsync("cert", messages(), executor);
+
+        // When
+        fail.countDown();
+
+        // Then
+        assertFailsWithIllegalState(leader);
+        assertFailsWithIllegalState(follower);
+    }
+
+    @Test
+    public void sharedMessagesLieBeneathPathOfEachValidation() throws Exception {
+        // Given
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>((object, messages) -> {
+            slow.validate(object, messages());
+            return messages.addFieldError("value", "untrusted", "Untrusted certificate");
+        }, Function.identity());
+        Future<Messages> leader = executor.submit(() -> validateBeneath(FieldPath.of("subject"), coalescing, "cert"));
+        awaitCount(coalescing::getRunCount, 1);
+        Future<Messages> follower = executor.submit(() -> validateBeneath(FieldPath.of("issuer"), coalescing, "cert"));
+        awaitCount(coalescing::getCoalescedCount, 1);
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThat(leader.get().getErrors().get(0).getField(), is("subject.value"));
+        assertThat(follower.get().getErrors().get(0).getField(), is("issuer.value"));
+        assertThat(runs.get(), is(1));
+    }
+
+    @Test
+    public void asyncRunCarriesContextOfValidationStartingIt() throws Exception {
+        // Given
+        AtomicReference<ValidationTier> level = new AtomicReference<>();
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>((object, messages) -> {
+            level.set(LoadShedding.getLevel());
+            return messages.addFieldError("value", "untrusted", "Untrusted certificate");
+        }, Function.identity());
+
+        // When
+        FieldPath.setCurrent(FieldPath.of("subject"));
+        CompletableFuture<Messages> result;
+        try {
+            result = LoadShedding.withLevel(ValidationTier.CRITICAL, () -> coalescing.validateAsync("cert", messages(), executor));
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+
+        // Then
+        assertThat(result.get(5, TimeUnit.SECONDS).getErrors().get(0).getField(), is("subject.value"));
+        assertThat(level.get(), is(ValidationTier.CRITICAL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTreeHoldingValidatorNotInFlyweightMode() {
+        RequiredValidator<String> required = new RequiredValidator<>(globalMessage("required", "Required {0}"));
+
+        new CoalescingValidator<>(new TimedValidator<>(new CompositeValidator<>(required)), Function.identity());
+    }
+
+    @Test
+    public void validatorLeavingFlyweightModeRunsForEachValidation() throws Exception {
+        // Given
+        RequiredValidator<String> required = new RequiredValidator<>(globalMessage("required", "Required"));
+        required.setFlyweight(true);
+        CoalescingValidator<String> coalescing = new CoalescingValidator<>(new CompositeValidator<>(required), Function.identity());
+
+        // When
+        required.setFlyweight(false);
+        Messages messages = coalescing.validate(null, messages());
+        Messages asyncMessages = coalescing.validateAsync(null, messages(), executor).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+        assertThat(asyncMessages.getErrorCount(), is(1));
+        assertThat(coalescing.getRunCount(), is(2L));
+        assertThat(coalescing.getCoalescedCount(), is(0L));
+    }
+
+    private static void assertFailsWithIllegalState(Future<Messages> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected validation to fail");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            assertThat(cause, instanceOf(IllegalStateException.class));
+        }
+    }
+
+    private static Messages validateBeneath(FieldPath path, Validator<String> validator, String object) {
+        FieldPath.setCurrent(path);
+        try {
+            return validator.validate(object, messages());
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+    }
+
+    private static void awaitCount(LongSupplier count, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsLong() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -26,13 +26,22 @@
 package uk.gov.ida.validation.validators;
 
 import org.junit.Test;
+import uk.gov.ida.validation.messages.BudgetedMessages;
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.Message;
 import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.messages.Severity;
+import uk.gov.ida.validation.metrics.StripedValidationMetrics;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
@@ -40,6 +49,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
 import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
 import static uk.gov.ida.validation.messages.MessagesImpl.messages;
 
@@ -205,5 +215,371 @@ public class CompositeValidatorTest {
         verifyNoMoreInteractions(validator2);
     }
 
+    @Test
+    public void adaptiveOrderingRunsCheapLikelyFailuresFirst() {
+        // Given
+        AtomicInteger expensiveRuns = new AtomicInteger();
+        CompositeValidator<Object> composite = new CompositeValidator<>(true,
+                expensive(expensiveRuns), expensive(expensiveRuns), usuallyFailing());
+        composite.setAdaptiveOrdering(10);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            composite.validate(new Object(), messages());
+        }
+
+        // Then
+        assertThat(composite.isAdaptiveOrdering(), is(true));
+        assertThat(composite.getEvaluationOrder()[0], is(2));
+        assertThat(composite.getChildStatistics().get(2).getFailureRate() > 0.5, is(true));
+    }
+
+    @Test
+    public void adaptiveOrderingReducesExpensiveRunsForSkewedFailures() {
+        // Given
+        AtomicInteger staticExpensiveRuns = new AtomicInteger(), adaptiveExpensiveRuns = new AtomicInteger();
+        CompositeValidator<Object> staticComposite = new CompositeValidator<>(true,
+                expensive(staticExpensiveRuns), expensive(staticExpensiveRuns), expensive(staticExpensiveRuns), usuallyFailing());
+        CompositeValidator<Object> adaptiveComposite = new CompositeValidator<>(true,
+                expensive(adaptiveExpensiveRuns), expensive(adaptiveExpensiveRuns), expensive(adaptiveExpensiveRuns), usuallyFailing());
+        adaptiveComposite.setAdaptiveOrdering(20);
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            staticComposite.validate(new Object(), messages());
+            adaptiveComposite.validate(new Object(), messages());
+        }
+
+        // Then
+        assertThat(staticExpensiveRuns.get(), is(1500));
+        assertThat(adaptiveExpensiveRuns.get() < staticExpensiveRuns.get() / 4, is(true));
+    }
+
+    @Test
+    public void adaptiveOrderingAddsMessagesInDeclarationOrder() {
+        // Given
+        Validator<Object> slowWarning = (object, messages) -> {
+            spin(20_000);
+            return messages.addWarning("slow", "Slow");
+        };
+        Validator<Object> fastWarning = (object, messages) -> messages.addWarning("fast", "Fast");
+        CompositeValidator<Object> composite = new CompositeValidator<>(true, slowWarning, fastWarning);
+        composite.setAdaptiveOrdering(1);
+        composite.validate(new Object(), messages());
+
+        // When
+        Messages messages = composite.validate(new Object(), messages());
+
+        // Then
+        assertThat(composite.getEvaluationOrder(), equalTo(new int[]{1, 0}));
+        assertThat(messages.getWarnings().stream().map(Message::getCode).toArray(), equalTo(new Object[]{"slow", "fast"}));
+    }
+
+    @Test
+    public void adaptiveOrderingReportsSameMessagesBeforeAndAfterReordering() {
+        // Given
+        Validator<Object> slowCheck = (object, messages) -> {
+            spin(20_000);
+            return messages.addFieldWarning("slow", "slow.warning", "Slow");
+        };
+        Validator<Object> cheapCheck = (object, messages) -> messages.addInfo("cheap.info", "Cheap");
+        Validator<Object> cheapFailure = (object, messages) -> object == null ? messages.addError("missing", "Missing") : messages;
+        CompositeValidator<Object> composite = new CompositeValidator<>(true, slowCheck, cheapCheck, cheapFailure);
+        composite.setAdaptiveOrdering(2);
+
+        // When
+        Messages beforeReordering = composite.validate(new Object(), messages());
+        Messages failureBeforeReordering = composite.validate(null, messages());
+        Messages afterReordering = composite.validate(new Object(), messages());
+
+        // Then
+        assertThat(composite.getEvaluationOrder()[0], not(0));
+        assertThat(afterReordering.getWarnings(), equalTo(beforeReordering.getWarnings()));
+        assertThat(afterReordering.getInfos(), equalTo(beforeReordering.getInfos()));
+        assertThat(failureBeforeReordering.getErrors().stream().map(Message::getCode).toArray(), equalTo(new Object[]{"missing"}));
+        assertThat(composite.validate(null, messages()).getErrors(), equalTo(failureBeforeReordering.getErrors()));
+    }
+
+    @Test
+    public void adaptiveOrderingStopsWithinErrorBudget() {
+        // Given
+        AtomicInteger expensiveRuns = new AtomicInteger();
+        CompositeValidator<Object> adaptive = new CompositeValidator<>(true,
+                new CompositeValidator<>(new RequiredValidator<>(), expensive(expensiveRuns)), expensive(expensiveRuns));
+        adaptive.setAdaptiveOrdering(1000);
+        CompositeValidator<Object> root = new CompositeValidator<>(adaptive, expensive(expensiveRuns));
+
+        // When
+        Messages messages = root.validate(null, BudgetedMessages.stopAfterErrors(messages(), 1));
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+        assertThat(messages.isHalted(), is(true));
+        assertThat(expensiveRuns.get(), is(0));
+        assertThat(adaptive.getChildStatistics().get(0).getInvocations(), is(1L));
+        assertThat(adaptive.getChildStatistics().get(1).getInvocations(), is(0L));
+    }
+
+    @Test
+    public void adaptiveOrderingRecordsReorderingAsMetricsEvent() {
+        // Given
+        AtomicInteger expensiveRuns = new AtomicInteger();
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        CompositeValidator<Object> composite = new CompositeValidator<>(true, expensive(expensiveRuns), usuallyFailing());
+        composite.setName("composite");
+        composite.setMetrics(metrics);
+        composite.setAdaptiveOrdering(5);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            composite.validate(new Object(), messages());
+        }
+
+        // Then
+        assertThat(metrics.getStats("composite").getEventCount("reordered") >= 1, is(true));
+    }
+
+    @Test
+    public void adaptiveOrderingHasNoEffectWithoutStopOnFirstError() {
+        // Given
+        CompositeValidator<Object> composite = new CompositeValidator<>(false, new RequiredValidator<>(), new RequiredValidator<>());
+
+        // When
+        composite.setAdaptiveOrdering(1);
+        Messages messages = composite.validate(null, messages());
+
+        // Then
+        assertThat(messages.getErrors().size(), is(2));
+        assertThat(composite.getEvaluationOrder(), equalTo(new int[]{0, 1}));
+        assertThat(composite.getChildStatistics().get(0).getInvocations(), is(0L));
+    }
+
+    @Test
+    public void adaptiveOrderingDisabledByDefault() {
+        CompositeValidator<Object> composite = new CompositeValidator<>(true, new RequiredValidator<>());
+
+        assertThat(composite.isAdaptiveOrdering(), is(false));
+        assertThat(composite.getChildStatistics().isEmpty(), is(true));
+        assertThat(Arrays.equals(composite.getEvaluationOrder(), new int[]{0}), is(true));
+    }
+
+    private static Validator<Object> expensive(AtomicInteger runs) {
+        return (object, messages) -> {
+            runs.incrementAndGet();
+            spin(20_000);
+            return messages;
+        };
+    }
+
+    private static Validator<Object> usuallyFailing() {
+        AtomicInteger calls = new AtomicInteger();
+        return (object, messages) -> calls.incrementAndGet() % 10 == 0 ? messages : messages.addError("failed", "Failed");
+    }
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.yield();
+        }
+    }
+
+    @Test
+    public void estimatesCostAsSumOfChildCosts() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        RequiredValidator<Object> measured = new RequiredValidator<>();
+        measured.setCost(ValidationCost.ofNanos(1000));
+        CompositeValidator<Object> composite = new CompositeValidator<>(required, measured,
+                new CompositeValidator<>(true, new RequiredValidator<>()));
+
+        // When
+        ValidationCost cost = composite.getCost();
+
+        // Then
+        assertThat(cost.getNanos(), is(ValidationCost.CHEAP.getNanos() * 2 + 1000));
+    }
+
+    @Test
+    public void estimatesExpectedCostFromLearnedFailureRates() {
+        // Given
+        AtomicInteger expensiveRuns = new AtomicInteger();
+        CompositeValidator<Object> composite = new CompositeValidator<>(true, usuallyFailing(), expensive(expensiveRuns));
+        long upperBound = composite.getCost().getNanos();
+        composite.setAdaptiveOrdering(1000);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            composite.validate(new Object(), messages());
+        }
+
+        // Then
+        ChildStatistics failing = composite.getChildStatistics().get(0);
+        ChildStatistics expensive = composite.getChildStatistics().get(1);
+        long expected = Math.round(failing.getMeanNanos() + (1.0 - failing.getFailureRate()) * expensive.getMeanNanos());
+        assertThat(composite.getCost().getNanos(), is(expected));
+        assertThat(upperBound, is(2 * ValidationCost.MODERATE.getNanos()));
+    }
+
+    @Test
+    public void explainReportsCostOfEachValidator() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setName("required");
+        PatternValidator<Object> pattern = new PatternValidator<>("abc");
+        CompositeValidator<Object> nested = new CompositeValidator<>(true, pattern);
+        nested.setName("nested");
+        CompositeValidator<Object> composite = new CompositeValidator<>(required, new TimedValidator<>(nested));
+        composite.setName("root");
+
+        // When
+        String report = composite.explain();
+
+        // Then
+        String separator = System.lineSeparator();
+        assertThat(report, is("root: expected " + composite.getCost() + separator
+                + "  required: CHEAP(50ns)" + separator
+                + "  TimedValidator: " + pattern.getCost() + ", timed" + separator
+                + "    nested: expected " + pattern.getCost() + ", stops on first error" + separator
+                + "      PatternValidator: " + pattern.getCost() + separator));
+    }
+
+    @Test
+    public void errorBudgetStopsSiblingBranchesOfNestedComposites() {
+        // Given
+        AtomicInteger expensiveRuns = new AtomicInteger();
+        CompositeValidator<Object> deep = new CompositeValidator<>(expensive(expensiveRuns),
+                new CompositeValidator<>(new RequiredValidator<>(), expensive(expensiveRuns)),
+                expensive(expensiveRuns));
+        CompositeValidator<Object> root = new CompositeValidator<>(deep, expensive(expensiveRuns), new RequiredValidator<>());
+
+        // When
+        Messages messages = root.validate(null, BudgetedMessages.stopAfterErrors(messages(), 1));
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+        assertThat(messages.isHalted(), is(true));
+        assertThat(expensiveRuns.get(), is(1));
+    }
+
+    @Test
+    public void severityBudgetStopsAtFirstWarning() {
+        // Given
+        Validator<Object> warning = (object, messages) -> messages.addWarning("warning", "Warning");
+        CompositeValidator<Object> root = new CompositeValidator<>(new CompositeValidator<>(warning), new RequiredValidator<>());
+
+        // When
+        Messages messages = root.validate(null, BudgetedMessages.stopAtSeverity(messages(), Severity.WARNING));
+
+        // Then
+        assertThat(messages.getWarnings().size(), is(1));
+        assertThat(messages.hasErrors(), is(false));
+    }
+
+    @Test
+    public void haltedContainerRunsNoChildren() {
+        // Given
+        Validator<Object> validator = mock(Validator.class);
+        Messages messages = BudgetedMessages.stopAfterErrors(messages().addError("error", "Error"), 1);
+
+        // When
+        new CompositeValidator<>(validator).validate(new Object(), messages);
+
+        // Then
+        verifyNoMoreInteractions(validator);
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void nestedPathSegmentsBuildFullFieldPaths() {
+        // Given
+        CompositeValidator<Subject> subjectValidator = new CompositeValidator<>(
+                new RequiredValidator<>(null, fieldMessage("nameId", "nameId.required", "NameID is required"), Subject::getNameId));
+        CompositeValidator<Assertion> assertionValidator = new CompositeValidator<>(Assertion::getSubject, subjectValidator);
+        CompositeValidator<Assertion> validator = new CompositeValidator<>(Function.identity(), assertionValidator);
+        subjectValidator.setPathSegment("subject");
+        validator.setPathSegment("assertion");
+
+        // When
+        Messages first = validator.validate(new Assertion(new Subject(null)), messages());
+        Messages second = validator.validate(new Assertion(new Subject(null)), messages());
+
+        // Then
+        assertThat(first.getErrors().get(0).getField(), is("assertion.subject.nameId"));
+        assertThat(second.getErrors().get(0), equalTo(fieldMessage("assertion.subject.nameId", "nameId.required", "NameID is required",
+                                                                   second.getErrors().get(0).getMessageParameters())));
+        assertThat(FieldPath.current(), nullValue());
+    }
+
+    @Test
+    public void passingValidationLeavesNoPathCurrent() {
+        // Given
+        CompositeValidator<Subject> validator = new CompositeValidator<>(
+                new RequiredValidator<>(null, fieldMessage("nameId", "nameId.required", "NameID is required"), Subject::getNameId));
+        validator.setPathSegment("subject");
+
+        // When
+        Messages messages = validator.validate(new Subject("id"), messages());
+
+        // Then
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(FieldPath.current(), nullValue());
+        assertThat(validator.getPathSegment(), is("subject"));
+    }
+
+    @Test
+    public void pathRestoredWhenChildThrows() {
+        // Given
+        CompositeValidator<Object> validator = new CompositeValidator<>((object, messages) -> {
+            throw new IllegalStateException();
+        });
+        validator.setPathSegment("subject");
+
+        // When
+        try {
+            validator.validate(new Object(), messages());
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+
+        // Then
+        assertThat(FieldPath.current(), nullValue());
+    }
+
+    @Test
+    public void elementPathsLieBeneathCompositePath() {
+        // Given
+        EachElementValidator<List<Subject>, Subject> subjects = new EachElementValidator<>("subjects", null,
+                new RequiredValidator<>(null, fieldMessage("nameId", "nameId.required", "NameID is required"), Subject::getNameId));
+        CompositeValidator<List<Subject>> validator = new CompositeValidator<>(subjects);
+        validator.setPathSegment("response");
+
+        // When
+        Messages messages = validator.validate(Arrays.asList(new Subject("id"), new Subject(null)), messages());
+
+        // Then
+        assertThat(messages.getErrors().get(0).getField(), is("response.subjects[1].nameId"));
+    }
+
+    static class Assertion {
+        private final Subject subject;
+
+        Assertion(Subject subject) {
+            this.subject = subject;
+        }
+
+        Subject getSubject() {
+            return subject;
+        }
+    }
+
+    static class Subject {
+        private final String nameId;
+
+        Subject(String nameId) {
+            this.nameId = nameId;
+        }
+
+        String getNameId() {
+            return nameId;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.messages.BudgetedMessages;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link EachElementValidator}.
+ */
+public class EachElementValidatorTest {
+    private final Validator<Address> postcodeRequired =
+            new RequiredValidator<>(null, fieldMessage("postcode", "postcode.required", "Postcode is required"), Address::getPostcode);
+
+    @Test
+    public void reportsMessagesAgainstIndexedFieldPaths() {
+        // Given
+        EachElementValidator<Person, Address> validator =
+                new EachElementValidator<>("addresses", Person::getAddresses, postcodeRequired);
+        Person person = new Person(new Address("SW1A 1AA"), new Address(null), new Address("EC1A 1BB"), new Address(null));
+
+        // When
+        Messages messages = validator.validate(person, messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(2));
+        assertThat(messages.getErrors().get(0).getField(), is("addresses[1].postcode"));
+        assertThat(messages.getErrors().get(0).getCode(), is("postcode.required"));
+        assertThat(messages.getErrors().get(1).getField(), is("addresses[3].postcode"));
+    }
+
+    @Test
+    public void indexesMessagesWithoutField() {
+        // Given
+        EachElementValidator<String[], String> validator =
+                new EachElementValidator<>("lines", null, new NotEmptyValidator<>(globalMessage("line.empty", "Line is empty")));
+
+        // When
+        Messages messages = validator.validate(new String[]{"1 High Street", ""}, messages());
+
+        // Then
+        assertThat(messages.getErrors().get(0).getField(), is("lines[1]"));
+    }
+
+    @Test
+    public void indexesWithoutBaseField() {
+        // Given
+        EachElementValidator<List<Address>, Address> validator = new EachElementValidator<>(null, null, postcodeRequired);
+
+        // When
+        Messages messages = validator.validate(Collections.singletonList(new Address(null)), messages());
+
+        // Then
+        assertThat(messages.getErrors().get(0).getField(), is("[0].postcode"));
+    }
+
+    @Test
+    public void stopsAfterConfiguredNumberOfFailingElements() {
+        // Given
+        EachElementValidator<Person, Address> validator =
+                new EachElementValidator<>("addresses", Person::getAddresses, postcodeRequired);
+        validator.setStopAfterFailures(2);
+        Person person = new Person(new Address(null), new Address("SW1A 1AA"), new Address(null), new Address(null));
+
+        // When
+        Messages messages = validator.validate(person, messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(2));
+        assertThat(messages.getErrors().get(1).getField(), is("addresses[2].postcode"));
+    }
+
+    @Test
+    public void stopsWhenMessagesHalted() {
+        // Given
+        EachElementValidator<Person, Address> validator =
+                new EachElementValidator<>("addresses", Person::getAddresses, postcodeRequired);
+        Person person = new Person(new Address(null), new Address(null), new Address(null));
+
+        // When
+        Messages messages = validator.validate(person, BudgetedMessages.stopAfterErrors(messages(), 1));
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void preservesSeverityOfElementMessages() {
+        // Given
+        Validator<String> warnOnLowerCase = (line, messages) ->
+                line.equals(line.toUpperCase()) ? messages : messages.addFieldWarning("text", "case", "Lower case");
+        EachElementValidator<List<String>, String> validator = new EachElementValidator<>("lines", null, warnOnLowerCase);
+
+        // When
+        Messages messages = validator.validate(Arrays.asList("A", "b"), messages());
+
+        // Then
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(messages.getWarnings().get(0).getField(), is("lines[1].text"));
+    }
+
+    @Test
+    public void validatesPrimitiveArraysAndIterables() {
+        // Given
+        Validator<Integer> positive = (value, messages) -> value > 0 ? messages : messages.addError("negative", "Negative");
+        Iterable<Integer> iterable = () -> Arrays.asList(1, -1).iterator();
+
+        // When
+        Messages fromArray = new EachElementValidator<int[], Integer>("values", null, positive).validate(new int[]{-1, 2}, messages());
+        Messages fromIterable = new EachElementValidator<Iterable<Integer>, Integer>("values", null, positive).validate(iterable, messages());
+
+        // Then
+        assertThat(fromArray.getErrors().get(0).getField(), is("values[0]"));
+        assertThat(fromIterable.getErrors().get(0).getField(), is("values[1]"));
+    }
+
+    @Test
+    public void ignoresNullCollection() {
+        EachElementValidator<Person, Address> validator =
+                new EachElementValidator<>("addresses", Person::getAddresses, postcodeRequired);
+
+        assertThat(validator.validate(new Person((Address[]) null), messages()).hasErrors(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonCollectionValue() {
+        new EachElementValidator<String, Object>("value", null, (element, messages) -> messages).validate("text", messages());
+    }
+
+    @Test
+    public void passingElementsAddNothing() {
+        // Given
+        EachElementValidator<Person, Address> validator =
+                new EachElementValidator<>("addresses", Person::getAddresses, postcodeRequired);
+
+        // When
+        Messages messages = validator.validate(new Person(new Address("SW1A 1AA")), messages());
+
+        // Then
+        assertThat(messages.size(), is(0));
+    }
+
+    @Test
+    public void parallelValidationReportsSameMessagesInIndexOrder() {
+        // Given
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            values.add(i % 7 == 0 ? -i : i);
+        }
+        Validator<Integer> positive = (value, messages) -> value > 0 ? messages : messages.addError("negative", "Negative");
+        EachElementValidator<List<Integer>, Integer> sequential = new EachElementValidator<>("values", null, positive);
+        EachElementValidator<List<Integer>, Integer> parallel = new EachElementValidator<>("values", null, positive);
+        parallel.setParallel(new ForkJoinPool(4), 1000);
+
+        // When
+        Messages expected = sequential.validate(values, messages());
+        Messages actual = parallel.validate(values, messages());
+
+        // Then
+        assertThat(parallel.isParallel(), is(true));
+        assertThat(actual.getErrorCount(), is(14286));
+        assertThat(actual.getErrors(), is(expected.getErrors()));
+    }
+
+    @Test
+    public void parallelValidationStopsAfterFailuresAcrossChunks() {
+        // Given
+        AtomicInteger validated = new AtomicInteger();
+        Validator<Integer> failing = (value, messages) -> {
+            validated.incrementAndGet();
+            return messages.addError("invalid", "Invalid");
+        };
+        EachElementValidator<int[], Integer> validator = new EachElementValidator<>("values", null, failing);
+        validator.setParallel(new ForkJoinPool(4), 1000);
+        validator.setStopAfterFailures(10);
+
+        // When
+        Messages messages = validator.validate(new int[100_000], messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(10));
+        assertThat(validated.get(), lessThan(1000));
+    }
+
+    @Test
+    public void collectionsNoLargerThanChunkAreValidatedOnCallingThread() {
+        // Given
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new ArrayList<>();
+        EachElementValidator<List<String>, String> validator =
+                new EachElementValidator<>("lines", null, (line, messages) -> {
+                    threads.add(Thread.currentThread());
+                    return messages;
+                });
+        validator.setParallel(10);
+
+        // When
+        validator.validate(Arrays.asList("a", "b", "c"), messages());
+
+        // Then
+        assertThat(threads, is(Arrays.asList(caller, caller, caller)));
+    }
+
+    @Test
+    public void parallelValidationCarriesLoadSheddingLevelToPoolThreads() {
+        // Given
+        RequiredValidator<Object> diagnostic = new RequiredValidator<>();
+        diagnostic.setTier(ValidationTier.DIAGNOSTIC);
+        EachElementValidator<List<Object>, Object> validator = new EachElementValidator<>("values", null, diagnostic);
+        validator.setParallel(new ForkJoinPool(4), 100);
+        List<Object> values = Collections.nCopies(10_000, null);
+
+        // When
+        Messages shed = LoadShedding.withLevel(ValidationTier.CRITICAL, () -> validator.validate(values, messages()));
+        Messages run = validator.validate(values, messages());
+
+        // Then
+        assertThat(shed.hasErrors(), is(false));
+        assertThat(run.getErrorCount(), is(10_000));
+    }
+
+    @Test
+    public void collectionsNoLargerThanChunkAreIteratedOnce() {
+        // Given
+        AtomicInteger iterations = new AtomicInteger();
+        Collection<String> lines = new AbstractCollection<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                iterations.incrementAndGet();
+                return Arrays.asList("a", "b", "c").iterator();
+            }
+
+            @Override
+            public int size() {
+                return 3;
+            }
+        };
+        EachElementValidator<Collection<String>, String> validator =
+                new EachElementValidator<>("lines", null, (line, messages) -> messages.addError("invalid", "Invalid"));
+        validator.setParallel(10);
+
+        // When
+        Messages messages = validator.validate(lines, messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(3));
+        assertThat(iterations.get(), is(1));
+    }
+
+    @Test
+    public void zeroChunkSizeDisablesParallelValidation() {
+        EachElementValidator<List<String>, String> validator = new EachElementValidator<>("lines", null, (line, messages) -> messages);
+        validator.setParallel(10);
+
+        validator.setParallel(0);
+
+        assertThat(validator.isParallel(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeChunkSize() {
+        new EachElementValidator<List<String>, String>("lines", null, (line, messages) -> messages).setParallel(-1);
+    }
+
+    static class Person {
+        private final List<Address> addresses;
+
+        Person(Address... addresses) {
+            this.addresses = addresses == null ? null : Arrays.asList(addresses);
+        }
+
+        List<Address> getAddresses() {
+            return addresses;
+        }
+    }
+
+    static class Address {
+        private final String postcode;
+
+        Address(String postcode) {
+            this.postcode = postcode;
+        }
+
+        String getPostcode() {
+            return postcode;
+        }
+    }
+}
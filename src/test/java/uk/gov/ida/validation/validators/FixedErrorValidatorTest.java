@@ -235,4 +235,25 @@ public class FixedErrorValidatorTest {
         assertThat(returnedMessages, sameInstance(messages));
         assertThat(returnedMessages.hasErrors(), is(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void flyweightSharesSingleFailureMessageWithSuppliedMessageParameters() {
+        // Given
+        Messages messages = messages();
+        FixedErrorValidator<Object> validator = new FixedErrorValidator<>(fieldMessage("theField",
+                                                                                       "theCode",
+                                                                                       "theMessage {0}",
+                                                                                       "param1"));
+        validator.setFlyweight(true);
+
+        // When
+        validator.validate(new Object(), messages);
+        validator.validate(new Object(), messages);
+
+        // Then
+        assertThat(messages.getErrors().size(), is(2));
+        assertThat(messages.getErrors().get(0), sameInstance(messages.getErrors().get(1)));
+        assertThat(messages.getErrors().get(0).getField(), equalTo("theField"));
+        assertThat(messages.getErrors().get(0).getRenderedMessage(), equalTo("theMessage param1"));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.messages.BudgetedMessages;
+import uk.gov.ida.validation.messages.FieldPath;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link GraphValidator}.
+ */
+public class GraphValidatorTest {
+    private final Validator<Node> nameRequired = (node, messages) ->
+            node.name != null ? messages : messages.addFieldError("name", "name.required", "Name is required");
+
+    @Test
+    public void validatesEveryNodeDepthFirst() {
+        // Given
+        List<String> visited = new ArrayList<>();
+        Node root = new Node("root", new Node("a", new Node("a1")), new Node("b"));
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, (node, messages) -> {
+            visited.add(node.name);
+            return messages;
+        }, Node::getChildren);
+
+        // When
+        validator.validate(root, messages());
+
+        // Then
+        assertThat(visited, is(Arrays.asList("root", "a", "a1", "b")));
+    }
+
+    @Test
+    public void validatesDeepGraphWithoutRecursion() {
+        // Given
+        Node root = new Node("0");
+        Node node = root;
+        for (int depth = 1; depth < 200_000; depth++) {
+            Node child = new Node(depth == 199_999 ? null : Integer.toString(depth));
+            node.children.add(child);
+            node = child;
+        }
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, nameRequired, Node::getChildren);
+
+        // When
+        Messages messages = validator.validate(root, messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void validatesSharedAndCyclicNodesOnce() {
+        // Given
+        AtomicInteger validations = new AtomicInteger();
+        Node shared = new Node("shared");
+        Node root = new Node("root", new Node("a", shared), new Node("b", shared));
+        shared.children.add(root);
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, (node, messages) -> {
+            validations.incrementAndGet();
+            return messages;
+        }, Node::getChildren);
+
+        // When
+        validator.validate(root, messages());
+
+        // Then
+        assertThat(validations.get(), is(4));
+    }
+
+    @Test
+    public void tracksNodesByIdentityRatherThanEquality() {
+        // Given
+        AtomicInteger validations = new AtomicInteger();
+        Node root = new Node("root", new Node("same"), new Node("same"));
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, (node, messages) -> {
+            validations.incrementAndGet();
+            return messages;
+        }, Node::getChildren);
+
+        // When
+        validator.validate(root, messages());
+
+        // Then
+        assertThat(validations.get(), is(3));
+    }
+
+    @Test
+    public void reportsMessagesBeneathIndexedPaths() {
+        // Given
+        Node root = new Node("root", new Node("a"), new Node("b", new Node("b1"), new Node(null)));
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, nameRequired, Node::getChildren);
+        validator.setPathSegment("attributes");
+
+        // When
+        Messages messages = validator.validate(root, messages());
+
+        // Then
+        assertThat(messages.getErrors().get(0).getField(), is("attributes[1].attributes[1].name"));
+        assertThat(FieldPath.current(), nullValue());
+    }
+
+    @Test
+    public void rootMessagesLieBeneathCurrentPath() {
+        // Given
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, nameRequired, Node::getChildren);
+        validator.setPathSegment("attributes");
+        FieldPath.setCurrent(FieldPath.of("metadata"));
+        Messages messages;
+        try {
+            // When
+            messages = validator.validate(new Node(null, new Node(null)), messages());
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+
+        // Then
+        assertThat(messages.getErrors().get(0).getField(), is("metadata.name"));
+        assertThat(messages.getErrors().get(1).getField(), is("metadata.attributes[0].name"));
+    }
+
+    @Test
+    public void stopsWhenMessagesHalted() {
+        // Given
+        Node root = new Node(null, new Node(null), new Node(null));
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, nameRequired, Node::getChildren);
+
+        // When
+        Messages messages = validator.validate(root, BudgetedMessages.stopAfterErrors(messages(), 2));
+
+        // Then
+        assertThat(messages.getErrorCount(), is(2));
+    }
+
+    @Test
+    public void ignoresNullRootAndChildren() {
+        GraphValidator<Node, Node> validator = new GraphValidator<>(null, nameRequired, node -> node.name == null ? null : Arrays.asList((Node) null));
+
+        assertThat(validator.validate(null, messages()).hasErrors(), is(false));
+        assertThat(validator.validate(new Node("root"), messages()).hasErrors(), is(false));
+    }
+
+    static class Node {
+        private final String name;
+
+        private final List<Node> children = new ArrayList<>();
+
+        Node(String name, Node... children) {
+            this.name = name;
+            this.children.addAll(Arrays.asList(children));
+        }
+
+        List<Node> getChildren() {
+            return children;
+        }
+    }
+}
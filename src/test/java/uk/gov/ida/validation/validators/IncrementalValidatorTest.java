@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link IncrementalValidator}.
+ */
+public class IncrementalValidatorTest {
+    private static final Function<Form, String> NAME = Form::getName;
+    private static final Function<Form, String> EMAIL = Form::getEmail;
+
+    private final AtomicInteger nameRuns = new AtomicInteger();
+    private final Function<Form, String> postcode = Form::getPostcode;
+
+    private RequiredValidator<Form> nameRequired;
+    private CompositeValidator<Form> postcodeRules;
+    private StringLengthValidator<Form> emailLength;
+    private IncrementalValidator<Form> validator;
+
+    @Before
+    public void setUp() {
+        nameRequired = new RequiredValidator<>(null, fieldMessage("name", "name.required", "Name is required"), counting(NAME, nameRuns));
+        postcodeRules = new CompositeValidator<>(
+                new RequiredValidator<>(null, fieldMessage("postcode", "postcode.required", "Postcode is required"), postcode),
+                new PatternValidator<>(fieldMessage("postcode", "postcode.pattern", "Postcode is invalid"), postcode, "[A-Z0-9 ]+"));
+        emailLength = new StringLengthValidator<>(fieldMessage("email", "email.length", "Email is too long"), EMAIL, 0, 10);
+        validator = new IncrementalValidator<>(new CompositeValidator<>(nameRequired, postcodeRules, emailLength));
+        validator.addProperty("name", counting(NAME, new AtomicInteger()));
+        validator.addProperty("postcode", postcode);
+        validator.addProperty("email", EMAIL);
+    }
+
+    @Test
+    public void findsDependenciesFromValueProviders() {
+        assertThat(validator.getDependencies(postcodeRules), is(Collections.singleton("postcode")));
+        assertThat(validator.getDependencies(emailLength), is(Collections.singleton("email")));
+        assertThat(validator.getDependencies(nameRequired), nullValue());
+    }
+
+    @Test
+    public void revalidatesOnlyRulesDependingOnChangedProperty() {
+        // Given
+        validator.addProperty("name", nameRequired.getValueProvider());
+        Form form = new Form(null, "sw1a", "someone@example.com");
+        IncrementalValidator.Result result = validator.validateAll(form);
+        int nameRunsBefore = nameRuns.get();
+
+        // When
+        form.postcode = "SW1A 1AA";
+        validator.revalidate(result, form, Collections.singleton("postcode"));
+
+        // Then
+        assertThat(result.getLastRunCount(), is(1));
+        assertThat(nameRuns.get(), is(nameRunsBefore));
+        assertThat(result.getMessages().getErrors(), is(validator.validate(form, messages()).getErrors()));
+        assertThat(result.getMessages().hasErrorCode("postcode.pattern"), is(false));
+        assertThat(result.getMessages().hasErrorCode("name.required"), is(true));
+        assertThat(result.getMessages().hasErrorCode("email.length"), is(true));
+    }
+
+    @Test
+    public void revalidatesFromDiffOfOldAndNewValues() {
+        // Given
+        validator.addProperty("name", nameRequired.getValueProvider());
+        Form before = new Form(null, "SW1A 1AA", "a@b.c");
+        IncrementalValidator.Result result = validator.validateAll(before);
+
+        // When
+        Form after = new Form("Someone", "SW1A 1AA", "a@b.c");
+        Messages messages = validator.revalidate(result, before, after).getMessages();
+
+        // Then
+        assertThat(result.getLastRunCount(), is(1));
+        assertThat(messages.hasErrors(), is(false));
+    }
+
+    @Test
+    public void alwaysRerunsRulesWithUnknownDependencies() {
+        // Given
+        Form form = new Form(null, "SW1A 1AA", "a@b.c");
+        IncrementalValidator.Result result = validator.validateAll(form);
+
+        // When
+        form.name = "Someone";
+        validator.revalidate(result, form, Collections.singleton("email"));
+
+        // Then
+        assertThat(result.getLastRunCount(), is(2));
+        assertThat(result.getMessages().hasErrors(), is(false));
+    }
+
+    @Test
+    public void declaredDependenciesReplaceThoseFound() {
+        // Given
+        validator.setDependencies(nameRequired, "name");
+        Form form = new Form(null, "SW1A 1AA", "a@b.c");
+        IncrementalValidator.Result result = validator.validateAll(form);
+
+        // When
+        validator.revalidate(result, form, new HashSet<>(Arrays.asList("postcode", "email")));
+
+        // Then
+        assertThat(validator.getDependencies(nameRequired), is(Collections.singleton("name")));
+        assertThat(result.getLastRunCount(), is(2));
+        assertThat(result.getRuleMessages(0).hasErrorCode("name.required"), is(true));
+    }
+
+    @Test
+    public void conditionalRulesDependOnEveryProperty() {
+        // Given
+        RequiredValidator<Form> conditional = new RequiredValidator<>(form -> form.email != null,
+                                                                      fieldMessage("postcode", "postcode.required", "Postcode is required"), postcode);
+        IncrementalValidator<Form> incremental = new IncrementalValidator<>(conditional);
+        incremental.addProperty("postcode", postcode);
+
+        // Then
+        assertThat(incremental.getDependencies(conditional), nullValue());
+    }
+
+    @Test
+    public void fullValidationRunsEveryRule() {
+        // Given
+        Form form = new Form(null, "sw1a", "a@b.c");
+
+        // When
+        IncrementalValidator.Result result = validator.validateAll(form);
+
+        // Then
+        assertThat(result.getLastRunCount(), is(3));
+        assertThat(result.getMessages().getErrors(), is(validator.validate(form, messages()).getErrors()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownChangedProperty() {
+        Form form = new Form(null, "SW1A 1AA", null);
+
+        validator.revalidate(validator.validateAll(form), form, Collections.singleton("nmae"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCompositeStoppingOnFirstError() {
+        new IncrementalValidator<>(new CompositeValidator<Form>(true, nameRequired));
+    }
+
+    private static Function<Form, String> counting(Function<Form, String> accessor, AtomicInteger runs) {
+        return form -> {
+            runs.incrementAndGet();
+            return accessor.apply(form);
+        };
+    }
+
+    static class Form {
+        private String name;
+        private String postcode;
+        private String email;
+
+        Form(String name, String postcode, String email) {
+            this.name = name;
+            this.postcode = postcode;
+            this.email = email;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getPostcode() {
+            return postcode;
+        }
+
+        String getEmail() {
+            return email;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.metrics.StripedValidationMetrics;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link LoadShedding} and the shedding of validators by tier.
+ */
+public class LoadSheddingTest {
+    @After
+    public void resetLevel() {
+        LoadShedding.setLevel(ValidationTier.DIAGNOSTIC);
+    }
+
+    @Test
+    public void runsAllTiersByDefault() {
+        // Given
+        RequiredValidator<Object> diagnostic = new RequiredValidator<>();
+        diagnostic.setTier(ValidationTier.DIAGNOSTIC);
+
+        // When
+        Messages messages = diagnostic.validate(null, messages());
+
+        // Then
+        assertThat(LoadShedding.getLevel(), is(ValidationTier.DIAGNOSTIC));
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void shedsSubtreeWithoutEvaluatingConditionOrValueProvider() {
+        // Given
+        Predicate<Object> condition = mock(Predicate.class);
+        Function<Object, Object> valueProvider = mock(Function.class);
+        Validator<Object> child = mock(Validator.class);
+        CompositeValidator<Object> diagnostic = new CompositeValidator<>(condition, false, valueProvider, child);
+        diagnostic.setTier(ValidationTier.DIAGNOSTIC);
+        CompositeValidator<Object> root = new CompositeValidator<>(diagnostic, new RequiredValidator<>());
+        long shedBefore = LoadShedding.getShedCount(ValidationTier.DIAGNOSTIC);
+        LoadShedding.setLevel(ValidationTier.STANDARD);
+
+        // When
+        Messages messages = root.validate(null, messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+        verifyZeroInteractions(condition, valueProvider, child);
+        assertThat(LoadShedding.getShedCount(ValidationTier.DIAGNOSTIC) - shedBefore, is(1L));
+    }
+
+    @Test
+    public void shedsLowerTiersButNeverCritical() {
+        // Given
+        RequiredValidator<Object> critical = new RequiredValidator<>();
+        RequiredValidator<Object> standard = new RequiredValidator<>();
+        standard.setTier(ValidationTier.STANDARD);
+        RequiredValidator<Object> diagnostic = new RequiredValidator<>();
+        diagnostic.setTier(ValidationTier.DIAGNOSTIC);
+        CompositeValidator<Object> root = new CompositeValidator<>(critical, standard, diagnostic);
+
+        // When
+        LoadShedding.setLevel(ValidationTier.CRITICAL);
+        Messages messages = root.validate(null, messages());
+
+        // Then
+        assertThat(messages.getErrorCount(), is(1));
+    }
+
+    @Test
+    public void perCallLevelOverridesGlobalLevel() {
+        // Given
+        RequiredValidator<Object> diagnostic = new RequiredValidator<>();
+        diagnostic.setTier(ValidationTier.DIAGNOSTIC);
+        LoadShedding.setLevel(ValidationTier.CRITICAL);
+
+        // When
+        Messages overridden = LoadShedding.withLevel(ValidationTier.DIAGNOSTIC, () -> diagnostic.validate(null, messages()));
+        Messages global = diagnostic.validate(null, messages());
+
+        // Then
+        assertThat(overridden.getErrorCount(), is(1));
+        assertThat(global.getErrorCount(), is(0));
+        assertThat(LoadShedding.getLevel(), is(ValidationTier.CRITICAL));
+    }
+
+    @Test
+    public void nestedOverrideRestoresOuterLevel() {
+        ValidationTier level = LoadShedding.withLevel(ValidationTier.STANDARD, () -> {
+            LoadShedding.withLevel(ValidationTier.CRITICAL, LoadShedding::getLevel);
+            return LoadShedding.getLevel();
+        });
+
+        assertThat(level, is(ValidationTier.STANDARD));
+    }
+
+    @Test
+    public void recordsShedEventInMetrics() {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        RequiredValidator<Object> standard = new RequiredValidator<>();
+        standard.setName("standard");
+        standard.setTier(ValidationTier.STANDARD);
+        standard.setMetrics(metrics);
+        LoadShedding.setLevel(ValidationTier.CRITICAL);
+
+        // When
+        standard.validate(null, messages());
+
+        // Then
+        assertThat(metrics.getStats("standard").getEventCount("shed"), is(1L));
+        assertThat(metrics.getStats("standard").getInvocations(), is(0L));
+    }
+
+    @Test
+    public void nullTierIsCritical() {
+        RequiredValidator<Object> validator = new RequiredValidator<>();
+
+        validator.setTier(null);
+
+        assertThat(validator.getTier(), is(ValidationTier.CRITICAL));
+    }
+}
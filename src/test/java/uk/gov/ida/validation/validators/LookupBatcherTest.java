@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link LookupBatcher}, against a service whose calls complete only when the test releases them.
+ */
+public class LookupBatcherTest {
+    private final List<Set<String>> batches = new ArrayList<>();
+
+    private final List<CompletableFuture<Map<String, String>>> calls = new ArrayList<>();
+
+    private final LookupClient<String, String> client = keys -> {
+        CompletableFuture<Map<String, String>> call = new CompletableFuture<>();
+        batches.add(keys);
+        calls.add(call);
+        return call;
+    };
+
+    @Test
+    public void sendsLookupStraightAwayWhileCallsAreAvailable() {
+        // Given
+        LookupBatcher<String, String> batcher = new LookupBatcher<>(client, 10, 2);
+
+        // When
+        batcher.submit("a");
+        batcher.submit("b");
+
+        // Then
+        assertThat(batcher.getCallCount(), is(2L));
+        assertThat(batches.get(0).size(), is(1));
+        assertThat(batches.get(1).size(), is(1));
+    }
+
+    @Test
+    public void batchesLookupsQueuedWhileCallIsInFlight() {
+        // Given
+        LookupBatcher<String, String> batcher = new LookupBatcher<>(client, 10, 1);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(batcher.submit("key" + i));
+        }
+
+        // When
+        release(0);
+        release(1);
+        release(2);
+
+        // Then
+        assertThat(batcher.getCallCount(), is(3L));
+        assertThat(sizes(), equalTo(new int[]{1, 10, 5}));
+        for (int i = 0; i < 16; i++) {
+            assertThat(futures.get(i).join(), is("value" + i));
+        }
+    }
+
+    @Test
+    public void completesEveryLookupOfDuplicateKeyFromOneEntry() {
+        // Given
+        LookupBatcher<String, String> batcher = new LookupBatcher<>(client, 10, 1);
+        batcher.submit("first");
+        CompletableFuture<String> one = batcher.submit("key1");
+        CompletableFuture<String> other = batcher.submit("key1");
+
+        // When
+        release(0);
+        release(1);
+
+        // Then
+        assertThat(batches.get(1).size(), is(1));
+        assertThat(one.join(), is("value1"));
+        assertThat(other.join(), is("value1"));
+    }
+
+    @Test
+    public void failsEveryLookupInFailedBatchAndCarriesOn() {
+        // Given
+        LookupBatcher<String, String> batcher = new LookupBatcher<>(client, 10, 1);
+        CompletableFuture<String> failed = batcher.submit("key0");
+        CompletableFuture<String> queued = batcher.submit("unknown");
+
+        // When
+        calls.get(0).completeExceptionally(new IllegalStateException("Service unavailable"));
+        release(1);
+
+        // Then
+        assertThat(failed.isCompletedExceptionally(), is(true));
+        assertThat(queued.join(), nullValue());
+        assertThat(batcher.getCallCount(), is(2L));
+    }
+
+    @Test
+    public void abandonsTimedOutCallAndSendsQueuedLookups() throws Exception {
+        // Given
+        LookupBatcher<String, String> batcher = new LookupBatcher<>(client, 10, 1);
+        batcher.setCallTimeout(20, TimeUnit.MILLISECONDS);
+        CompletableFuture<String> stuck = batcher.submit("key0");
+        CompletableFuture<String> queued = batcher.submit("key1");
+
+        // When
+        Throwable failure = null;
+        try {
+            stuck.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        }
+
+        // Then
+        assertThat(failure, instanceOf(TimeoutException.class));
+        assertThat(batcher.getTimeoutCount(), is(1L));
+        assertThat(batcher.getCallCount(), is(2L));
+        release(1);
+        assertThat(queued.join(), is("value1"));
+    }
+
+    @Test
+    public void dropsLookupsAbandonedWhileQueued() {
+        // Given
+        LookupBatcher<String, String> batcher = new LookupBatcher<>(client, 10, 1);
+        batcher.submit("key0");
+        batcher.submit("key1").cancel(false);
+        CompletableFuture<String> waiting = batcher.submit("key2");
+
+        // When
+        release(0);
+        release(1);
+
+        // Then
+        assertThat(batches.get(1), equalTo(Collections.singleton("key2")));
+        assertThat(waiting.join(), is("value2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBatchSizeBelowOne() {
+        new LookupBatcher<>(client, 0, 1);
+    }
+
+    private void release(int call) {
+        Map<String, String> values = new HashMap<>();
+        for (String key : batches.get(call)) {
+            if (key.startsWith("key")) {
+                values.put(key, "value" + key.substring(3));
+            }
+        }
+        calls.get(call).complete(values);
+    }
+
+    private int[] sizes() {
+        return batches.stream().mapToInt(Set::size).toArray();
+    }
+}
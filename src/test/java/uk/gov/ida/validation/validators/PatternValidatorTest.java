@@ -255,4 +255,31 @@ public class PatternValidatorTest {
         // Then no error is added
         assertThat(returnedMessages.hasErrors(), is(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void estimatesCostFromPatternComplexity() {
+        ValidationCost literal = new PatternValidator<>("abc").getCost();
+        ValidationCost quantified = new PatternValidator<>("a+b*c?").getCost();
+        ValidationCost alternated = new PatternValidator<>("a+b*c?|d|e").getCost();
+
+        assertThat(literal.getNanos() > ValidationCost.CHEAP.getNanos(), is(true));
+        assertThat(quantified.compareTo(literal) > 0, is(true));
+        assertThat(alternated.compareTo(quantified) > 0, is(true));
+        assertThat(alternated.compareTo(ValidationCost.EXPENSIVE) < 0, is(true));
+    }
+
+    @Test
+    public void estimatesBacktrackingPatternsAsExpensive() {
+        assertThat(PatternValidator.estimatePatternCost("(a+)+b"), is(ValidationCost.EXPENSIVE));
+        assertThat(PatternValidator.estimatePatternCost("((ab)*c)*"), is(ValidationCost.EXPENSIVE));
+        assertThat(PatternValidator.estimatePatternCost("(\\w)\\1"), is(ValidationCost.EXPENSIVE));
+    }
+
+    @Test
+    public void doesNotEstimateSimpleGroupsOrEscapesAsExpensive() {
+        assertThat(PatternValidator.estimatePatternCost("(ab)+").compareTo(ValidationCost.EXPENSIVE) < 0, is(true));
+        assertThat(PatternValidator.estimatePatternCost("(a+)?b").compareTo(ValidationCost.EXPENSIVE) < 0, is(true));
+        assertThat(PatternValidator.estimatePatternCost("(?:\\d+)\\.[+*]").compareTo(ValidationCost.EXPENSIVE) < 0, is(true));
+        assertThat(PatternValidator.estimatePatternCost("\\d{2,4}").compareTo(ValidationCost.EXPENSIVE) < 0, is(true));
+    }
+}
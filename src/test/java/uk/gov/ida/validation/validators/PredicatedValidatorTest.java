@@ -26,6 +26,7 @@
 package uk.gov.ida.validation.validators;
 
 import org.junit.Test;
+import uk.gov.ida.validation.messages.FieldPath;
 import uk.gov.ida.validation.messages.Message;
 import uk.gov.ida.validation.messages.Messages;
 
@@ -42,6 +43,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
 import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
 import static uk.gov.ida.validation.messages.MessagesImpl.messages;
 
@@ -253,4 +255,72 @@ public class PredicatedValidatorTest {
         assertThat(messages.hasErrors(), is(false));
         assertThat(messages.size(), is(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void flyweightSharesSingleFailureMessage() {
+        // Given
+        Message message = globalMessage("theCode", "theMessage");
+        Messages messages = messages();
+        PredicatedValidator<Object> validator = new PredicatedValidator<Object>(message, v -> false) {
+        };
+        validator.setFlyweight(true);
+
+        // When
+        validator.validate(new Object(), messages);
+        validator.validate(new Object(), messages);
+
+        // Then
+        assertThat(validator.isFlyweight(), is(true));
+        assertThat(messages.getErrors().size(), is(2));
+        assertThat(messages.getErrors().get(0), sameInstance(messages.getErrors().get(1)));
+        assertThat(messages.getErrors().get(0).getCode(), is("theCode"));
+        assertThat(messages.getErrors().get(0).getParameterisedMessage(), is("theMessage"));
+        assertThat(messages.getErrors().get(0).getMessageParameters(), nullValue());
+    }
+
+    @Test
+    public void flyweightMessageTakesPathCurrentAtEachFailure() {
+        // Given
+        Message message = fieldMessage("nameId", "theCode", "theMessage");
+        PredicatedValidator<Object> validator = new PredicatedValidator<Object>(message, v -> false) {
+        };
+        validator.setFlyweight(true);
+
+        // When
+        Messages subject = validateBeneath(FieldPath.of("subject"), validator);
+        Messages issuer = validateBeneath(FieldPath.of("issuer"), validator);
+        Messages unpathed = validator.validate(new Object(), messages());
+
+        // Then
+        assertThat(subject.getErrors().get(0).getField(), is("subject.nameId"));
+        assertThat(issuer.getErrors().get(0).getField(), is("issuer.nameId"));
+        assertThat(unpathed.getErrors().get(0).getField(), is("nameId"));
+    }
+
+    @Test
+    public void notFlyweightByDefault() {
+        // Given
+        Message message = globalMessage("theCode", "theMessage");
+        Messages messages = messages();
+        PredicatedValidator<Object> validator = new PredicatedValidator<Object>(message, v -> false) {
+        };
+
+        // When
+        validator.validate(new Object(), messages);
+        validator.validate(new Object(), messages);
+
+        // Then
+        assertThat(validator.isFlyweight(), is(false));
+        assertThat(messages.getErrors().get(0) == messages.getErrors().get(1), is(false));
+        assertThat(messages.getErrors().get(0).getMessageParameters().length, is(2));
+    }
+
+    private static Messages validateBeneath(FieldPath path, Validator<Object> validator) {
+        FieldPath.setCurrent(path);
+        try {
+            return validator.validate(new Object(), messages());
+        } finally {
+            FieldPath.setCurrent(null);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.cache.ReplayCache;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.fieldMessage;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link ReplayValidator}.
+ */
+public class ReplayValidatorTest {
+    private final ReplayCache cache = new ReplayCache(1, TimeUnit.HOURS, 2);
+
+    @Test
+    public void passesFirstSightingAndRejectsReplay() {
+        // Given
+        ReplayValidator<TestBean> validator = new ReplayValidator<>(fieldMessage("id", "replay", "Response {1} replayed"),
+                                                                    TestBean::getStringProperty, cache);
+
+        // When
+        Messages first = validator.validate(new TestBean("_abc"), messages());
+        Messages replayed = validator.validate(new TestBean("_abc"), messages());
+
+        // Then
+        assertThat(first.hasErrors(), is(false));
+        assertThat(replayed.getErrorCount(), is(1));
+        assertThat(replayed.getErrors().get(0).getField(), is("id"));
+        assertThat(replayed.getErrors().get(0).getRenderedMessage(), is("Response _abc replayed"));
+    }
+
+    @Test
+    public void defaultMessage() {
+        // Given
+        ReplayValidator<Object> validator = new ReplayValidator<>(cache);
+        validator.validate("_abc", messages());
+
+        // When
+        Messages replayed = validator.validate("_abc", messages());
+
+        // Then
+        assertThat(replayed.getErrors().get(0).getCode(), is(ReplayValidator.DEFAULT_MESSAGE_CODE));
+    }
+
+    @Test
+    public void ignoresNullValue() {
+        ReplayValidator<Object> validator = new ReplayValidator<>(cache);
+
+        assertThat(validator.validate(null, messages()).hasErrors(), is(false));
+        assertThat(validator.validate(null, messages()).hasErrors(), is(false));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void failsClosedWhenCacheFull() {
+        // Given
+        ReplayValidator<Object> validator = new ReplayValidator<>(cache);
+        validator.setCapacityMessage(globalMessage("full", "Full"));
+        validator.validate("_1", messages());
+        validator.validate("_2", messages());
+
+        // When
+        Messages messages = validator.validate("_3", messages());
+
+        // Then
+        assertThat(messages.getErrors().get(0).getCode(), is("full"));
+    }
+
+    @Test
+    public void validatorsSharingCacheDetectReplaysAcrossEachOther() {
+        // Given
+        ReplayValidator<Object> first = new ReplayValidator<>(cache);
+        ReplayValidator<Object> second = new ReplayValidator<>(cache);
+
+        // When
+        first.validate("_abc", messages());
+
+        // Then
+        assertThat(second.validate("_abc", messages()).hasErrors(), is(true));
+        assertThat(second.getCache().getReplayCount(), is(1L));
+    }
+}
@@ -222,4 +222,9 @@ public class RequiredValidatorTest {
         // Then no error message is added
         assertThat(messagesForNonNullObject.hasErrorLike(message), is(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void costIsCheap() {
+        assertThat(new RequiredValidator<>().getCost(), is(ValidationCost.CHEAP));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.metrics.StripedValidationMetrics;
+
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link SamplingPredicate}.
+ */
+public class SamplingPredicateTest {
+    @Test
+    public void rateSamplesApproximatelyTheRate() {
+        // Given
+        SamplingPredicate<Object> sampling = SamplingPredicate.rate(0.25);
+
+        // When
+        int selected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            selected += sampling.test(new Object()) ? 1 : 0;
+        }
+
+        // Then
+        assertThat(selected > 2000 && selected < 3000, is(true));
+        assertThat(sampling.getSampledCount(), is((long) selected));
+        assertThat(sampling.getSkippedCount(), is(10_000L - selected));
+        assertThat(sampling.getRate(), is(0.25));
+    }
+
+    @Test
+    public void rateOfZeroOrOneSamplesNothingOrEverything() {
+        SamplingPredicate<Object> none = SamplingPredicate.rate(0.0);
+        SamplingPredicate<Object> all = SamplingPredicate.rate(1.0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(none.test(i), is(false));
+            assertThat(all.test(i), is(true));
+        }
+    }
+
+    @Test
+    public void keyedSamplingIsDeterministicAcrossPredicates() {
+        // Given
+        SamplingPredicate<String> first = SamplingPredicate.keyed(Function.identity(), 0.1);
+        SamplingPredicate<String> second = SamplingPredicate.keyed(Function.identity(), 0.1);
+
+        // When
+        int selected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String requestId = "request-" + i;
+            boolean sampled = first.test(requestId);
+            assertThat(second.test(requestId), is(sampled));
+            assertThat(first.test(requestId), is(sampled));
+            selected += sampled ? 1 : 0;
+        }
+
+        // Then
+        assertThat(selected > 800 && selected < 1200, is(true));
+    }
+
+    @Test
+    public void keyedSamplingAtHigherRateSelectsSuperset() {
+        SamplingPredicate<Integer> low = SamplingPredicate.keyed(Function.identity(), 0.05);
+        SamplingPredicate<Integer> high = SamplingPredicate.keyed(Function.identity(), 0.5);
+
+        for (int i = 0; i < 10_000; i++) {
+            if (low.test(i)) {
+                assertThat(high.test(i), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void keyedSamplingSkipsNullKeys() {
+        SamplingPredicate<Object> sampling = SamplingPredicate.keyed(object -> null, 1.0);
+
+        assertThat(sampling.test(new Object()), is(false));
+        assertThat(sampling.getSkippedCount(), is(1L));
+    }
+
+    @Test
+    public void validatorSkipsUnsampledObjectsAndReportsThemSkipped() {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        SamplingPredicate<Object> sampling = SamplingPredicate.rate(0.0);
+        RequiredValidator<Object> validator = new RequiredValidator<>(sampling.and(object -> true), null);
+        validator.setName("sampled");
+        validator.setMetrics(metrics);
+
+        // When
+        Messages messages = validator.validate(null, messages());
+
+        // Then
+        assertThat(messages.hasErrors(), is(false));
+        assertThat(sampling.getSkippedCount(), is(1L));
+        assertThat(metrics.getStats("sampled").getSkipped(), is(1L));
+    }
+
+    @Test
+    public void unitIntervalIsInRange() {
+        for (int hash : new int[]{0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            double value = SamplingPredicate.unitInterval(hash);
+            assertThat(value >= 0.0 && value < 1.0, is(true));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRateAboveOne() {
+        SamplingPredicate.rate(1.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNaNRate() {
+        SamplingPredicate.keyed(Function.identity(), Double.NaN);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+import uk.gov.ida.validation.metrics.LatencyHistogram;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+
+/**
+ * Unit tests for {@link TimedValidator}.
+ */
+public class TimedValidatorTest {
+    @Test
+    public void ctorValidator() {
+        // Given
+        Validator<Object> validator = new RequiredValidator<>();
+
+        // When
+        TimedValidator<Object> timed = new TimedValidator<>(validator);
+
+        // Then
+        assertThat(timed.getValidator(), sameInstance(validator));
+        assertThat(timed.getHistogram(), notNullValue());
+    }
+
+    @Test
+    public void recordsLatencyOfDecoratedSubtree() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        Messages messages = messages();
+        TimedValidator<Object> timed = new TimedValidator<>(
+                new CompositeValidator<>(new RequiredValidator<>(), new FixedErrorValidator<>(globalMessage("theCode", "theMessage"))),
+                histogram);
+
+        // When
+        Messages returned = timed.validate(null, messages);
+        timed.validate("value", messages);
+
+        // Then
+        assertThat(returned, sameInstance(messages));
+        assertThat(messages.getErrorCount(), is(3));
+        assertThat(histogram.getCount(), is(2L));
+    }
+
+    @Test
+    public void recordsLatencyWhenValidatorThrows() {
+        // Given
+        TimedValidator<Object> timed = new TimedValidator<>((object, messages) -> {
+            throw new IllegalStateException();
+        });
+
+        // When
+        try {
+            timed.validate(new Object(), messages());
+        } catch (IllegalStateException expected) {
+        }
+
+        // Then
+        assertThat(timed.getHistogram().getCount(), is(1L));
+    }
+
+    @Test
+    public void costIsValidatorCostUntilLatencyRecorded() {
+        // Given
+        TimedValidator<Object> timed = new TimedValidator<>(new RequiredValidator<>());
+        assertThat(timed.getCost(), is(ValidationCost.CHEAP));
+
+        // When
+        timed.getHistogram().record(1000);
+
+        // Then
+        assertThat(timed.getCost().getNanos(), is(timed.getHistogram().getPercentile(50.0)));
+        assertThat(timed.getCost().getCategory(), is((String) null));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for {@link ValidationCost}.
+ */
+public class ValidationCostTest {
+    @Test
+    public void categoriesAreOrderedByCost() {
+        assertThat(ValidationCost.FREE.compareTo(ValidationCost.CHEAP) < 0, is(true));
+        assertThat(ValidationCost.CHEAP.compareTo(ValidationCost.MODERATE) < 0, is(true));
+        assertThat(ValidationCost.MODERATE.compareTo(ValidationCost.EXPENSIVE) < 0, is(true));
+    }
+
+    @Test
+    public void measuredCostHasNoCategory() {
+        ValidationCost cost = ValidationCost.ofNanos(ValidationCost.CHEAP.getNanos());
+
+        assertThat(cost.getCategory(), nullValue());
+        assertThat(cost, not(ValidationCost.CHEAP));
+        assertThat(cost.compareTo(ValidationCost.CHEAP), is(0));
+        assertThat(cost.toString(), is("50ns"));
+        assertThat(ValidationCost.CHEAP.toString(), is("CHEAP(50ns)"));
+    }
+
+    @Test
+    public void plusAddsNanos() {
+        assertThat(ValidationCost.CHEAP.plus(ValidationCost.ofNanos(25)), is(ValidationCost.ofNanos(75)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeCost() {
+        ValidationCost.ofNanos(-1);
+    }
+}
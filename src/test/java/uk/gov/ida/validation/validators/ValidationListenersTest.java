@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.gov.ida.validation.messages.Messages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+import static uk.gov.ida.validation.messages.MessagesImpl.messages;
+import static uk.gov.ida.validation.validators.Predicates.falsePredicate;
+
+/**
+ * Unit tests for {@link ValidationListeners} and the notifications made to {@link ValidationListener}s.
+ */
+public class ValidationListenersTest {
+    private final RecordingListener listener1 = new RecordingListener("1");
+    private final RecordingListener listener2 = new RecordingListener("2");
+
+    @After
+    public void unregisterListeners() {
+        ValidationListeners.unregister(listener1);
+        ValidationListeners.unregister(listener2);
+    }
+
+    @Test
+    public void noListenerByDefault() {
+        assertThat(ValidationListeners.current(), nullValue());
+    }
+
+    @Test
+    public void notifiesNestedStartAndFinishWithOutcomes() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setName("required");
+        FixedErrorValidator<Object> skipped = new FixedErrorValidator<>(falsePredicate(), globalMessage("theCode", "theMessage"));
+        skipped.setName("skipped");
+        CompositeValidator<Object> composite = new CompositeValidator<>(required, skipped);
+        composite.setName("composite");
+        ValidationListeners.register(listener1);
+
+        // When
+        composite.validate(null, messages());
+
+        // Then
+        assertThat(listener1.events, equalTo(Arrays.asList(
+                "start composite",
+                "start required",
+                "finish required 1 FAILED",
+                "start skipped",
+                "finish skipped 1 SKIPPED",
+                "finish composite 1 FAILED")));
+    }
+
+    @Test
+    public void notifiesPassedOutcome() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setName("required");
+        ValidationListeners.register(listener1);
+
+        // When
+        required.validate("value", messages());
+
+        // Then
+        assertThat(listener1.events, equalTo(Arrays.asList("start required", "finish required 1 PASSED")));
+    }
+
+    @Test
+    public void notifiesAbortedOutcomeWhenValidationThrows() {
+        // Given
+        AbstractConditionalValidator<Object> throwing = new AbstractConditionalValidator<Object>() {
+            @Override
+            protected Messages doValidate(Object object, Messages messages) {
+                throw new IllegalStateException();
+            }
+        };
+        throwing.setName("throwing");
+        ValidationListeners.register(listener1);
+
+        // When
+        try {
+            throwing.validate(new Object(), messages());
+        } catch (IllegalStateException expected) {
+        }
+
+        // Then
+        assertThat(listener1.events, equalTo(Arrays.asList("start throwing", "finish throwing 1 ABORTED")));
+    }
+
+    @Test
+    public void notifiesSeveralListenersWithTheirOwnHandles() {
+        // Given
+        RequiredValidator<Object> required = new RequiredValidator<>();
+        required.setName("required");
+        ValidationListeners.register(listener1);
+        ValidationListeners.register(listener2);
+
+        // When
+        required.validate("value", messages());
+
+        // Then
+        assertThat(listener1.events, equalTo(Arrays.asList("start required", "finish required 1 PASSED")));
+        assertThat(listener2.events, equalTo(Arrays.asList("start required", "finish required 2 PASSED")));
+    }
+
+    @Test
+    public void unregisteredListenerIsNotNotified() {
+        // Given
+        ValidationListeners.register(listener1);
+        ValidationListeners.register(listener2);
+
+        // When
+        ValidationListeners.unregister(listener1);
+        new RequiredValidator<>().validate("value", messages());
+
+        // Then
+        assertThat(listener1.events.isEmpty(), is(true));
+        assertThat(ValidationListeners.current(), sameInstance(listener2));
+    }
+
+    private static class RecordingListener implements ValidationListener {
+        private final String handle;
+        private final List<String> events = new ArrayList<>();
+
+        private RecordingListener(String handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public Object started(AbstractConditionalValidator<?> validator, Messages messages) {
+            events.add("start " + validator.getName());
+            return handle;
+        }
+
+        @Override
+        public void finished(Object handle, AbstractConditionalValidator<?> validator, Messages messages, ValidationOutcome outcome) {
+            events.add("finish " + validator.getName() + " " + handle + " " + outcome);
+        }
+    }
+}
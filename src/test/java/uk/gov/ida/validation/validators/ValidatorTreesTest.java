@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Beanplanet Ltd (original donor)
+ * Copyright (c) 2017 Crown Copyright (Government Digital Service)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the right
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package uk.gov.ida.validation.validators;
+
+import org.junit.Test;
+import uk.gov.ida.validation.metrics.StripedValidationMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static uk.gov.ida.validation.messages.MessageImpl.globalMessage;
+
+/**
+ * Unit tests for {@link ValidatorTrees}.
+ */
+public class ValidatorTreesTest {
+    @Test
+    public void forEachVisitsParentsBeforeChildrenInDeclarationOrder() {
+        // Given
+        RequiredValidator<Object> leaf1 = new RequiredValidator<>();
+        RequiredValidator<Object> leaf2 = new RequiredValidator<>();
+        RequiredValidator<Object> leaf3 = new RequiredValidator<>();
+        CompositeValidator<Object> branch = new CompositeValidator<>(leaf1, leaf2);
+        CompositeValidator<Object> root = new CompositeValidator<>(branch, leaf3);
+        List<Validator<?>> visited = new ArrayList<>();
+
+        // When
+        ValidatorTrees.forEach(root, visited::add);
+
+        // Then
+        assertThat(visited, equalTo(Arrays.<Validator<?>>asList(root, branch, leaf1, leaf2, leaf3)));
+    }
+
+    @Test
+    public void forEachVisitsValidatorsDecoratedByTimedValidator() {
+        // Given
+        RequiredValidator<Object> leaf = new RequiredValidator<>();
+        TimedValidator<Object> timed = new TimedValidator<>(leaf);
+        List<Validator<?>> visited = new ArrayList<>();
+
+        // When
+        ValidatorTrees.forEach(timed, visited::add);
+
+        // Then
+        assertThat(visited, equalTo(Arrays.<Validator<?>>asList(timed, leaf)));
+    }
+
+    @Test
+    public void setMetricsSetsMetricsOnEveryValidatorOfTree() {
+        // Given
+        StripedValidationMetrics metrics = new StripedValidationMetrics();
+        FixedErrorValidator<Object> leaf = new FixedErrorValidator<>(globalMessage("theCode", "theMessage"));
+        CompositeValidator<Object> root = new CompositeValidator<>(new CompositeValidator<>(leaf), new RequiredValidator<>());
+
+        // When
+        ValidatorTrees.setMetrics(root, metrics);
+
+        // Then
+        assertThat(root.getMetrics(), sameInstance(metrics));
+        assertThat(leaf.getMetrics(), sameInstance(metrics));
+    }
+
+    @Test
+    public void setMetricsNamesUnnamedValidatorsByPosition() {
+        // Given
+        RequiredValidator<Object> first = new RequiredValidator<>();
+        RequiredValidator<Object> second = new RequiredValidator<>();
+        RequiredValidator<Object> named = new RequiredValidator<>();
+        named.setName("named");
+        CompositeValidator<Object> nested = new CompositeValidator<>(second, named);
+        CompositeValidator<Object> root = new CompositeValidator<>(first, nested);
+
+        // When
+        ValidatorTrees.setMetrics(root, new StripedValidationMetrics());
+
+        // Then
+        assertThat(root.getMetricsName(), is(CompositeValidator.class.getName()));
+        assertThat(first.getMetricsName(), is(first.defaultName() + "@0"));
+        assertThat(nested.getMetricsName(), is(CompositeValidator.class.getName() + "@1"));
+        assertThat(second.getMetricsName(), is(second.defaultName() + "@1.0"));
+        assertThat(named.getMetricsName(), is("named"));
+        assertThat(first.getName(), is(first.defaultName()));
+        assertThat(first.isNamed(), is(false));
+        assertThat(root.explain().contains("@"), is(false));
+    }
+
+    @Test
+    public void clearingMetricsRemovesPositionalNames() {
+        // Given
+        RequiredValidator<Object> child = new RequiredValidator<>();
+        CompositeValidator<Object> root = new CompositeValidator<>(child);
+        ValidatorTrees.setMetrics(root, new StripedValidationMetrics());
+
+        // When
+        ValidatorTrees.setMetrics(root, null);
+
+        // Then
+        assertThat(child.getMetricsName(), is(child.getName()));
+    }
+}